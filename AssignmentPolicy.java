@@ -0,0 +1,21 @@
+package services;
+
+import models.PrintJob;
+import models.PrinterLoad;
+
+import java.util.List;
+
+/**
+ * Strategy used by DispatchService to pick a printer for a job
+ */
+public interface AssignmentPolicy {
+
+    /**
+     * Choose a printer for a job
+     *
+     * @param job Job being dispatched
+     * @param candidates Current load of every online printer (never empty)
+     * @return The chosen candidate
+     */
+    PrinterLoad choosePrinter(PrintJob job, List<PrinterLoad> candidates);
+}
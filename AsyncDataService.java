@@ -0,0 +1,192 @@
+package services;
+
+import dao.PrintJobDAO;
+import dao.TransactionDAO;
+import dao.UserDAO;
+import database.DatabaseConnection;
+import models.JobSnapshot;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+import models.Transaction;
+import models.User;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking access to the DAOs and payment operations used by the portals
+ * Each call runs the existing blocking method on a background thread and returns a
+ * CompletableFuture, so independent queries can be issued together. On a runtime with
+ * virtual threads (Java 21+) every call gets its own virtual thread; otherwise a fixed
+ * pool of daemon threads is used. Either way at most async.maxConcurrency calls
+ * (default 8) hold a database connection at once. Set async.virtualThreads=false to
+ * force the fixed pool.
+ */
+public class AsyncDataService {
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    private static AsyncDataService instance;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean virtualThreads;
+    private final PrintJobDAO printJobDAO;
+    private final UserDAO userDAO;
+    private final TransactionDAO transactionDAO;
+    private final PaymentService paymentService;
+
+    /**
+     * @param maxConcurrency Most calls allowed to run at the same time
+     * @param preferVirtualThreads Use virtual threads when the runtime has them
+     */
+    public AsyncDataService(int maxConcurrency, boolean preferVirtualThreads) {
+        ExecutorService virtual = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newDaemonPool(maxConcurrency);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.printJobDAO = new PrintJobDAO();
+        this.userDAO = new UserDAO();
+        this.transactionDAO = new TransactionDAO();
+        this.paymentService = new PaymentService();
+    }
+
+    /**
+     * Get the shared AsyncDataService configured from database.properties
+     *
+     * @return AsyncDataService instance
+     */
+    public static synchronized AsyncDataService getInstance() {
+        if (instance == null) {
+            DatabaseConnection config = DatabaseConnection.getInstance();
+            int maxConcurrency = Integer.parseInt(config.getProperty("async.maxConcurrency",
+                String.valueOf(DEFAULT_MAX_CONCURRENCY)));
+            boolean virtual = Boolean.parseBoolean(config.getProperty("async.virtualThreads", "true"));
+            instance = new AsyncDataService(maxConcurrency, virtual);
+        }
+        return instance;
+    }
+
+    /**
+     * Whether calls run on virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Run any blocking data access in the background under the concurrency limit
+     *
+     * @param work Blocking call
+     * @return Future completed with the call's result, or exceptionally if it threw
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return work.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    // PrintJobDAO
+
+    public CompletableFuture<PrintJob> getJobById(int jobId) {
+        return supply(() -> printJobDAO.getJobById(jobId));
+    }
+
+    public CompletableFuture<JobSnapshot> getJobSnapshotByUserId(int userId) {
+        return supply(() -> printJobDAO.getJobSnapshotByUserId(userId));
+    }
+
+    public CompletableFuture<JobSnapshot> getCompletedJobSnapshot() {
+        return supply(printJobDAO::getCompletedJobSnapshot);
+    }
+
+    public CompletableFuture<Integer> createPrintJob(PrintJob job) {
+        return supply(() -> printJobDAO.createPrintJob(job));
+    }
+
+    public CompletableFuture<Boolean> updateJobStatus(int jobId, JobStatus newStatus, Integer operatorId) {
+        return supply(() -> printJobDAO.updateJobStatus(jobId, newStatus, operatorId));
+    }
+
+    // QueueService
+
+    public CompletableFuture<List<PrintJob>> getQueueJobs() {
+        return supply(() -> QueueService.getInstance().getQueueJobs());
+    }
+
+    public CompletableFuture<List<PrintJob>> getQueueJobsForUser(int userId) {
+        return supply(() -> QueueService.getInstance().getQueueJobsForUser(userId));
+    }
+
+    // UserDAO
+
+    public CompletableFuture<User> authenticate(String username, String password) {
+        return supply(() -> userDAO.authenticate(username, password));
+    }
+
+    public CompletableFuture<User> getUserById(int userId) {
+        return supply(() -> userDAO.getUserById(userId));
+    }
+
+    // TransactionDAO
+
+    public CompletableFuture<List<Transaction>> getTransactionsByUserId(int userId) {
+        return supply(() -> transactionDAO.getTransactionsByUserId(userId));
+    }
+
+    // PaymentService
+
+    public CompletableFuture<Boolean> rechargeWallet(int userId, long amount, String idempotencyKey) {
+        return supply(() -> paymentService.rechargeWallet(userId, amount, idempotencyKey));
+    }
+
+    public CompletableFuture<Boolean> hasSufficientBalance(int userId, long amount) {
+        return supply(() -> paymentService.hasSufficientBalance(userId, amount));
+    }
+
+    public CompletableFuture<Boolean> authorizePayment(int userId, int jobId, long amount) {
+        return supply(() -> paymentService.authorizePayment(userId, jobId, amount));
+    }
+
+    public CompletableFuture<Boolean> hasActiveHold(int jobId) {
+        return supply(() -> paymentService.hasActiveHold(jobId));
+    }
+
+    public CompletableFuture<Boolean> capturePayment(int jobId) {
+        return supply(() -> paymentService.capturePayment(jobId));
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor on runtimes that have it
+     * Looked up reflectively so the code still compiles and runs on Java 17
+     *
+     * @return Executor, or null if virtual threads are not available
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newDaemonPool(int size) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, "db-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
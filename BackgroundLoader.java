@@ -0,0 +1,95 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Hands the results of background data access back to the Event Dispatch Thread
+ * Only the latest load of a loader is delivered: starting a new load or calling cancel
+ * discards whatever is still in flight, so a slow response can never overwrite a newer
+ * one. The busy indicator is shown while a load is running. A discarded query still
+ * runs to completion on its background thread; only its result is dropped.
+ * All methods must be called on the Event Dispatch Thread.
+ */
+public class BackgroundLoader {
+    /**
+     * Runs continuations on the Event Dispatch Thread
+     */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    private final JComponent indicator;
+    private long generation;
+    private CompletableFuture<?> inFlight;
+
+    /**
+     * @param indicator Component shown while loading, or null
+     */
+    public BackgroundLoader(JComponent indicator) {
+        this.indicator = indicator;
+    }
+
+    /**
+     * Small indeterminate progress bar for use as a busy indicator, initially hidden
+     */
+    public static JProgressBar createIndicator() {
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        bar.setPreferredSize(new Dimension(80, 12));
+        bar.setVisible(false);
+        return bar;
+    }
+
+    /**
+     * Deliver the result of a request unless a later load or cancel supersedes it
+     *
+     * @param request Background work already started, e.g. from AsyncDataService
+     * @param onResult Receives the result on the Event Dispatch Thread
+     * @param onError Receives the failure on the Event Dispatch Thread
+     */
+    public <T> void load(CompletableFuture<T> request, Consumer<T> onResult, Consumer<Throwable> onError) {
+        cancel();
+        long ticket = generation;
+        inFlight = request;
+        setBusy(true);
+
+        request.whenCompleteAsync((result, error) -> {
+            if (ticket != generation) {
+                return;
+            }
+            inFlight = null;
+            setBusy(false);
+            if (error != null) {
+                onError.accept(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                onResult.accept(result);
+            }
+        }, EDT);
+    }
+
+    /**
+     * Discard the load in flight, if any
+     */
+    public void cancel() {
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+        setBusy(false);
+    }
+
+    public boolean isLoading() {
+        return inFlight != null;
+    }
+
+    private void setBusy(boolean busy) {
+        if (indicator != null) {
+            indicator.setVisible(busy);
+        }
+    }
+}
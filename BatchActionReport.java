@@ -0,0 +1,121 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-job outcomes of an operator action applied to several selected jobs
+ */
+public class BatchActionReport {
+    private int succeeded;
+    private int skipped;
+    private int failed;
+    private int batchesCommitted;
+    private int batchesFailed;
+    private long durationMillis;
+    private List<JobResult> results = new ArrayList<>();
+
+    public enum Outcome {
+        DONE, SKIPPED, FAILED
+    }
+
+    /**
+     * Outcome for a single job
+     */
+    public static class JobResult {
+        private final int jobId;
+        private final Outcome outcome;
+        private final String message;
+
+        public JobResult(int jobId, Outcome outcome, String message) {
+            this.jobId = jobId;
+            this.outcome = outcome;
+            this.message = message;
+        }
+
+        public int getJobId() {
+            return jobId;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + jobId + " " + outcome + (message != null ? ": " + message : "");
+        }
+    }
+
+    public void addResult(int jobId, Outcome outcome, String message) {
+        results.add(new JobResult(jobId, outcome, message));
+        switch (outcome) {
+            case DONE:
+                succeeded++;
+                break;
+            case SKIPPED:
+                skipped++;
+                break;
+            default:
+                failed++;
+                break;
+        }
+    }
+
+    public void batchCommitted() {
+        batchesCommitted++;
+    }
+
+    public void batchFailed() {
+        batchesFailed++;
+    }
+
+    // Getters and Setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getBatchesCommitted() {
+        return batchesCommitted;
+    }
+
+    public int getBatchesFailed() {
+        return batchesFailed;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<JobResult> getResults() {
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchActionReport{" +
+                "succeeded=" + succeeded +
+                ", skipped=" + skipped +
+                ", failed=" + failed +
+                ", batchesCommitted=" + batchesCommitted +
+                ", batchesFailed=" + batchesFailed +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,266 @@
+package services;
+
+import dao.PrintJobChunkDAO;
+import dao.PrintJobDAO;
+import dao.WalletHoldDAO;
+import database.DatabaseConnection;
+import models.BatchActionReport;
+import models.BatchActionReport.Outcome;
+import models.BulkCancellationReport;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+import models.PrintJob.PaymentStatus;
+import models.PrintJob.PaymentType;
+import models.SettlementReport;
+import models.WalletHold;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Operator actions applied to several selected jobs at once
+ * The selection is processed in chunks; each chunk is one database transaction that
+ * locks the jobs, decides per job whether the action applies, and performs the
+ * action for all eligible jobs with JDBC batches. Ineligible jobs are skipped with a
+ * reason and a failed chunk is rolled back as a whole, so every job gets an outcome.
+ */
+public class BatchJobService {
+    private static final int DEFAULT_BATCH_SIZE = 200;
+
+    public enum Action {
+        START("Start"), COMPLETE("Complete"), CANCEL("Cancel"), MARK_PAID("Mark Paid");
+
+        private final String label;
+
+        Action(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private PrintJobDAO printJobDAO;
+    private PrintJobChunkDAO chunkDAO;
+    private WalletHoldDAO walletHoldDAO;
+    private PaymentService paymentService;
+    private BulkCancellationService cancellationService;
+    private SettlementService settlementService;
+    private LeaseManager leaseManager;
+
+    /**
+     * @param leaseManager Lease manager of the operator station; started jobs are leased to it
+     */
+    public BatchJobService(LeaseManager leaseManager) {
+        this.printJobDAO = new PrintJobDAO();
+        this.chunkDAO = new PrintJobChunkDAO();
+        this.walletHoldDAO = new WalletHoldDAO();
+        this.paymentService = new PaymentService();
+        this.cancellationService = new BulkCancellationService();
+        this.settlementService = new SettlementService();
+        this.leaseManager = leaseManager;
+    }
+
+    /**
+     * Apply an action to the selected jobs
+     *
+     * @param action Action to apply
+     * @param jobIds Selected job IDs
+     * @param operatorId Operator performing the action
+     * @return One outcome per selected job
+     */
+    public BatchActionReport apply(Action action, List<Integer> jobIds, Integer operatorId) {
+        BatchActionReport report = new BatchActionReport();
+        long start = System.currentTimeMillis();
+
+        for (int from = 0; from < jobIds.size(); from += DEFAULT_BATCH_SIZE) {
+            List<Integer> chunk = jobIds.subList(from, Math.min(from + DEFAULT_BATCH_SIZE, jobIds.size()));
+            applyChunk(action, new ArrayList<>(chunk), operatorId, report);
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    /**
+     * Apply an action to one chunk of jobs in a single transaction
+     */
+    private void applyChunk(Action action, List<Integer> jobIds, Integer operatorId, BatchActionReport report) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            Map<Integer, PrintJob> jobs = new HashMap<>();
+            for (PrintJob job : printJobDAO.lockJobs(conn, jobIds)) {
+                jobs.put(job.getJobId(), job);
+            }
+            Set<Integer> splitJobIds = chunkDAO.getSplitJobIds(conn, jobIds);
+            Set<Integer> heldJobIds = new HashSet<>();
+            if (action == Action.COMPLETE || action == Action.MARK_PAID) {
+                for (WalletHold hold : walletHoldDAO.lockActiveHolds(conn, jobIds)) {
+                    heldJobIds.add(hold.getJobId());
+                }
+            }
+
+            // Decide per job, keeping the operator's selection order for the report
+            Map<Integer, String> skipped = new LinkedHashMap<>();
+            List<PrintJob> eligible = new ArrayList<>();
+            for (int jobId : jobIds) {
+                PrintJob job = jobs.get(jobId);
+                String reason = job == null ? "Job not found"
+                        : ineligibleReason(action, job, splitJobIds.contains(jobId), heldJobIds.contains(jobId),
+                                           leaseManager.getStationId());
+                if (reason != null) {
+                    skipped.put(jobId, reason);
+                } else {
+                    eligible.add(job);
+                }
+            }
+
+            List<Integer> eligibleIds = new ArrayList<>();
+            List<Integer> captureIds = new ArrayList<>();
+            List<PrintJob> postpaidJobs = new ArrayList<>();
+            for (PrintJob job : eligible) {
+                eligibleIds.add(job.getJobId());
+                if (heldJobIds.contains(job.getJobId())) {
+                    captureIds.add(job.getJobId());
+                } else if (job.getPaymentType() == PaymentType.POSTPAID) {
+                    postpaidJobs.add(job);
+                }
+            }
+
+            Set<Integer> notDone = new HashSet<>();
+            switch (action) {
+                case START:
+                    printJobDAO.leaseJobs(conn, eligibleIds, leaseManager.getStationId(), operatorId,
+                                          leaseManager.getLeaseSeconds());
+                    break;
+                case COMPLETE:
+                    printJobDAO.updateJobStatus(conn, eligibleIds, JobStatus.COMPLETED, operatorId);
+                    paymentService.capturePayments(conn, captureIds);
+                    break;
+                case CANCEL:
+                    cancellationService.cancelLockedJobs(conn, eligible, operatorId, new BulkCancellationReport());
+                    break;
+                case MARK_PAID:
+                    paymentService.capturePayments(conn, captureIds);
+                    SettlementReport settlement = new SettlementReport();
+                    settlementService.settleLockedJobs(conn, postpaidJobs, settlement);
+                    for (int jobId : settlement.getInsufficientBalanceJobIds()) {
+                        notDone.add(jobId);
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            conn.commit();
+            report.batchCommitted();
+
+            for (int jobId : jobIds) {
+                if (skipped.containsKey(jobId)) {
+                    report.addResult(jobId, Outcome.SKIPPED, skipped.get(jobId));
+                } else if (notDone.contains(jobId)) {
+                    report.addResult(jobId, Outcome.SKIPPED, "Insufficient wallet balance");
+                } else {
+                    report.addResult(jobId, Outcome.DONE, null);
+                }
+            }
+
+            if (action == Action.COMPLETE) {
+                for (PrintJob job : eligible) {
+                    EtaEngine.getInstance().recordCompletion(job, operatorId);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error applying " + action + " to " + jobIds.size() + " jobs: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            for (int jobId : jobIds) {
+                report.addResult(jobId, Outcome.FAILED, e.getMessage());
+            }
+            report.batchFailed();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Why an action does not apply to a job
+     *
+     * @param action Action to apply
+     * @param job Locked job
+     * @param split Whether the job was split into chunks
+     * @param held Whether the job has an active wallet hold
+     * @param stationId Station applying the action
+     * @return Reason to skip the job, or null if the action applies
+     */
+    public static String ineligibleReason(Action action, PrintJob job, boolean split, boolean held, String stationId) {
+        JobStatus status = job.getJobStatus();
+        boolean awaitingCapture = job.getPaymentStatus() == PaymentStatus.UNPAID
+                && job.getPaymentType() == PaymentType.PREPAID;
+
+        if (action == Action.MARK_PAID) {
+            if (status == JobStatus.CANCELLED) {
+                return "Job was cancelled";
+            }
+            if (job.getPaymentStatus() != PaymentStatus.UNPAID) {
+                return "Already " + job.getPaymentStatus().toString().toLowerCase();
+            }
+            return awaitingCapture && !held ? "No funds held for this job" : null;
+        }
+
+        if (status == JobStatus.COMPLETED || status == JobStatus.CANCELLED) {
+            return "Already " + status.toString().toLowerCase();
+        }
+
+        switch (action) {
+            case START:
+                if (status != JobStatus.PENDING) {
+                    return "Already being processed";
+                }
+                if (job.getSpoolBatchId() != null) {
+                    return "Part of spool batch #" + job.getSpoolBatchId();
+                }
+                return split ? "Split across printers" : null;
+            case COMPLETE:
+                if (job.getSpoolBatchId() != null) {
+                    return "Complete spool batch #" + job.getSpoolBatchId() + " instead";
+                }
+                if (split) {
+                    return "Complete its chunks instead";
+                }
+                if (job.getLeaseOwner() != null && !job.getLeaseOwner().equals(stationId)) {
+                    return "Claimed by another operator station";
+                }
+                return awaitingCapture && !held ? "Payment required" : null;
+            default:
+                return null;
+        }
+    }
+}
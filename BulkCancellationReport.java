@@ -0,0 +1,106 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress and outcome of a bulk cancellation run
+ * The same instance is updated after every committed chunk, so it doubles as
+ * the progress report handed to listeners
+ */
+public class BulkCancellationReport {
+    private int jobsScanned;
+    private int jobsCancelled;
+    private int holdsReleased;
+    private int refundsIssued;
+    private int batchesCommitted;
+    private int batchesFailed;
+    private long totalRefunded; // in paise
+    private long durationMillis;
+    private List<Integer> failedJobIds = new ArrayList<>();
+
+    public void addScanned(int count) {
+        jobsScanned += count;
+    }
+
+    public void addCancelled(int count) {
+        jobsCancelled += count;
+    }
+
+    public void addHoldsReleased(int count) {
+        holdsReleased += count;
+    }
+
+    public void addRefunds(int count, long amount) {
+        refundsIssued += count;
+        totalRefunded += amount;
+    }
+
+    public void addFailedJob(int jobId) {
+        failedJobIds.add(jobId);
+    }
+
+    public void batchCommitted() {
+        batchesCommitted++;
+    }
+
+    public void batchFailed() {
+        batchesFailed++;
+    }
+
+    // Getters and Setters
+    public int getJobsScanned() {
+        return jobsScanned;
+    }
+
+    public int getJobsCancelled() {
+        return jobsCancelled;
+    }
+
+    public int getHoldsReleased() {
+        return holdsReleased;
+    }
+
+    public int getRefundsIssued() {
+        return refundsIssued;
+    }
+
+    public int getBatchesCommitted() {
+        return batchesCommitted;
+    }
+
+    public int getBatchesFailed() {
+        return batchesFailed;
+    }
+
+    public long getTotalRefunded() {
+        return totalRefunded;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<Integer> getFailedJobIds() {
+        return failedJobIds;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkCancellationReport{" +
+                "jobsScanned=" + jobsScanned +
+                ", jobsCancelled=" + jobsCancelled +
+                ", holdsReleased=" + holdsReleased +
+                ", refundsIssued=" + refundsIssued +
+                ", totalRefunded=" + Money.formatPlain(totalRefunded) +
+                ", failedJobs=" + failedJobIds.size() +
+                ", batchesCommitted=" + batchesCommitted +
+                ", batchesFailed=" + batchesFailed +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,299 @@
+package services;
+
+import dao.PrintJobDAO;
+import dao.TransactionDAO;
+import dao.UserDAO;
+import dao.WalletHoldDAO;
+import database.DatabaseConnection;
+import models.BulkCancellationReport;
+import models.JobFilter;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+import models.PrintJob.PaymentStatus;
+import models.PrintJob.PaymentType;
+import models.Transaction;
+import models.Transaction.TransactionType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk cancellation of queued print jobs, e.g. after a printer outage
+ * Matching jobs are walked in keyset-paged chunks. Each chunk is one database
+ * transaction that locks the jobs, releases PREPAID holds, refunds jobs that were
+ * charged up front and marks every job CANCELLED, all with JDBC batches.
+ */
+public class BulkCancellationService {
+    private static final int DEFAULT_BATCH_SIZE = 200;
+    private static final Set<JobStatus> CANCELLABLE = EnumSet.of(JobStatus.PENDING, JobStatus.PROCESSING);
+
+    private UserDAO userDAO;
+    private PrintJobDAO printJobDAO;
+    private TransactionDAO transactionDAO;
+    private WalletHoldDAO walletHoldDAO;
+
+    public BulkCancellationService() {
+        this.userDAO = new UserDAO();
+        this.printJobDAO = new PrintJobDAO();
+        this.transactionDAO = new TransactionDAO();
+        this.walletHoldDAO = new WalletHoldDAO();
+    }
+
+    /**
+     * Cancel all jobs matching a filter using the default chunk size
+     *
+     * @param filter Jobs to cancel
+     * @param operatorId Operator performing the cancellation
+     * @param progress Called with the running report after every chunk; may be null
+     * @return Cancellation report
+     */
+    public BulkCancellationReport cancelJobs(JobFilter filter, Integer operatorId,
+                                             Consumer<BulkCancellationReport> progress) {
+        return cancelJobs(filter, operatorId, DEFAULT_BATCH_SIZE, progress);
+    }
+
+    /**
+     * Cancel all jobs matching a filter
+     * Only PENDING and PROCESSING jobs are cancelled; other statuses in the filter are ignored
+     *
+     * @param filter Jobs to cancel
+     * @param operatorId Operator performing the cancellation
+     * @param batchSize Number of jobs cancelled per database transaction
+     * @param progress Called with the running report after every chunk; may be null
+     * @return Cancellation report
+     */
+    public BulkCancellationReport cancelJobs(JobFilter filter, Integer operatorId, int batchSize,
+                                             Consumer<BulkCancellationReport> progress) {
+        BulkCancellationReport report = new BulkCancellationReport();
+        long start = System.currentTimeMillis();
+        int afterJobId = 0;
+
+        JobFilter cancellable = new JobFilter(filter.getSubmittedFrom(), filter.getSubmittedTo());
+        cancellable.setPrinterId(filter.getPrinterId());
+        Set<JobStatus> statuses = EnumSet.copyOf(CANCELLABLE);
+        statuses.retainAll(filter.getStatuses());
+        cancellable.setStatuses(statuses);
+
+        while (true) {
+            int lastJobId = cancelBatch(cancellable, operatorId, afterJobId, batchSize, report);
+            if (lastJobId < 0) {
+                break;
+            }
+            afterJobId = lastJobId;
+            report.setDurationMillis(System.currentTimeMillis() - start);
+            if (progress != null) {
+                progress.accept(report);
+            }
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    /**
+     * Cancel a single job as an operator saw it
+     * The job is cancelled only if it is still at the given version and still PENDING or
+     * PROCESSING. The status change, hold release and any refund commit together.
+     *
+     * @param jobId Job ID
+     * @param expectedVersion Version the operator confirmed
+     * @param operatorId Operator performing the cancellation
+     * @return true if cancelled, false if the job changed in the meantime or on error
+     */
+    public boolean cancelJob(int jobId, int expectedVersion, Integer operatorId) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            PrintJob job = printJobDAO.lockJob(conn, jobId);
+            if (job == null || job.getVersion() != expectedVersion || !CANCELLABLE.contains(job.getJobStatus())) {
+                conn.rollback();
+                return false;
+            }
+
+            cancelLockedJobs(conn, Collections.singletonList(job), operatorId, new BulkCancellationReport());
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error cancelling job #" + jobId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancel one chunk of jobs in a single transaction
+     *
+     * @return Highest job ID seen in the chunk, or -1 when there are no more jobs
+     */
+    private int cancelBatch(JobFilter filter, Integer operatorId, int afterJobId, int batchSize,
+                            BulkCancellationReport report) {
+        Connection conn = null;
+        List<PrintJob> jobs = new ArrayList<>();
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            jobs = printJobDAO.lockMatchingJobs(conn, filter, afterJobId, batchSize);
+            if (jobs.isEmpty()) {
+                conn.rollback();
+                return -1;
+            }
+
+            BulkCancellationReport chunk = new BulkCancellationReport();
+            cancelLockedJobs(conn, jobs, operatorId, chunk);
+            conn.commit();
+
+            report.addScanned(jobs.size());
+            report.addCancelled(chunk.getJobsCancelled());
+            report.addHoldsReleased(chunk.getHoldsReleased());
+            report.addRefunds(chunk.getRefundsIssued(), chunk.getTotalRefunded());
+            report.batchCommitted();
+
+        } catch (SQLException e) {
+            System.err.println("Error cancelling batch after job #" + afterJobId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (jobs.isEmpty()) {
+                // Could not even read the chunk; stop instead of spinning on the same range
+                report.batchFailed();
+                return -1;
+            }
+            report.addScanned(jobs.size());
+            for (PrintJob job : jobs) {
+                report.addFailedJob(job.getJobId());
+            }
+            report.batchFailed();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return jobs.get(jobs.size() - 1).getJobId();
+    }
+
+    /**
+     * Cancel jobs the caller has already locked
+     * Runs on the caller's connection and does not commit
+     *
+     * @param conn Open connection with auto-commit disabled
+     * @param jobs Locked PENDING or PROCESSING jobs
+     * @param operatorId Operator performing the cancellation
+     * @param chunk Receives the cancelled, released and refunded counts
+     * @throws SQLException if any step fails
+     */
+    void cancelLockedJobs(Connection conn, List<PrintJob> jobs, Integer operatorId,
+                          BulkCancellationReport chunk) throws SQLException {
+        List<Integer> jobIds = new ArrayList<>();
+        List<Integer> heldJobIds = new ArrayList<>();
+        List<PrintJob> paidJobs = new ArrayList<>();
+        Set<Integer> refundUserIds = new LinkedHashSet<>();
+
+        for (PrintJob job : jobs) {
+            jobIds.add(job.getJobId());
+            if (job.getPaymentStatus() == PaymentStatus.PAID) {
+                paidJobs.add(job);
+                refundUserIds.add(job.getUserId());
+            } else if (job.getPaymentStatus() == PaymentStatus.UNPAID
+                    && job.getPaymentType() == PaymentType.PREPAID) {
+                heldJobIds.add(job.getJobId());
+            }
+        }
+
+        int released = walletHoldDAO.releaseHolds(conn, heldJobIds);
+
+        List<String> keys = new ArrayList<>();
+        for (PrintJob job : paidJobs) {
+            keys.add(PaymentService.jobLedgerKey(TransactionType.REFUND, job.getJobId()));
+        }
+        Set<String> usedKeys = transactionDAO.findUsedIdempotencyKeys(conn, keys);
+
+        // Jobs charged before holds existed get their money back as a REFUND
+        Map<Integer, Long> balances = userDAO.lockWalletBalances(conn, refundUserIds);
+        Map<Integer, Long> newBalances = new HashMap<>();
+        List<Transaction> refunds = new ArrayList<>();
+        List<Integer> refundedJobIds = new ArrayList<>();
+        long refunded = 0;
+
+        for (PrintJob job : paidJobs) {
+            String key = PaymentService.jobLedgerKey(TransactionType.REFUND, job.getJobId());
+            if (usedKeys.contains(key)) {
+                // Refunded by an earlier attempt; only the status is left to record
+                refundedJobIds.add(job.getJobId());
+                continue;
+            }
+            Long balance = balances.get(job.getUserId());
+            if (balance == null) {
+                continue;
+            }
+            long amount = job.getTotalCost();
+            long newBalance = balance + amount;
+            balances.put(job.getUserId(), newBalance);
+            newBalances.put(job.getUserId(), newBalance);
+
+            Transaction refund = new Transaction(
+                job.getUserId(),
+                TransactionType.REFUND,
+                amount,
+                balance,
+                newBalance,
+                "Refund for cancelled job #" + job.getJobId()
+            );
+            refund.setJobId(job.getJobId());
+            refund.setIdempotencyKey(key);
+            refunds.add(refund);
+            refundedJobIds.add(job.getJobId());
+            refunded += amount;
+        }
+
+        userDAO.setWalletBalances(conn, newBalances);
+        transactionDAO.insertTransactions(conn, refunds);
+        printJobDAO.updatePaymentStatus(conn, refundedJobIds, PaymentStatus.REFUNDED);
+        printJobDAO.updateJobStatus(conn, jobIds, JobStatus.CANCELLED, operatorId);
+
+        chunk.addCancelled(jobIds.size());
+        chunk.addHoldsReleased(released);
+        chunk.addRefunds(refunds.size(), refunded);
+    }
+}
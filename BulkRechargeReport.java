@@ -0,0 +1,140 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-row results of a bulk wallet recharge import
+ */
+public class BulkRechargeReport {
+    private final String batchId;
+    private int applied;
+    private int alreadyApplied;
+    private int rejected;
+    private int failed;
+    private long totalCredited; // in paise
+    private long durationMillis;
+    private List<RowResult> rows = new ArrayList<>();
+
+    public enum RowStatus {
+        APPLIED, ALREADY_APPLIED, UNKNOWN_USER, INVALID, DUPLICATE, FAILED
+    }
+
+    /**
+     * Outcome of a single CSV line
+     */
+    public static class RowResult {
+        private final int lineNumber;
+        private final String username;
+        private final long amount;
+        private final RowStatus status;
+        private final String message;
+
+        public RowResult(int lineNumber, String username, long amount, RowStatus status, String message) {
+            this.lineNumber = lineNumber;
+            this.username = username;
+            this.amount = amount;
+            this.status = status;
+            this.message = message;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public RowStatus getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + " " + username + " " + Money.formatPlain(amount) + " " + status +
+                    (message != null ? " (" + message + ")" : "");
+        }
+    }
+
+    public BulkRechargeReport(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public void addRow(RowResult row) {
+        rows.add(row);
+        switch (row.getStatus()) {
+            case APPLIED:
+                applied++;
+                totalCredited += row.getAmount();
+                break;
+            case ALREADY_APPLIED:
+                alreadyApplied++;
+                break;
+            case FAILED:
+                failed++;
+                break;
+            default:
+                rejected++;
+                break;
+        }
+    }
+
+    // Getters and Setters
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public int getAlreadyApplied() {
+        return alreadyApplied;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getTotalCredited() {
+        return totalCredited;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<RowResult> getRows() {
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkRechargeReport{" +
+                "batchId='" + batchId + '\'' +
+                ", applied=" + applied +
+                ", alreadyApplied=" + alreadyApplied +
+                ", rejected=" + rejected +
+                ", failed=" + failed +
+                ", totalCredited=" + Money.formatPlain(totalCredited) +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
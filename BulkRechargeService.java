@@ -0,0 +1,272 @@
+package services;
+
+import dao.RechargeBatchDAO;
+import dao.TransactionDAO;
+import dao.UserDAO;
+import database.DatabaseConnection;
+import models.BulkRechargeReport;
+import models.BulkRechargeReport.RowResult;
+import models.BulkRechargeReport.RowStatus;
+import models.Money;
+import models.Transaction;
+import models.Transaction.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk wallet recharge from a CSV of (username, amount) rows
+ * The file is streamed and applied in chunks; each chunk is one database
+ * transaction that credits the wallets, writes the WALLET_RECHARGE ledger rows
+ * and records the rows against the batch ID. Re-running a batch skips every
+ * username it has already credited, so an interrupted import can simply be
+ * started again.
+ */
+public class BulkRechargeService {
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private UserDAO userDAO;
+    private TransactionDAO transactionDAO;
+    private RechargeBatchDAO rechargeBatchDAO;
+
+    /**
+     * A parsed CSV row waiting to be applied
+     */
+    private static class PendingRow {
+        final int lineNumber;
+        final String username;
+        final long amount;
+
+        PendingRow(int lineNumber, String username, long amount) {
+            this.lineNumber = lineNumber;
+            this.username = username;
+            this.amount = amount;
+        }
+    }
+
+    public BulkRechargeService() {
+        this.userDAO = new UserDAO();
+        this.transactionDAO = new TransactionDAO();
+        this.rechargeBatchDAO = new RechargeBatchDAO();
+    }
+
+    /**
+     * Import a CSV using the default chunk size
+     *
+     * @param batchId Caller-chosen ID that makes the import idempotent
+     * @param csv CSV source; an optional "username,amount" header is skipped
+     * @return Per-row results
+     * @throws IOException if the CSV cannot be read
+     */
+    public BulkRechargeReport importCsv(String batchId, Reader csv) throws IOException {
+        return importCsv(batchId, csv, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Import a CSV of wallet credits
+     *
+     * @param batchId Caller-chosen ID that makes the import idempotent
+     * @param csv CSV source; an optional "username,amount" header is skipped
+     * @param batchSize Number of rows applied per database transaction
+     * @return Per-row results
+     * @throws IOException if the CSV cannot be read
+     */
+    public BulkRechargeReport importCsv(String batchId, Reader csv, int batchSize) throws IOException {
+        BulkRechargeReport report = new BulkRechargeReport(batchId);
+        long start = System.currentTimeMillis();
+        Set<String> seen = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader reader = csv instanceof BufferedReader ? (BufferedReader) csv : new BufferedReader(csv);
+        String line;
+        int lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                report.addRow(new RowResult(lineNumber, line.trim(), 0, RowStatus.INVALID, "Expected username,amount"));
+                continue;
+            }
+            String username = unquote(line.substring(0, comma));
+            String amountText = unquote(line.substring(comma + 1));
+
+            long amount;
+            try {
+                amount = Money.parse(amountText);
+            } catch (NumberFormatException e) {
+                if (lineNumber == 1 && username.equalsIgnoreCase("username")) {
+                    continue; // Header row
+                }
+                report.addRow(new RowResult(lineNumber, username, 0, RowStatus.INVALID, "Bad amount: " + amountText));
+                continue;
+            }
+
+            if (username.isEmpty() || amount <= 0) {
+                report.addRow(new RowResult(lineNumber, username, amount, RowStatus.INVALID, "Amount must be positive"));
+                continue;
+            }
+            if (!seen.add(username)) {
+                report.addRow(new RowResult(lineNumber, username, amount, RowStatus.DUPLICATE, "Username repeated in file"));
+                continue;
+            }
+
+            chunk.add(new PendingRow(lineNumber, username, amount));
+            if (chunk.size() >= batchSize) {
+                applyChunk(batchId, chunk, report);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            applyChunk(batchId, chunk, report);
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    /**
+     * Apply one chunk of rows in a single transaction
+     */
+    private void applyChunk(String batchId, List<PendingRow> chunk, BulkRechargeReport report) {
+        Connection conn = null;
+        List<RowResult> results = new ArrayList<>(chunk.size());
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            List<String> usernames = new ArrayList<>(chunk.size());
+            for (PendingRow row : chunk) {
+                usernames.add(row.username);
+            }
+
+            Set<String> alreadyApplied = rechargeBatchDAO.lockAppliedUsernames(conn, batchId, usernames);
+            Map<String, Integer> userIds = userDAO.getUserIdsByUsername(conn, usernames);
+            Map<Integer, Long> balances = userDAO.lockWalletBalances(conn, userIds.values());
+
+            Map<Integer, Long> newBalances = new HashMap<>();
+            List<Transaction> credits = new ArrayList<>();
+            List<String> creditedUsernames = new ArrayList<>();
+            List<Long> creditedAmounts = new ArrayList<>();
+
+            for (PendingRow row : chunk) {
+                if (alreadyApplied.contains(row.username)) {
+                    results.add(new RowResult(row.lineNumber, row.username, row.amount, RowStatus.ALREADY_APPLIED, null));
+                    continue;
+                }
+                Integer userId = userIds.get(row.username);
+                Long balance = userId != null ? balances.get(userId) : null;
+                if (balance == null) {
+                    results.add(new RowResult(row.lineNumber, row.username, row.amount, RowStatus.UNKNOWN_USER, null));
+                    continue;
+                }
+
+                long newBalance = balance + row.amount;
+                balances.put(userId, newBalance);
+                newBalances.put(userId, newBalance);
+
+                credits.add(new Transaction(
+                    userId,
+                    TransactionType.WALLET_RECHARGE,
+                    row.amount,
+                    balance,
+                    newBalance,
+                    "Bulk recharge " + batchId
+                ));
+                creditedUsernames.add(row.username);
+                creditedAmounts.add(row.amount);
+                results.add(new RowResult(row.lineNumber, row.username, row.amount, RowStatus.APPLIED, null));
+            }
+
+            userDAO.setWalletBalances(conn, newBalances);
+            int[] transactionIds = transactionDAO.insertTransactions(conn, credits);
+            rechargeBatchDAO.insertItems(conn, batchId, creditedUsernames, creditedAmounts, transactionIds);
+            conn.commit();
+
+            for (RowResult result : results) {
+                report.addRow(result);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error applying recharge chunk for batch " + batchId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            for (PendingRow row : chunk) {
+                report.addRow(new RowResult(row.lineNumber, row.username, row.amount, RowStatus.FAILED, e.getMessage()));
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    /**
+     * Entry point for finance imports: BulkRechargeService <batch-id> <file.csv>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkRechargeService <batch-id> <file.csv>");
+            System.exit(1);
+        }
+
+        if (!DatabaseConnection.getInstance().testConnection()) {
+            System.err.println("Database connection failed. Import not run.");
+            System.exit(1);
+        }
+
+        BulkRechargeReport report;
+        try (Reader csv = new FileReader(args[1], StandardCharsets.UTF_8)) {
+            report = new BulkRechargeService().importCsv(args[0], csv);
+        }
+
+        for (RowResult row : report.getRows()) {
+            if (row.getStatus() != RowStatus.APPLIED) {
+                System.out.println("  " + row);
+            }
+        }
+        System.out.println("Bulk recharge " + report.getBatchId() + " finished");
+        System.out.println("  Applied:         " + report.getApplied());
+        System.out.println("  Already applied: " + report.getAlreadyApplied());
+        System.out.println("  Rejected:        " + report.getRejected());
+        System.out.println("  Failed:          " + report.getFailed());
+        System.out.println("  Total credited:  " + Money.format(report.getTotalCredited()));
+        System.out.println("  Duration:        " + report.getDurationMillis() + " ms");
+    }
+}
@@ -18,6 +18,7 @@ public class DatabaseConnection {
     private String username;
     private String password;
     private String driver;
+    private Properties properties;
     
     /**
      * Private constructor to prevent instantiation
@@ -45,6 +46,7 @@ public class DatabaseConnection {
                 }
             }
             
+            this.properties = props;
             this.url = props.getProperty("db.url");
             this.username = props.getProperty("db.username");
             this.password = props.getProperty("db.password");
@@ -83,6 +85,17 @@ public class DatabaseConnection {
         return DriverManager.getConnection(url, username, password);
     }
     
+    /**
+     * Get an application setting from database.properties
+     * 
+     * @param key Property name
+     * @param defaultValue Value used when the property is not set
+     * @return Property value or the default
+     */
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+    
     /**
      * Test database connection
      * 
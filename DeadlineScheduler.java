@@ -0,0 +1,51 @@
+package services;
+
+import models.PrintJob;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Earliest-deadline-first scheduling on the optional needed_by time
+ * Jobs without a deadline get an implicit one of submission time plus a default
+ * slack, so they still make progress while jobs with tight deadlines go first.
+ */
+public class DeadlineScheduler implements QueueScheduler {
+    public static final long DEFAULT_SLACK_MILLIS = 4 * 60 * 60 * 1000L;
+
+    private final long defaultSlackMillis;
+
+    public DeadlineScheduler() {
+        this(DEFAULT_SLACK_MILLIS);
+    }
+
+    /**
+     * @param defaultSlackMillis Implicit deadline for jobs without needed_by, relative to submission
+     */
+    public DeadlineScheduler(long defaultSlackMillis) {
+        this.defaultSlackMillis = defaultSlackMillis;
+    }
+
+    @Override
+    public List<PrintJob> order(List<PrintJob> jobs) {
+        List<PrintJob> ordered = new ArrayList<>(jobs);
+        ordered.sort(Comparator.comparingLong(this::effectiveDeadline)
+                               .thenComparing(FcfsScheduler.ARRIVAL_ORDER));
+        return ordered;
+    }
+
+    /**
+     * Deadline used for ordering
+     *
+     * @param job Queued job
+     * @return needed_by, or submission time plus the default slack, in epoch millis
+     */
+    public long effectiveDeadline(PrintJob job) {
+        if (job.getNeededBy() != null) {
+            return job.getNeededBy().getTime();
+        }
+        long submitted = job.getSubmittedAt() != null ? job.getSubmittedAt().getTime() : System.currentTimeMillis();
+        return submitted + defaultSlackMillis;
+    }
+}
@@ -0,0 +1,410 @@
+package services;
+
+import dao.PrintJobChunkDAO;
+import dao.PrintJobDAO;
+import dao.PrinterDAO;
+import dao.SpoolBatchDAO;
+import database.DatabaseConnection;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+import models.PrintJobChunk;
+import models.Printer.PrinterStatus;
+import models.PrinterLoad;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns PENDING print jobs to online printers
+ * Each dispatch pass is one transaction that locks the first unassigned jobs in
+ * QueueService order, reads the current load of every online printer and lets the
+ * assignment policy place the jobs one by one in that order, updating the loads as it
+ * goes. Jobs on a printer that fails are returned to the unassigned pool and dispatched again.
+ * Jobs of at least dispatch.split.minJobSheets sheets are split into chunks of at least
+ * dispatch.split.minChunkSheets sheets, one per online printer, that print in parallel;
+ * the parent job completes when its last chunk does.
+ */
+public class DispatchService {
+    private static final int DEFAULT_BATCH_SIZE = 200;
+    public static final int DEFAULT_SPLIT_MIN_JOB_SHEETS = 500;
+    public static final int DEFAULT_SPLIT_MIN_CHUNK_SHEETS = 200;
+
+    private final PrintJobDAO printJobDAO;
+    private final PrinterDAO printerDAO;
+    private final PrintJobChunkDAO chunkDAO;
+    private final SpoolBatchDAO spoolBatchDAO;
+    private final PaymentService paymentService;
+    private final AssignmentPolicy policy;
+    private final QueueService queueService;
+    private final int splitMinJobSheets;
+    private final int splitMinChunkSheets;
+    private ScheduledExecutorService scheduler;
+
+    public DispatchService() {
+        this(new ShortestExpectedFinishPolicy());
+    }
+
+    public DispatchService(AssignmentPolicy policy) {
+        this.printJobDAO = new PrintJobDAO();
+        this.printerDAO = new PrinterDAO();
+        this.chunkDAO = new PrintJobChunkDAO();
+        this.spoolBatchDAO = new SpoolBatchDAO();
+        this.paymentService = new PaymentService();
+        this.policy = policy;
+        this.queueService = QueueService.getInstance();
+        DatabaseConnection config = DatabaseConnection.getInstance();
+        this.splitMinJobSheets = Integer.parseInt(config.getProperty("dispatch.split.minJobSheets",
+            String.valueOf(DEFAULT_SPLIT_MIN_JOB_SHEETS)));
+        this.splitMinChunkSheets = Integer.parseInt(config.getProperty("dispatch.split.minChunkSheets",
+            String.valueOf(DEFAULT_SPLIT_MIN_CHUNK_SHEETS)));
+    }
+
+    /**
+     * Assign unassigned PENDING jobs using the default batch size
+     *
+     * @return Number of jobs assigned, or -1 on error
+     */
+    public int dispatchPendingJobs() {
+        return dispatchPendingJobs(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Assign up to batchSize unassigned PENDING jobs in one transaction
+     *
+     * @param batchSize Maximum number of jobs to assign
+     * @return Number of jobs assigned, or -1 on error
+     */
+    public synchronized int dispatchPendingJobs(int batchSize) {
+        // Candidates are taken in scheduler order, so under a backlog the jobs the
+        // scheduler promotes are the ones assigned, not simply the oldest
+        Map<Integer, Integer> rank = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (PrintJob job : queueService.getQueueJobs()) {
+            rank.put(job.getJobId(), job.getQueuePosition());
+            if (candidates.size() < batchSize && job.getJobStatus() == JobStatus.PENDING
+                    && job.getPrinterId() == null) {
+                candidates.add(job.getJobId());
+            }
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            List<PrinterLoad> loads = printerDAO.getOnlinePrinterLoads(conn);
+            if (loads.isEmpty()) {
+                conn.rollback();
+                return 0;
+            }
+
+            // Chunks orphaned by a printer going out of service belong to jobs already under way
+            List<PrintJobChunk> orphans = chunkDAO.lockUnassignedChunks(conn);
+            for (PrintJobChunk chunk : orphans) {
+                PrinterLoad target = earliestFinish(loads, chunk.getSheetCount(), Collections.emptySet());
+                target.addJob(chunk.getSheetCount());
+                chunk.setPrinterId(target.getPrinter().getPrinterId());
+            }
+
+            List<PrintJob> jobs = printJobDAO.lockUnassignedJobs(conn, candidates);
+            // Place jobs in scheduling order so the jobs served first get the earliest slots
+            jobs.sort(Comparator.comparingInt(job -> rank.getOrDefault(job.getJobId(), Integer.MAX_VALUE)));
+            Map<Integer, Integer> assignments = new LinkedHashMap<>();
+            List<PrintJobChunk> newChunks = new ArrayList<>();
+            int splitJobs = 0;
+            for (PrintJob job : jobs) {
+                int parts = chunkCount(job, loads.size());
+                if (parts < 2) {
+                    PrinterLoad target = policy.choosePrinter(job, loads);
+                    target.addJob((long) job.getPageCount() * job.getNumCopies());
+                    assignments.put(job.getJobId(), target.getPrinter().getPrinterId());
+                    continue;
+                }
+
+                // Each chunk goes to a different printer so they print in parallel
+                Set<Integer> used = new HashSet<>();
+                for (PrintJobChunk chunk : splitJob(job, parts)) {
+                    PrinterLoad target = earliestFinish(loads, chunk.getSheetCount(), used);
+                    target.addJob(chunk.getSheetCount());
+                    used.add(target.getPrinter().getPrinterId());
+                    chunk.setPrinterId(target.getPrinter().getPrinterId());
+                    newChunks.add(chunk);
+                }
+                splitJobs++;
+            }
+
+            chunkDAO.assignPrinters(conn, orphans);
+            printJobDAO.assignPrinters(conn, assignments);
+            chunkDAO.createChunks(conn, newChunks);
+            conn.commit();
+            return assignments.size() + splitJobs;
+
+        } catch (SQLException e) {
+            System.err.println("Error dispatching jobs: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return -1;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark one chunk of a split job as printed
+     * Completing the first chunk moves the parent job to PROCESSING; completing the
+     * last one completes the parent and captures its held payment, in the same transaction.
+     *
+     * @param chunkId Chunk ID
+     * @param operatorId Operator who printed the chunk
+     * @return true if the chunk was completed, false if it was not pending or on error
+     */
+    public boolean completeChunk(int chunkId, int operatorId) {
+        PrintJobChunk chunk = chunkDAO.getChunkById(chunkId);
+        if (chunk == null) {
+            return false;
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            // Chunk completions of one job serialize on the parent row
+            PrintJob parent = printJobDAO.lockJob(conn, chunk.getJobId());
+            if (parent == null || (parent.getJobStatus() != JobStatus.PENDING
+                    && parent.getJobStatus() != JobStatus.PROCESSING)) {
+                conn.rollback();
+                return false;
+            }
+            if (!chunkDAO.markCompleted(conn, chunkId, operatorId)) {
+                conn.rollback();
+                return false;
+            }
+
+            List<Integer> jobIds = Collections.singletonList(parent.getJobId());
+            if (chunkDAO.countPendingChunks(conn, parent.getJobId()) == 0) {
+                printJobDAO.updateJobStatus(conn, jobIds, JobStatus.COMPLETED, operatorId);
+                paymentService.capturePayments(conn, jobIds);
+            } else if (parent.getJobStatus() == JobStatus.PENDING) {
+                printJobDAO.updateJobStatus(conn, jobIds, JobStatus.PROCESSING, operatorId);
+            }
+
+            conn.commit();
+            EtaEngine.getInstance().recordWork(chunk.getPrinterId(), operatorId, chunk.getSheetCount(),
+                                               parent.getSubmittedAt(), new Timestamp(System.currentTimeMillis()));
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error completing chunk #" + chunkId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of chunks a job should be split into
+     *
+     * @param job Job being dispatched
+     * @param onlinePrinters Number of online printers
+     * @return Chunk count; below 2 means the job is not split
+     */
+    public int chunkCount(PrintJob job, int onlinePrinters) {
+        long sheets = (long) job.getPageCount() * job.getNumCopies();
+        if (sheets < splitMinJobSheets || onlinePrinters < 2) {
+            return 1;
+        }
+        long parts = Math.min(onlinePrinters, sheets / Math.max(1, splitMinChunkSheets));
+        return (int) Math.min(parts, Math.max(job.getPageCount(), job.getNumCopies()));
+    }
+
+    /**
+     * Split a job into contiguous chunks
+     * Copy ranges are used whenever there are at least as many copies as chunks, so each
+     * chunk is a set of complete collated copies. The pages are split instead, with every
+     * chunk printing all copies of its page range, when there are too few copies or when
+     * the copies do not divide evenly and a page split is better balanced. The chunk count
+     * is capped at the number of copies or pages being split, so no chunk is empty.
+     *
+     * @param job Job to split
+     * @param parts Number of chunks wanted
+     * @return Chunks without printers
+     */
+    public static List<PrintJobChunk> splitJob(PrintJob job, int parts) {
+        int pages = job.getPageCount();
+        int copies = job.getNumCopies();
+        boolean byCopies = copies >= parts;
+        if (byCopies && copies % parts != 0 && pages >= parts) {
+            // Compare the largest chunk each way; the job finishes when its largest chunk does
+            long largestByCopies = (long) ((copies + parts - 1) / parts) * pages;
+            long largestByPages = (long) ((pages + parts - 1) / parts) * copies;
+            byCopies = largestByCopies <= largestByPages;
+        }
+        int units = byCopies ? copies : pages;
+        parts = Math.max(1, Math.min(parts, units));
+
+        List<PrintJobChunk> chunks = new ArrayList<>();
+        int from = 1;
+
+        for (int i = 0; i < parts; i++) {
+            int size = units / parts + (i < units % parts ? 1 : 0);
+            int to = from + size - 1;
+            if (byCopies) {
+                chunks.add(new PrintJobChunk(job.getJobId(), i + 1, parts, 1, pages, from, to));
+            } else {
+                chunks.add(new PrintJobChunk(job.getJobId(), i + 1, parts, from, to, 1, copies));
+            }
+            from = to + 1;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Printer that would finish a piece of work first, preferring printers not in exclude
+     */
+    private PrinterLoad earliestFinish(List<PrinterLoad> loads, long sheets, Set<Integer> exclude) {
+        PrinterLoad best = null;
+        for (PrinterLoad load : loads) {
+            if (exclude.contains(load.getPrinter().getPrinterId()) && exclude.size() < loads.size()) {
+                continue;
+            }
+            if (best == null || load.expectedFinishMinutes(sheets) < best.expectedFinishMinutes(sheets)) {
+                best = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Change a printer's state
+     * Taking a printer out of service (OFFLINE or FAILED) requeues its unfinished
+     * jobs in the same transaction; they are then dispatched to the remaining printers.
+     * Spooled jobs among them leave their batch and are printed individually.
+     *
+     * @param printerId Printer ID
+     * @param status New status
+     * @return Number of jobs and chunks requeued, or -1 on error
+     */
+    public int setPrinterStatus(int printerId, PrinterStatus status) {
+        Connection conn = null;
+        int requeued = 0;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            if (!printerDAO.updatePrinterStatus(conn, printerId, status)) {
+                conn.rollback();
+                return -1;
+            }
+            if (status != PrinterStatus.ONLINE) {
+                spoolBatchDAO.releasePrinterJobs(conn, printerId);
+                requeued = printJobDAO.requeuePrinterJobs(conn, printerId);
+                requeued += chunkDAO.requeuePrinterChunks(conn, printerId);
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            System.err.println("Error updating printer #" + printerId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return -1;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        dispatchPendingJobs();
+        return requeued;
+    }
+
+    /**
+     * Start dispatching in the background at a fixed interval
+     *
+     * @param intervalSeconds Seconds between dispatch passes
+     */
+    public synchronized void start(int intervalSeconds) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "print-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                dispatchPendingJobs();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next pass retries
+                e.printStackTrace();
+            }
+        }, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop background dispatching
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
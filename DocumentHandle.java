@@ -0,0 +1,135 @@
+package models;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Reference to the document of a print job
+ * Carries the document's metadata (size, SHA-256 hash and storage codec) and opens the
+ * content only when asked, so jobs can be loaded, listed and updated without holding
+ * the file in memory. Each call to openStream reads the content afresh from its source.
+ */
+public class DocumentHandle {
+    public static final String CODEC_RAW = "RAW";
+    public static final long UNKNOWN_SIZE = -1;
+
+    /**
+     * Where the content is read from
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * @return Stream over the stored bytes, or null if there is no content
+         */
+        InputStream open() throws IOException;
+    }
+
+    private final int jobId;
+    private final long size;
+    private final String hash;
+    private final String codec;
+    private final Source source;
+
+    public DocumentHandle(int jobId, long size, String hash, String codec, Source source) {
+        this.jobId = jobId;
+        this.size = size;
+        this.hash = hash;
+        this.codec = codec != null ? codec : CODEC_RAW;
+        this.source = source;
+    }
+
+    /**
+     * Handle for a file on disk, hashed once up front by streaming it
+     *
+     * @param file Document file
+     * @return Handle that reopens the file whenever the content is needed
+     * @throws IOException if the file cannot be read
+     */
+    public static DocumentHandle ofFile(Path file) throws IOException {
+        String hash;
+        try (InputStream in = Files.newInputStream(file)) {
+            hash = sha256(in);
+        }
+        return new DocumentHandle(0, Files.size(file), hash, CODEC_RAW, () -> Files.newInputStream(file));
+    }
+
+    public int getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @return Size in bytes, or UNKNOWN_SIZE for documents stored before sizes were recorded
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Hex SHA-256 of the content, or null if unknown
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * Open the document content; the caller must close the stream
+     *
+     * @return Stream over the document bytes
+     * @throws IOException if there is no content or it cannot be read
+     */
+    public InputStream openStream() throws IOException {
+        if (!CODEC_RAW.equals(codec)) {
+            throw new IOException("Unsupported document codec " + codec);
+        }
+        InputStream in = source.open();
+        if (in == null) {
+            throw new IOException("No document stored" + (jobId > 0 ? " for job #" + jobId : ""));
+        }
+        return in;
+    }
+
+    /**
+     * Copy the document content to a stream without buffering it whole
+     *
+     * @param out Destination, left open
+     * @return Number of bytes copied
+     * @throws IOException if reading or writing fails
+     */
+    public long copyTo(OutputStream out) throws IOException {
+        try (InputStream in = openStream()) {
+            return in.transferTo(out);
+        }
+    }
+
+    /**
+     * Hex SHA-256 of a stream, read to its end
+     *
+     * @param in Content
+     * @return Lower-case hex digest
+     * @throws IOException if the stream cannot be read
+     */
+    public static String sha256(InputStream in) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
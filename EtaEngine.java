@@ -0,0 +1,272 @@
+package services;
+
+import dao.PrinterDAO;
+import dao.ThroughputStatDAO;
+import database.DatabaseConnection;
+import models.PrintJob;
+import models.Printer;
+import models.Printer.PrinterStatus;
+import models.ThroughputStat;
+import models.ThroughputStat.SubjectType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Predicted start and finish times for queued jobs
+ * Every completed piece of work updates an exponentially weighted moving average of
+ * pages per minute for its printer and its operator (throughput_stats), so history is
+ * never rescanned. The time a piece of work took is measured from the later of its
+ * start (or submission) and the previous completion on the same printer or operator;
+ * gaps longer than eta.idleGapMinutes are treated as idle time and not sampled.
+ * Predictions walk the queue once in scheduling order: jobs on a printer queue behind
+ * that printer's earlier jobs at its learned rate, unassigned jobs behind every sheet
+ * ahead at the pooled rate, which is capped by the combined rate of recently active
+ * operators. Printers without samples use their nominal pages_per_minute.
+ */
+public class EtaEngine {
+    public static final double DEFAULT_ALPHA = 0.3;
+    public static final long DEFAULT_IDLE_GAP_MILLIS = 30 * 60 * 1000L;
+    private static final long MIN_SAMPLE_MILLIS = 30 * 1000L;
+    private static final long RATE_CACHE_MILLIS = 60 * 1000L;
+    private static final long ACTIVE_OPERATOR_MILLIS = 60 * 60 * 1000L;
+
+    private static EtaEngine instance;
+
+    private final ThroughputStatDAO statDAO;
+    private final PrinterDAO printerDAO;
+    private final double alpha;
+    private final long idleGapMillis;
+    private Map<Integer, Double> printerRates;
+    private double pooledRate;
+    private long ratesLoadedAt;
+
+    /**
+     * @param alpha Weight of the newest sample, between 0 and 1
+     * @param idleGapMillis Longest gap that still counts as working time
+     */
+    public EtaEngine(double alpha, long idleGapMillis) {
+        this.statDAO = new ThroughputStatDAO();
+        this.printerDAO = new PrinterDAO();
+        this.alpha = alpha;
+        this.idleGapMillis = idleGapMillis;
+    }
+
+    /**
+     * Get the shared EtaEngine configured from database.properties (eta.alpha, eta.idleGapMinutes)
+     *
+     * @return EtaEngine instance
+     */
+    public static synchronized EtaEngine getInstance() {
+        if (instance == null) {
+            DatabaseConnection config = DatabaseConnection.getInstance();
+            double alpha = Double.parseDouble(config.getProperty("eta.alpha", String.valueOf(DEFAULT_ALPHA)));
+            long idleGapMinutes = Long.parseLong(config.getProperty("eta.idleGapMinutes",
+                String.valueOf(DEFAULT_IDLE_GAP_MILLIS / 60000)));
+            instance = new EtaEngine(alpha, idleGapMinutes * 60000);
+        }
+        return instance;
+    }
+
+    /**
+     * Record a job that has just been completed as a single piece of work
+     *
+     * @param job Completed job
+     * @param operatorId Operator who completed it
+     */
+    public void recordCompletion(PrintJob job, Integer operatorId) {
+        recordWork(job.getPrinterId(), operatorId, (long) job.getPageCount() * job.getNumCopies(),
+                   job.getStartedAt() != null ? job.getStartedAt() : job.getSubmittedAt(),
+                   new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Fold one completed piece of work into the printer and operator averages
+     *
+     * @param printerId Printer that printed it, or null if unknown
+     * @param operatorId Operator who completed it, or null if unknown
+     * @param sheets Sheets printed
+     * @param earliestStart When the work could first have started (started_at or submitted_at)
+     * @param completedAt When it completed
+     * @return true if the statistics were saved
+     */
+    public boolean recordWork(Integer printerId, Integer operatorId, long sheets,
+                              Timestamp earliestStart, Timestamp completedAt) {
+        if (printerId == null && operatorId == null) {
+            return false;
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            // Printer row before operator row, always, so concurrent recorders cannot deadlock
+            if (printerId != null) {
+                updateStat(conn, SubjectType.PRINTER, printerId, sheets, earliestStart, completedAt);
+            }
+            if (operatorId != null) {
+                updateStat(conn, SubjectType.OPERATOR, operatorId, sheets, earliestStart, completedAt);
+            }
+
+            conn.commit();
+            synchronized (this) {
+                ratesLoadedAt = 0;
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error recording throughput: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void updateStat(Connection conn, SubjectType type, int subjectId, long sheets,
+                            Timestamp earliestStart, Timestamp completedAt) throws SQLException {
+        ThroughputStat stat = statDAO.lockStat(conn, type, subjectId);
+        if (stat == null) {
+            stat = new ThroughputStat(type, subjectId);
+        }
+        observe(stat, sheets, earliestStart, completedAt);
+        statDAO.saveStat(conn, stat);
+    }
+
+    /**
+     * Apply one observation to a statistics row
+     *
+     * @param stat Statistics to update in place
+     * @param sheets Sheets printed
+     * @param earliestStart When the work could first have started, or null if unknown
+     * @param completedAt When it completed
+     */
+    public void observe(ThroughputStat stat, long sheets, Timestamp earliestStart, Timestamp completedAt) {
+        long start = earliestStart != null ? earliestStart.getTime() : Long.MIN_VALUE;
+        if (stat.getLastCompletedAt() != null) {
+            start = Math.max(start, stat.getLastCompletedAt().getTime());
+        }
+
+        long elapsed = completedAt.getTime() - start;
+        if (start != Long.MIN_VALUE && elapsed >= MIN_SAMPLE_MILLIS && elapsed <= idleGapMillis) {
+            double sample = sheets / (elapsed / 60000.0);
+            stat.setEwmaPagesPerMinute(stat.getSamples() == 0
+                ? sample
+                : alpha * sample + (1 - alpha) * stat.getEwmaPagesPerMinute());
+            stat.setSamples(stat.getSamples() + 1);
+        }
+
+        if (stat.getLastCompletedAt() == null || completedAt.after(stat.getLastCompletedAt())) {
+            stat.setLastCompletedAt(completedAt);
+        }
+    }
+
+    /**
+     * Set predicted start and finish times on every job of a queue
+     *
+     * @param queue Queue in scheduling order
+     */
+    public void annotate(List<PrintJob> queue) {
+        Map<Integer, Double> rates;
+        double pooled;
+        synchronized (this) {
+            if (printerRates == null || System.currentTimeMillis() - ratesLoadedAt > RATE_CACHE_MILLIS) {
+                loadRates();
+            }
+            rates = printerRates;
+            pooled = pooledRate;
+        }
+        predict(queue, rates, pooled, System.currentTimeMillis());
+    }
+
+    /**
+     * Set predicted start and finish times from known rates
+     *
+     * @param queue Queue in scheduling order
+     * @param printerRates Pages per minute of each online printer
+     * @param pooledRate Pages per minute of the whole print centre; 0 leaves predictions empty
+     * @param now Current time in epoch millis
+     */
+    public void predict(List<PrintJob> queue, Map<Integer, Double> printerRates, double pooledRate, long now) {
+        Map<Integer, Double> printerBacklog = new HashMap<>();
+        double sheetsAhead = 0;
+
+        for (PrintJob job : queue) {
+            long sheets = (long) job.getPageCount() * job.getNumCopies();
+            Double rate = job.getPrinterId() != null ? printerRates.get(job.getPrinterId()) : null;
+            double startMinutes;
+            double finishMinutes;
+
+            if (rate != null && rate > 0) {
+                startMinutes = printerBacklog.getOrDefault(job.getPrinterId(), 0.0);
+                finishMinutes = startMinutes + sheets / rate;
+                printerBacklog.put(job.getPrinterId(), finishMinutes);
+            } else if (pooledRate > 0) {
+                startMinutes = sheetsAhead / pooledRate;
+                finishMinutes = (sheetsAhead + sheets) / pooledRate;
+            } else {
+                job.setPredictedStart(null);
+                job.setPredictedFinish(null);
+                sheetsAhead += sheets;
+                continue;
+            }
+
+            sheetsAhead += sheets;
+            job.setPredictedStart(new Timestamp(now + Math.round(startMinutes * 60000)));
+            job.setPredictedFinish(new Timestamp(now + Math.round(finishMinutes * 60000)));
+        }
+    }
+
+    private void loadRates() {
+        Map<Integer, ThroughputStat> printerStats = new HashMap<>();
+        double operatorCapacity = 0;
+        long activeSince = System.currentTimeMillis() - ACTIVE_OPERATOR_MILLIS;
+
+        for (ThroughputStat stat : statDAO.getAllStats()) {
+            if (stat.getSamples() == 0) {
+                continue;
+            }
+            if (stat.getSubjectType() == SubjectType.PRINTER) {
+                printerStats.put(stat.getSubjectId(), stat);
+            } else if (stat.getLastCompletedAt() != null && stat.getLastCompletedAt().getTime() >= activeSince) {
+                operatorCapacity += stat.getEwmaPagesPerMinute();
+            }
+        }
+
+        Map<Integer, Double> rates = new HashMap<>();
+        double printerCapacity = 0;
+        for (Printer printer : printerDAO.getAllPrinters()) {
+            if (printer.getPrinterStatus() != PrinterStatus.ONLINE) {
+                continue;
+            }
+            ThroughputStat stat = printerStats.get(printer.getPrinterId());
+            double rate = stat != null ? stat.getEwmaPagesPerMinute() : printer.getPagesPerMinute();
+            rates.put(printer.getPrinterId(), rate);
+            printerCapacity += rate;
+        }
+
+        printerRates = rates;
+        pooledRate = operatorCapacity > 0 ? Math.min(printerCapacity, operatorCapacity) : printerCapacity;
+        ratesLoadedAt = System.currentTimeMillis();
+    }
+}
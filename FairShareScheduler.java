@@ -0,0 +1,79 @@
+package services;
+
+import models.PrintJob;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Weighted fair queuing across students, with sheets (pages × copies) as the cost
+ * Each job gets a virtual finish tag when it is first seen: it starts at the later of
+ * the system virtual time and its owner's previous finish tag, and lasts sheets / weight.
+ * Jobs are served in finish-tag order, so a student with twenty large jobs gets the same
+ * share of the printers as a student with one small job instead of blocking them.
+ * State lives in memory only; after a restart tags are rebuilt from the current queue.
+ */
+public class FairShareScheduler implements QueueScheduler {
+    private final Map<Integer, Double> userFinishTags = new HashMap<>();
+    private final Map<Integer, double[]> jobTags = new HashMap<>(); // {start, finish}
+    private final Map<Integer, Double> userWeights = new HashMap<>();
+    private double virtualTime;
+
+    /**
+     * Give a user a larger or smaller share of the printers
+     *
+     * @param userId User ID
+     * @param weight Relative share (default 1.0)
+     */
+    public synchronized void setWeight(int userId, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be positive: " + weight);
+        }
+        userWeights.put(userId, weight);
+    }
+
+    @Override
+    public synchronized List<PrintJob> order(List<PrintJob> jobs) {
+        // Tag new jobs in arrival order so each user's own jobs stay FCFS
+        List<PrintJob> arrivals = new ArrayList<>(jobs);
+        arrivals.sort(FcfsScheduler.ARRIVAL_ORDER);
+
+        Set<Integer> live = new HashSet<>();
+        for (PrintJob job : arrivals) {
+            live.add(job.getJobId());
+            if (!jobTags.containsKey(job.getJobId())) {
+                double start = Math.max(virtualTime, userFinishTags.getOrDefault(job.getUserId(), 0.0));
+                double sheets = (double) job.getPageCount() * job.getNumCopies();
+                double finish = start + sheets / userWeights.getOrDefault(job.getUserId(), 1.0);
+                jobTags.put(job.getJobId(), new double[] { start, finish });
+                userFinishTags.put(job.getUserId(), finish);
+            }
+        }
+        jobTags.keySet().retainAll(live);
+
+        // Virtual time follows the earliest start tag still queued, and never goes back
+        double minStart = Double.MAX_VALUE;
+        for (double[] tags : jobTags.values()) {
+            minStart = Math.min(minStart, tags[0]);
+        }
+        if (jobTags.isEmpty()) {
+            for (double finish : userFinishTags.values()) {
+                virtualTime = Math.max(virtualTime, finish);
+            }
+        } else {
+            virtualTime = Math.max(virtualTime, minStart);
+        }
+        // Users whose last finish tag is behind virtual time have no credit left to track
+        userFinishTags.values().removeIf(finish -> finish <= virtualTime);
+
+        List<PrintJob> ordered = new ArrayList<>(arrivals);
+        ordered.sort(Comparator.comparingDouble((PrintJob job) -> jobTags.get(job.getJobId())[1])
+                               .thenComparing(FcfsScheduler.ARRIVAL_ORDER));
+        return ordered;
+    }
+}
@@ -0,0 +1,23 @@
+package services;
+
+import models.PrintJob;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * First-come, first-served: jobs are served strictly by submission time
+ */
+public class FcfsScheduler implements QueueScheduler {
+    static final Comparator<PrintJob> ARRIVAL_ORDER =
+        Comparator.comparing(PrintJob::getSubmittedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                  .thenComparingInt(PrintJob::getJobId);
+
+    @Override
+    public List<PrintJob> order(List<PrintJob> jobs) {
+        List<PrintJob> ordered = new ArrayList<>(jobs);
+        ordered.sort(ARRIVAL_ORDER);
+        return ordered;
+    }
+}
@@ -0,0 +1,70 @@
+package models;
+
+import models.PrintJob.JobStatus;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Criteria for selecting print jobs in bulk operations
+ * Unset bounds match everything; by default only jobs still in the queue match
+ */
+public class JobFilter {
+    private Set<JobStatus> statuses = EnumSet.of(JobStatus.PENDING, JobStatus.PROCESSING);
+    private Timestamp submittedFrom;
+    private Timestamp submittedTo;
+    private Integer printerId;
+    
+    // Constructors
+    public JobFilter() {}
+    
+    public JobFilter(Timestamp submittedFrom, Timestamp submittedTo) {
+        this.submittedFrom = submittedFrom;
+        this.submittedTo = submittedTo;
+    }
+    
+    // Getters and Setters
+    public Set<JobStatus> getStatuses() {
+        return Collections.unmodifiableSet(statuses);
+    }
+    
+    public void setStatuses(Set<JobStatus> statuses) {
+        this.statuses = statuses.isEmpty() ? EnumSet.noneOf(JobStatus.class) : EnumSet.copyOf(statuses);
+    }
+    
+    public Timestamp getSubmittedFrom() {
+        return submittedFrom;
+    }
+    
+    public void setSubmittedFrom(Timestamp submittedFrom) {
+        this.submittedFrom = submittedFrom;
+    }
+    
+    public Timestamp getSubmittedTo() {
+        return submittedTo;
+    }
+    
+    public void setSubmittedTo(Timestamp submittedTo) {
+        this.submittedTo = submittedTo;
+    }
+    
+    public Integer getPrinterId() {
+        return printerId;
+    }
+    
+    public void setPrinterId(Integer printerId) {
+        this.printerId = printerId;
+    }
+    
+    @Override
+    public String toString() {
+        return "JobFilter{" +
+                "statuses=" + statuses +
+                ", submittedFrom=" + submittedFrom +
+                ", submittedTo=" + submittedTo +
+                ", printerId=" + printerId +
+                '}';
+    }
+}
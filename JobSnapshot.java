@@ -0,0 +1,219 @@
+package models;
+
+import models.PrintJob.JobStatus;
+import models.PrintJob.PaymentStatus;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, column-oriented copy of a list of print jobs for display
+ * Each field is kept in its own primitive array, indexed by row: IDs and counts as ints,
+ * costs in paise and times as epoch milliseconds in longs, statuses as enum ordinals in
+ * bytes. Names are shared between rows that repeat them. A row costs roughly 60 bytes
+ * plus its distinct strings, so large job histories fit in a small heap.
+ */
+public class JobSnapshot {
+    public static final int NO_ID = -1;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final JobStatus[] JOB_STATUSES = JobStatus.values();
+    private static final PaymentStatus[] PAYMENT_STATUSES = PaymentStatus.values();
+
+    private final int size;
+    private final int[] jobIds;
+    private final int[] userIds;
+    private final int[] pageCounts;
+    private final int[] numCopies;
+    private final int[] printerIds;
+    private final long[] totalCosts;
+    private final long[] submittedAt;
+    private final long[] completedAt;
+    private final byte[] jobStatuses;
+    private final byte[] paymentStatuses;
+    private final String[] documentNames;
+    private final String[] fullNames;
+
+    private JobSnapshot(Builder builder) {
+        this.size = builder.size;
+        this.jobIds = Arrays.copyOf(builder.jobIds, size);
+        this.userIds = Arrays.copyOf(builder.userIds, size);
+        this.pageCounts = Arrays.copyOf(builder.pageCounts, size);
+        this.numCopies = Arrays.copyOf(builder.numCopies, size);
+        this.printerIds = Arrays.copyOf(builder.printerIds, size);
+        this.totalCosts = Arrays.copyOf(builder.totalCosts, size);
+        this.submittedAt = Arrays.copyOf(builder.submittedAt, size);
+        this.completedAt = Arrays.copyOf(builder.completedAt, size);
+        this.jobStatuses = Arrays.copyOf(builder.jobStatuses, size);
+        this.paymentStatuses = Arrays.copyOf(builder.paymentStatuses, size);
+        this.documentNames = Arrays.copyOf(builder.documentNames, size);
+        this.fullNames = Arrays.copyOf(builder.fullNames, size);
+    }
+
+    /**
+     * Snapshot of jobs already loaded as objects, keeping their order
+     *
+     * @param jobs Jobs to copy
+     * @return Snapshot with one row per job
+     */
+    public static JobSnapshot of(List<PrintJob> jobs) {
+        Builder builder = new Builder(jobs.size());
+        for (PrintJob job : jobs) {
+            builder.add(job.getJobId(), job.getUserId(), job.getDocumentName(), job.getFullName(),
+                        job.getPageCount(), job.getNumCopies(), job.getTotalCost(),
+                        job.getJobStatus(), job.getPaymentStatus(),
+                        job.getSubmittedAt(), job.getCompletedAt(), job.getPrinterId());
+        }
+        return builder.build();
+    }
+
+    public static JobSnapshot empty() {
+        return new Builder(0).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getJobId(int row) {
+        return jobIds[row];
+    }
+
+    public int getUserId(int row) {
+        return userIds[row];
+    }
+
+    public String getDocumentName(int row) {
+        return documentNames[row];
+    }
+
+    public String getFullName(int row) {
+        return fullNames[row];
+    }
+
+    public int getPageCount(int row) {
+        return pageCounts[row];
+    }
+
+    public int getNumCopies(int row) {
+        return numCopies[row];
+    }
+
+    /**
+     * @return Total cost in paise
+     */
+    public long getTotalCost(int row) {
+        return totalCosts[row];
+    }
+
+    public JobStatus getJobStatus(int row) {
+        return JOB_STATUSES[jobStatuses[row]];
+    }
+
+    public PaymentStatus getPaymentStatus(int row) {
+        return PAYMENT_STATUSES[paymentStatuses[row]];
+    }
+
+    /**
+     * @return Submission time in epoch milliseconds, or NO_TIME
+     */
+    public long getSubmittedAt(int row) {
+        return submittedAt[row];
+    }
+
+    /**
+     * @return Completion time in epoch milliseconds, or NO_TIME
+     */
+    public long getCompletedAt(int row) {
+        return completedAt[row];
+    }
+
+    /**
+     * @return Assigned printer ID, or NO_ID
+     */
+    public int getPrinterId(int row) {
+        return printerIds[row];
+    }
+
+    /**
+     * Accumulates rows, typically straight from a result set, without creating PrintJob objects
+     */
+    public static class Builder {
+        private int size;
+        private int[] jobIds;
+        private int[] userIds;
+        private int[] pageCounts;
+        private int[] numCopies;
+        private int[] printerIds;
+        private long[] totalCosts;
+        private long[] submittedAt;
+        private long[] completedAt;
+        private byte[] jobStatuses;
+        private byte[] paymentStatuses;
+        private String[] documentNames;
+        private String[] fullNames;
+        private final Map<String, String> names = new HashMap<>();
+
+        public Builder() {
+            this(64);
+        }
+
+        public Builder(int capacity) {
+            allocate(Math.max(capacity, 1));
+        }
+
+        public Builder add(int jobId, int userId, String documentName, String fullName,
+                           int pageCount, int copies, long totalCost,
+                           JobStatus jobStatus, PaymentStatus paymentStatus,
+                           Timestamp submitted, Timestamp completed, Integer printerId) {
+            if (size == jobIds.length) {
+                allocate(size * 2);
+            }
+            jobIds[size] = jobId;
+            userIds[size] = userId;
+            documentNames[size] = share(documentName);
+            fullNames[size] = share(fullName);
+            pageCounts[size] = pageCount;
+            numCopies[size] = copies;
+            totalCosts[size] = totalCost;
+            jobStatuses[size] = (byte) jobStatus.ordinal();
+            paymentStatuses[size] = (byte) paymentStatus.ordinal();
+            submittedAt[size] = submitted != null ? submitted.getTime() : NO_TIME;
+            completedAt[size] = completed != null ? completed.getTime() : NO_TIME;
+            printerIds[size] = printerId != null ? printerId : NO_ID;
+            size++;
+            return this;
+        }
+
+        public JobSnapshot build() {
+            return new JobSnapshot(this);
+        }
+
+        // One copy per distinct name; students and document names repeat across history
+        private String share(String value) {
+            if (value == null) {
+                return null;
+            }
+            String existing = names.putIfAbsent(value, value);
+            return existing != null ? existing : value;
+        }
+
+        private void allocate(int capacity) {
+            jobIds = jobIds == null ? new int[capacity] : Arrays.copyOf(jobIds, capacity);
+            userIds = userIds == null ? new int[capacity] : Arrays.copyOf(userIds, capacity);
+            pageCounts = pageCounts == null ? new int[capacity] : Arrays.copyOf(pageCounts, capacity);
+            numCopies = numCopies == null ? new int[capacity] : Arrays.copyOf(numCopies, capacity);
+            printerIds = printerIds == null ? new int[capacity] : Arrays.copyOf(printerIds, capacity);
+            totalCosts = totalCosts == null ? new long[capacity] : Arrays.copyOf(totalCosts, capacity);
+            submittedAt = submittedAt == null ? new long[capacity] : Arrays.copyOf(submittedAt, capacity);
+            completedAt = completedAt == null ? new long[capacity] : Arrays.copyOf(completedAt, capacity);
+            jobStatuses = jobStatuses == null ? new byte[capacity] : Arrays.copyOf(jobStatuses, capacity);
+            paymentStatuses = paymentStatuses == null ? new byte[capacity] : Arrays.copyOf(paymentStatuses, capacity);
+            documentNames = documentNames == null ? new String[capacity] : Arrays.copyOf(documentNames, capacity);
+            fullNames = fullNames == null ? new String[capacity] : Arrays.copyOf(fullNames, capacity);
+        }
+    }
+}
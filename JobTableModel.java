@@ -0,0 +1,115 @@
+package ui;
+
+import models.JobSnapshot;
+import models.Money;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Read-only table model that renders job rows straight from a JobSnapshot
+ * Cell values are produced when the table paints them, so only visible rows are
+ * formatted and no per-row object arrays are kept. Columns that are not part of
+ * the snapshot (lane, printer) are supplied as one label per row.
+ */
+public class JobTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public enum Column {
+        JOB_ID, STUDENT, DOCUMENT, PAGES, COPIES, COST, PAYMENT, STATUS,
+        SUBMITTED, COMPLETED, LANE, PRINTER, ACTIONS
+    }
+
+    private final String[] names;
+    private final Column[] columns;
+    private final DateTimeFormatter formatter;
+    private JobSnapshot snapshot = JobSnapshot.empty();
+    private Map<Column, String[]> labels = Collections.emptyMap();
+
+    /**
+     * @param names Column headers
+     * @param columns Field shown in each column, same length as names
+     * @param datePattern Pattern for submitted and completed times
+     */
+    public JobTableModel(String[] names, Column[] columns, String datePattern) {
+        this.names = names;
+        this.columns = columns;
+        this.formatter = DateTimeFormatter.ofPattern(datePattern).withZone(ZoneId.systemDefault());
+    }
+
+    public void setSnapshot(JobSnapshot snapshot) {
+        setSnapshot(snapshot, Collections.emptyMap());
+    }
+
+    /**
+     * Replace all rows
+     *
+     * @param snapshot Rows to show
+     * @param labels Per-row text for LANE and PRINTER columns, indexed like the snapshot
+     */
+    public void setSnapshot(JobSnapshot snapshot, Map<Column, String[]> labels) {
+        this.snapshot = snapshot;
+        this.labels = new EnumMap<>(Column.class);
+        this.labels.putAll(labels);
+        fireTableDataChanged();
+    }
+
+    public JobSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public int getRowCount() {
+        return snapshot.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (columns[column]) {
+            case JOB_ID:
+                return snapshot.getJobId(row);
+            case STUDENT:
+                return snapshot.getFullName(row);
+            case DOCUMENT:
+                return snapshot.getDocumentName(row);
+            case PAGES:
+                return snapshot.getPageCount(row);
+            case COPIES:
+                return snapshot.getNumCopies(row);
+            case COST:
+                return Money.format(snapshot.getTotalCost(row));
+            case PAYMENT:
+                return snapshot.getPaymentStatus(row);
+            case STATUS:
+                return snapshot.getJobStatus(row);
+            case SUBMITTED:
+                return formatTime(snapshot.getSubmittedAt(row));
+            case COMPLETED:
+                return formatTime(snapshot.getCompletedAt(row));
+            case ACTIONS:
+                return "Download";
+            default:
+                String[] text = labels.get(columns[column]);
+                return text != null ? text[row] : "-";
+        }
+    }
+
+    private String formatTime(long epochMillis) {
+        return epochMillis == JobSnapshot.NO_TIME ? "-" : formatter.format(Instant.ofEpochMilli(epochMillis));
+    }
+}
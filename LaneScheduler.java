@@ -0,0 +1,71 @@
+package services;
+
+import models.PrintJob;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Two-lane scheduler: small jobs go to an express lane that is served ahead of the bulk lane
+ * A job is express when pages × copies is at most the express limit. To keep bulk jobs from
+ * starving, each one competes as if it had been submitted agingMillis later than it was:
+ * an express job only overtakes it if it arrived within that window, so no bulk job waits
+ * more than agingMillis behind express traffic.
+ */
+public class LaneScheduler implements QueueScheduler {
+    public static final int DEFAULT_EXPRESS_MAX_SHEETS = 10;
+    public static final long DEFAULT_AGING_MILLIS = 15 * 60 * 1000L;
+
+    private final int expressMaxSheets;
+    private final long agingMillis;
+
+    public enum Lane {
+        EXPRESS, BULK
+    }
+
+    public LaneScheduler() {
+        this(DEFAULT_EXPRESS_MAX_SHEETS, DEFAULT_AGING_MILLIS);
+    }
+
+    /**
+     * @param expressMaxSheets Largest job (pages × copies) routed to the express lane
+     * @param agingMillis Longest time a bulk job can be overtaken by express jobs
+     */
+    public LaneScheduler(int expressMaxSheets, long agingMillis) {
+        this.expressMaxSheets = expressMaxSheets;
+        this.agingMillis = agingMillis;
+    }
+
+    /**
+     * Lane a job is routed to
+     *
+     * @param job Print job
+     * @return EXPRESS or BULK
+     */
+    public Lane laneOf(PrintJob job) {
+        long sheets = (long) job.getPageCount() * job.getNumCopies();
+        return sheets <= expressMaxSheets ? Lane.EXPRESS : Lane.BULK;
+    }
+
+    @Override
+    public List<PrintJob> order(List<PrintJob> jobs) {
+        List<PrintJob> ordered = new ArrayList<>(jobs);
+        ordered.sort(Comparator.comparingLong(this::effectiveArrival)
+                               .thenComparing(FcfsScheduler.ARRIVAL_ORDER));
+        return ordered;
+    }
+
+    private long effectiveArrival(PrintJob job) {
+        long submitted = job.getSubmittedAt() != null ? job.getSubmittedAt().getTime() : Long.MAX_VALUE - agingMillis;
+        return laneOf(job) == Lane.BULK ? submitted + agingMillis : submitted;
+    }
+
+    public int getExpressMaxSheets() {
+        return expressMaxSheets;
+    }
+
+    public long getAgingMillis() {
+        return agingMillis;
+    }
+}
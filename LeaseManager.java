@@ -0,0 +1,254 @@
+package services;
+
+import dao.PrintJobDAO;
+import database.DatabaseConnection;
+import models.PrintJob;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease-based claiming of queued jobs by operator stations
+ * A station claims jobs before printing them; a claim moves the job to PROCESSING and
+ * records the station and a lease expiry on the database clock. Claiming the next N
+ * jobs uses SELECT ... FOR UPDATE SKIP LOCKED so stations never wait on each other, and
+ * claiming a specific job is a single conditional update. Only the lease holder can
+ * complete a job, and completing it captures the job's held payment in the same
+ * transaction. A background thread renews the station's leases and returns jobs whose
+ * lease expired (a crashed or closed station) to the PENDING pool.
+ * The lease length comes from lease.seconds in database.properties (default 120).
+ */
+public class LeaseManager {
+    public static final int DEFAULT_LEASE_SECONDS = 120;
+    private static final int CANDIDATE_FACTOR = 4;
+
+    private final PrintJobDAO printJobDAO;
+    private final PaymentService paymentService;
+    private final QueueService queueService;
+    private final String stationId;
+    private final int operatorId;
+    private final int leaseSeconds;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param operatorId Operator signed in at this station
+     */
+    public LeaseManager(int operatorId) {
+        this.printJobDAO = new PrintJobDAO();
+        this.paymentService = new PaymentService();
+        this.queueService = QueueService.getInstance();
+        this.stationId = newStationId(operatorId);
+        this.operatorId = operatorId;
+        this.leaseSeconds = Integer.parseInt(DatabaseConnection.getInstance().getProperty("lease.seconds",
+            String.valueOf(DEFAULT_LEASE_SECONDS)));
+    }
+
+    private static String newStationId(int operatorId) {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "station";
+        }
+        String id = host + ":" + operatorId + ":" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+
+    public String getStationId() {
+        return stationId;
+    }
+
+    public int getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    /**
+     * Claim the next jobs in scheduling order
+     * Jobs another station is claiming at the same moment are skipped, not waited for.
+     *
+     * @param count Maximum number of jobs to claim
+     * @return Claimed jobs in scheduling order, empty if none were free or on error
+     */
+    public List<PrintJob> claimNextJobs(int count) {
+        List<PrintJob> candidates = new ArrayList<>();
+        List<Integer> candidateIds = new ArrayList<>();
+        for (PrintJob job : queueService.getQueueJobs()) {
+            if (candidates.size() >= count * CANDIDATE_FACTOR) {
+                break;
+            }
+            if (job.getLeaseOwner() == null && job.getSpoolBatchId() == null
+                    && job.getJobStatus() == PrintJob.JobStatus.PENDING) {
+                candidates.add(job);
+                candidateIds.add(job.getJobId());
+            }
+        }
+
+        List<PrintJob> claimed = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            return claimed;
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            Set<Integer> claimable = printJobDAO.lockClaimableJobs(conn, candidateIds);
+            List<Integer> claimedIds = new ArrayList<>();
+            for (PrintJob job : candidates) {
+                if (claimedIds.size() < count && claimable.contains(job.getJobId())) {
+                    claimed.add(job);
+                    claimedIds.add(job.getJobId());
+                }
+            }
+
+            printJobDAO.leaseJobs(conn, claimedIds, stationId, operatorId, leaseSeconds);
+            conn.commit();
+            return claimed;
+
+        } catch (SQLException e) {
+            System.err.println("Error claiming jobs: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return new ArrayList<>();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim a specific job
+     *
+     * @param jobId Job ID
+     * @return true if this station now holds the lease
+     */
+    public boolean claimJob(int jobId) {
+        return printJobDAO.claimJob(jobId, stationId, operatorId, leaseSeconds);
+    }
+
+    /**
+     * Complete a job this station holds
+     * The lease-checked completion and the capture of any held payment commit together,
+     * so a job is never left COMPLETED with its funds still held.
+     *
+     * @param jobId Job ID
+     * @return true if completed, false if the lease had been lost to another station or on error
+     */
+    public boolean completeJob(int jobId) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            if (!printJobDAO.completeLeasedJob(conn, jobId, stationId, operatorId)) {
+                conn.rollback();
+                return false;
+            }
+            paymentService.capturePayments(conn, Collections.singletonList(jobId));
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error completing job #" + jobId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Hand a claimed job back to the queue
+     *
+     * @param jobId Job ID
+     * @return true if the job was released
+     */
+    public boolean releaseJob(int jobId) {
+        return printJobDAO.releaseLeases(stationId, jobId) > 0;
+    }
+
+    /**
+     * Renew this station's leases and reclaim expired ones from any station
+     */
+    public void heartbeat() {
+        printJobDAO.renewLeases(stationId, leaseSeconds);
+        int reclaimed = printJobDAO.reapExpiredLeases();
+        if (reclaimed > 0) {
+            System.out.println("Returned " + reclaimed + " job(s) with expired leases to the queue");
+        }
+    }
+
+    /**
+     * Start renewing leases in the background, three times per lease period
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, leaseSeconds / 3);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                heartbeat();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next beat retries
+                e.printStackTrace();
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the heartbeat and hand every job this station holds back to the queue
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        printJobDAO.releaseLeases(stationId, null);
+    }
+}
@@ -0,0 +1,23 @@
+package services;
+
+import models.PrintJob;
+import models.PrinterLoad;
+
+import java.util.List;
+
+/**
+ * Assigns each job to the printer with the fewest queued sheets
+ */
+public class LeastLoadedPolicy implements AssignmentPolicy {
+
+    @Override
+    public PrinterLoad choosePrinter(PrintJob job, List<PrinterLoad> candidates) {
+        PrinterLoad best = candidates.get(0);
+        for (PrinterLoad candidate : candidates) {
+            if (candidate.getQueuedPages() < best.getQueuedPages()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,246 @@
+package services;
+
+import dao.TransactionDAO;
+import dao.UserDAO;
+import database.DatabaseConnection;
+import models.Money;
+import models.ReconciliationReport;
+import models.ReconciliationReport.Discrepancy;
+import models.ReconciliationReport.DiscrepancyType;
+import models.Transaction;
+import models.Transaction.TransactionType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel reconciliation of the transactions ledger against wallet balances
+ * The user ID space is split into ranges on a fork-join pool. Each leaf streams
+ * its users' ledger rows in transaction order and keeps only the running state
+ * of the current user, so memory stays bounded regardless of ledger size.
+ *
+ * Checks per user:
+ * - each row's balance_after equals balance_before plus or minus amount
+ * - each row's balance_before equals the previous row's balance_after
+ * - the last balance_after equals users.wallet_balance
+ */
+public class LedgerReconciler {
+    private static final int DEFAULT_USERS_PER_TASK = 2000;
+
+    private final TransactionDAO transactionDAO;
+    private final UserDAO userDAO;
+    private final int parallelism;
+    private final int usersPerTask;
+
+    public LedgerReconciler() {
+        this(Runtime.getRuntime().availableProcessors() * 2, DEFAULT_USERS_PER_TASK);
+    }
+
+    /**
+     * @param parallelism Number of ranges scanned concurrently (each holds one connection)
+     * @param usersPerTask Size of the user ID range scanned by one leaf task
+     */
+    public LedgerReconciler(int parallelism, int usersPerTask) {
+        this.transactionDAO = new TransactionDAO();
+        this.userDAO = new UserDAO();
+        this.parallelism = parallelism;
+        this.usersPerTask = usersPerTask;
+    }
+
+    /**
+     * Reconcile the whole ledger
+     *
+     * @return Discrepancy report
+     */
+    public ReconciliationReport reconcile() {
+        long start = System.currentTimeMillis();
+        ReconciliationReport report;
+
+        int[] range = userDAO.getUserIdRange();
+        if (range == null) {
+            report = new ReconciliationReport();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                report = pool.invoke(new RangeTask(range[0], range[1]));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    private class RangeTask extends RecursiveTask<ReconciliationReport> {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromUserId;
+        private final int toUserId;
+
+        RangeTask(int fromUserId, int toUserId) {
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+        }
+
+        @Override
+        protected ReconciliationReport compute() {
+            if ((long) toUserId - fromUserId < usersPerTask) {
+                return reconcileRange(fromUserId, toUserId);
+            }
+
+            int mid = (int) (((long) fromUserId + toUserId) / 2);
+            RangeTask left = new RangeTask(fromUserId, mid);
+            RangeTask right = new RangeTask(mid + 1, toUserId);
+            left.fork();
+            ReconciliationReport report = right.compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+
+    /**
+     * Reconcile one contiguous range of users on the calling thread
+     * Balances and ledger rows are read in one REPEATABLE READ transaction, so both come
+     * from the same snapshot and payments committed during the scan cannot show up on
+     * only one side
+     */
+    private ReconciliationReport reconcileRange(int fromUserId, int toUserId) {
+        ReconciliationReport report = new ReconciliationReport();
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+            }
+
+            Map<Integer, Long> walletBalances = userDAO.getWalletBalances(conn, fromUserId, toUserId);
+            ChainState state = new ChainState(report, walletBalances);
+
+            long rows = transactionDAO.scanLedger(conn, fromUserId, toUserId, state::accept);
+            state.finishUser();
+            conn.commit();
+
+            report.addTransactionsChecked(rows);
+            report.addUsersChecked(state.usersSeen);
+
+        } catch (SQLException e) {
+            System.err.println("Error reconciling users " + fromUserId + "-" + toUserId + ": " + e.getMessage());
+            e.printStackTrace();
+            report.addDiscrepancy(new Discrepancy(fromUserId, null, DiscrepancyType.SCAN_FAILED,
+                "range " + fromUserId + "-" + toUserId + " could not be scanned: " + e.getMessage()));
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return report;
+    }
+
+    /**
+     * Running state for the user currently being streamed
+     */
+    private static class ChainState {
+        private final ReconciliationReport report;
+        private final Map<Integer, Long> walletBalances;
+        private int currentUserId = -1;
+        private long lastBalanceAfter;
+        private int lastTransactionId;
+        private int usersSeen;
+
+        ChainState(ReconciliationReport report, Map<Integer, Long> walletBalances) {
+            this.report = report;
+            this.walletBalances = walletBalances;
+        }
+
+        void accept(Transaction txn) {
+            long before = txn.getBalanceBefore();
+            long after = txn.getBalanceAfter();
+            long amount = txn.getAmount();
+
+            if (txn.getUserId() != currentUserId) {
+                // The first row of a user has no predecessor (opening balances are not in the ledger)
+                finishUser();
+                currentUserId = txn.getUserId();
+                usersSeen++;
+            } else if (before != lastBalanceAfter) {
+                report.addDiscrepancy(new Discrepancy(currentUserId, txn.getTransactionId(),
+                    DiscrepancyType.BROKEN_CHAIN,
+                    "balance_before " + formatPaise(before) + " does not follow txn " +
+                    lastTransactionId + " balance_after " + formatPaise(lastBalanceAfter)));
+            }
+
+            long expected = txn.getTransactionType() == TransactionType.PAYMENT ? before - amount : before + amount;
+            if (after != expected) {
+                report.addDiscrepancy(new Discrepancy(currentUserId, txn.getTransactionId(),
+                    DiscrepancyType.BAD_ARITHMETIC,
+                    txn.getTransactionType() + " " + formatPaise(amount) + " on " + formatPaise(before) +
+                    " should give " + formatPaise(expected) + " but recorded " + formatPaise(after)));
+            }
+
+            lastBalanceAfter = after;
+            lastTransactionId = txn.getTransactionId();
+        }
+
+        void finishUser() {
+            if (currentUserId < 0) {
+                return;
+            }
+            Long wallet = walletBalances.get(currentUserId);
+            if (wallet != null && wallet != lastBalanceAfter) {
+                report.addDiscrepancy(new Discrepancy(currentUserId, lastTransactionId,
+                    DiscrepancyType.FINAL_BALANCE_MISMATCH,
+                    "wallet_balance " + formatPaise(wallet) + " but ledger ends at " +
+                    formatPaise(lastBalanceAfter)));
+            }
+            currentUserId = -1;
+        }
+
+        private static String formatPaise(long paise) {
+            return Money.formatPlain(paise);
+        }
+    }
+
+    /**
+     * Entry point for running reconciliation from the command line
+     */
+    public static void main(String[] args) {
+        if (!DatabaseConnection.getInstance().testConnection()) {
+            System.err.println("Database connection failed. Reconciliation not run.");
+            System.exit(1);
+        }
+
+        ReconciliationReport report = new LedgerReconciler().reconcile();
+        System.out.println("Ledger reconciliation finished in " + report.getDurationMillis() + " ms");
+        System.out.println("  Users checked:        " + report.getUsersChecked());
+        System.out.println("  Transactions checked: " + report.getTransactionsChecked());
+        System.out.println("  Discrepancies:        " + report.getDiscrepancyCount());
+        for (Discrepancy discrepancy : report.getDiscrepancies()) {
+            System.out.println("  " + discrepancy);
+        }
+        if (report.getDiscrepancyCount() > report.getDiscrepancies().size()) {
+            System.out.println("  ... " + (report.getDiscrepancyCount() - report.getDiscrepancies().size()) +
+                               " more not shown");
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package ui;
 
 import dao.UserDAO;
+import database.DatabaseConnection;
 import models.User;
 import models.User.UserType;
+import services.AsyncDataService;
 
 import javax.swing.*;
 import java.awt.*;
@@ -20,6 +22,7 @@ public class LoginFrame extends JFrame {
     private JButton loginButton;
     private JButton exitButton;
     private UserDAO userDAO;
+    private BackgroundLoader loginLoader = new BackgroundLoader(null);
     
     public LoginFrame() {
         this.userDAO = new UserDAO();
@@ -184,17 +187,22 @@ public class LoginFrame extends JFrame {
                 return;
             }
             
-            // Authenticate user
-            User user = userDAO.authenticate(username, password);
-            
+            // Authenticate in the background; a second attempt replaces one still running
+            setSigningIn(true);
+            loginLoader.load(AsyncDataService.getInstance().authenticate(username, password),
+                user -> completeLogin(user, selectedType),
+                error -> completeLogin(null, selectedType));
+        }
+        
+        private void completeLogin(User user, String selectedType) {
             if (user == null) {
-                JOptionPane.showMessageDialog(LoginFrame.this,
-                    "Invalid username or password",
-                    "Authentication Failed",
-                    JOptionPane.ERROR_MESSAGE);
-                passwordField.setText("");
+                // Tell a rejected login apart from an unreachable server before reporting it
+                loginLoader.load(AsyncDataService.getInstance().supply(
+                        () -> DatabaseConnection.getInstance().testConnection()),
+                    this::reportRejected, error -> reportRejected(false));
                 return;
             }
+            setSigningIn(false);
             
             // Check user type matches selection
             UserType expectedType = UserType.valueOf(selectedType.toUpperCase());
@@ -221,6 +229,29 @@ public class LoginFrame extends JFrame {
                 });
             }
         }
+        
+        private void reportRejected(boolean serverReachable) {
+            setSigningIn(false);
+            if (!serverReachable) {
+                JOptionPane.showMessageDialog(LoginFrame.this,
+                    "The print server cannot be reached right now. Please try again in a moment.",
+                    "Server Unavailable",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            
+            JOptionPane.showMessageDialog(LoginFrame.this,
+                "Invalid username or password",
+                "Authentication Failed",
+                JOptionPane.ERROR_MESSAGE);
+            passwordField.setText("");
+        }
+    }
+    
+    private void setSigningIn(boolean signingIn) {
+        loginButton.setEnabled(!signingIn);
+        loginButton.setText(signingIn ? "Signing in..." : "Login");
+        setCursor(signingIn ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
     
     public static void main(String[] args) {
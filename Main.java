@@ -1,4 +1,5 @@
 import database.DatabaseConnection;
+import services.SubmissionJournal;
 import ui.LoginFrame;
 
 import javax.swing.*;
@@ -20,24 +21,9 @@ public class Main {
         System.out.println("Testing database connection...");
         
         DatabaseConnection dbConnection = DatabaseConnection.getInstance();
-        if (dbConnection.testConnection()) {
+        boolean connected = dbConnection.testConnection();
+        if (connected) {
             System.out.println("✓ Database connection successful!");
-            System.out.println("===========================================");
-            
-            // Set look and feel to system default
-            try {
-                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-            } catch (Exception e) {
-                System.err.println("Warning: Could not set system look and feel");
-                e.printStackTrace();
-            }
-            
-            // Launch login frame on Event Dispatch Thread
-            SwingUtilities.invokeLater(() -> {
-                LoginFrame loginFrame = new LoginFrame();
-                loginFrame.setVisible(true);
-            });
-            
         } else {
             System.err.println("✗ Database connection failed!");
             System.err.println("Please check the following:");
@@ -45,17 +31,34 @@ public class Main {
             System.err.println("2. Database 'print_queue_db' exists");
             System.err.println("3. Database credentials in database.properties are correct");
             System.err.println("4. MySQL JDBC driver is in classpath");
-            System.err.println("===========================================");
-            
-            // Show error dialog
-            JOptionPane.showMessageDialog(null,
-                "Failed to connect to database.\n" +
-                "Please ensure MySQL is running and database is configured correctly.\n" +
-                "Check console for details.",
-                "Database Connection Error",
-                JOptionPane.ERROR_MESSAGE);
-            
-            System.exit(1);
+            System.err.println("Starting anyway; submissions are journaled locally until the database returns.");
         }
+        System.out.println("===========================================");
+        
+        // Replay work journaled during an earlier outage as soon as the database answers
+        SubmissionJournal.getInstance().start();
+        
+        // Set look and feel to system default
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            System.err.println("Warning: Could not set system look and feel");
+            e.printStackTrace();
+        }
+        
+        // Launch login frame on Event Dispatch Thread
+        SwingUtilities.invokeLater(() -> {
+            LoginFrame loginFrame = new LoginFrame();
+            loginFrame.setVisible(true);
+            
+            if (!connected) {
+                JOptionPane.showMessageDialog(loginFrame,
+                    "Cannot connect to the database right now.\n" +
+                    "The application will keep retrying; sign-in works again once it is reachable.\n" +
+                    "Check console for details.",
+                    "Database Connection Error",
+                    JOptionPane.WARNING_MESSAGE);
+            }
+        });
     }
 }
@@ -0,0 +1,136 @@
+package models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Fixed-point money helpers
+ * Amounts are carried as a primitive long number of paise (1 rupee = 100 paise)
+ * everywhere in the application. Conversion to and from DECIMAL(10, 2) happens
+ * only at the JDBC boundary and is exact in both directions.
+ */
+public final class Money {
+    public static final long PAISE_PER_RUPEE = 100;
+    public static final String CURRENCY_SYMBOL = "₹";
+
+    private Money() {}
+
+    /**
+     * Whole rupees to paise
+     *
+     * @param rupees Amount in rupees
+     * @return Amount in paise
+     */
+    public static long ofRupees(long rupees) {
+        return Math.multiplyExact(rupees, PAISE_PER_RUPEE);
+    }
+
+    /**
+     * Exact conversion from a DECIMAL value
+     *
+     * @param amount Decimal amount in rupees (null is treated as zero)
+     * @return Amount in paise
+     * @throws ArithmeticException if the value has more than two decimal places
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Exact conversion to a DECIMAL value
+     *
+     * @param paise Amount in paise
+     * @return Decimal amount in rupees with scale 2
+     */
+    public static BigDecimal toDecimal(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    /**
+     * Parse user input such as "50", "50.5" or "50.25"
+     *
+     * @param text Amount in rupees
+     * @return Amount in paise
+     * @throws NumberFormatException if the text is not a valid amount with at most two decimals
+     */
+    public static long parse(String text) {
+        try {
+            return fromDecimal(new BigDecimal(text.trim()));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount must have at most two decimal places: " + text);
+        }
+    }
+
+    /**
+     * Read a DECIMAL money column
+     *
+     * @param rs Result set positioned on a row
+     * @param column Column label
+     * @return Amount in paise (0 for SQL NULL)
+     * @throws SQLException if the column cannot be read
+     */
+    public static long getMoney(ResultSet rs, String column) throws SQLException {
+        return fromDecimal(rs.getBigDecimal(column));
+    }
+
+    /**
+     * Bind a money parameter
+     *
+     * @param stmt Prepared statement
+     * @param index Parameter index
+     * @param paise Amount in paise
+     * @throws SQLException if the parameter cannot be set
+     */
+    public static void setMoney(PreparedStatement stmt, int index, long paise) throws SQLException {
+        stmt.setBigDecimal(index, toDecimal(paise));
+    }
+
+    /**
+     * Format with the currency symbol, e.g. "₹1234.50"
+     *
+     * @param paise Amount in paise
+     * @return Formatted amount
+     */
+    public static String format(long paise) {
+        return appendPlain(new StringBuilder(24).append(CURRENCY_SYMBOL), paise).toString();
+    }
+
+    /**
+     * Format without the currency symbol, e.g. "1234.50"
+     *
+     * @param paise Amount in paise
+     * @return Formatted amount
+     */
+    public static String formatPlain(long paise) {
+        return appendPlain(new StringBuilder(24), paise).toString();
+    }
+
+    /**
+     * Append an amount to an existing builder without intermediate strings or boxing
+     *
+     * @param sb Target builder
+     * @param paise Amount in paise
+     * @return The same builder
+     */
+    public static StringBuilder appendPlain(StringBuilder sb, long paise) {
+        if (paise < 0) {
+            sb.append('-');
+        }
+        // Work on the negative value so Long.MIN_VALUE does not overflow
+        long negative = paise < 0 ? paise : -paise;
+        long rupees = -(negative / PAISE_PER_RUPEE);
+        int fraction = (int) -(negative % PAISE_PER_RUPEE);
+
+        sb.append(rupees).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+}
@@ -1,14 +1,35 @@
 package ui;
 
+import dao.PrintJobChunkDAO;
 import dao.PrintJobDAO;
+import dao.PrinterDAO;
+import dao.SpoolBatchDAO;
 import dao.TransactionDAO;
 import dao.UserDAO;
+import models.BatchActionReport;
+import models.BulkCancellationReport;
+import models.JobFilter;
+import models.JobSnapshot;
+import models.Money;
 import models.PrintJob;
 import models.PrintJob.JobStatus;
 import models.PrintJob.PaymentStatus;
-import models.Transaction;
-import models.Transaction.TransactionType;
+import models.PrintJob.PaymentType;
+import models.PrintJobChunk;
+import models.PrintJobChunk.ChunkStatus;
+import models.Printer;
+import models.Printer.PrinterStatus;
+import models.SpoolBatch;
 import models.User;
+import services.AsyncDataService;
+import services.BatchJobService;
+import services.BulkCancellationService;
+import services.DispatchService;
+import services.EtaEngine;
+import services.LeaseManager;
+import services.PaymentService;
+import services.QueueService;
+import services.SpoolBatcher;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -18,8 +39,16 @@ import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.io.File;
 import javax.swing.Timer;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Operator Portal - Main interface for print operators
@@ -30,14 +59,31 @@ import java.util.List;
  * - View completed jobs
  */
 public class OperatorPortal extends JFrame {
+    private static final int DISPATCH_INTERVAL_SECONDS = 10;
+    private static final int CLAIM_BATCH_SIZE = 5;
+
     private User currentUser;
     private PrintJobDAO printJobDAO;
     private TransactionDAO transactionDAO;
     private UserDAO userDAO;
+    private PaymentService paymentService;
+    private BulkCancellationService bulkCancellationService;
+    private DispatchService dispatchService;
+    private LeaseManager leaseManager;
+    private BatchJobService batchJobService;
+    private QueueService queueService;
+    private PrinterDAO printerDAO;
+    private SpoolBatchDAO spoolBatchDAO;
+    private PrintJobChunkDAO chunkDAO;
+    private Map<Integer, List<PrintJobChunk>> queueChunks = new HashMap<>();
+    private SpoolBatcher spoolBatcher;
+    private Map<Integer, String> printerNames = new HashMap<>();
+    private DefaultTableModel printerModel;
     private Timer refreshTimer;
+    private BackgroundLoader refreshLoader;
     private JTabbedPane tabbedPane;
-    private DefaultTableModel queueModel;
-    private DefaultTableModel completedModel;
+    private JobTableModel queueModel;
+    private JobTableModel completedModel;
     private JPanel mainPanel;
 
     public OperatorPortal(User operator) {
@@ -45,10 +91,22 @@ public class OperatorPortal extends JFrame {
         this.printJobDAO = new PrintJobDAO();
         this.transactionDAO = new TransactionDAO();
         this.userDAO = new UserDAO();
+        this.paymentService = new PaymentService();
+        this.bulkCancellationService = new BulkCancellationService();
+        this.dispatchService = new DispatchService();
+        this.leaseManager = new LeaseManager(operator.getUserId());
+        this.batchJobService = new BatchJobService(leaseManager);
+        this.queueService = QueueService.getInstance();
+        this.printerDAO = new PrinterDAO();
+        this.spoolBatchDAO = new SpoolBatchDAO();
+        this.chunkDAO = new PrintJobChunkDAO();
+        this.spoolBatcher = new SpoolBatcher();
         
         initializeUI();
         refreshData();
         startAutoRefresh();
+        dispatchService.start(DISPATCH_INTERVAL_SECONDS);
+        leaseManager.start();
         setVisible(true);
     }
 
@@ -70,6 +128,7 @@ public class OperatorPortal extends JFrame {
         tabbedPane.setFont(new Font("Arial", Font.BOLD, 14));
         tabbedPane.addTab("Print Queue", createQueuePanel());
         tabbedPane.addTab("Completed Jobs", createCompletedJobsPanel());
+        tabbedPane.addTab("Printers", createPrintersPanel());
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
         add(mainPanel);
@@ -83,16 +142,55 @@ public class OperatorPortal extends JFrame {
         refreshTimer.start();
     }
 
+    /**
+     * Reload all tabs in the background; a newer refresh discards an older one still running
+     */
     private void refreshData() {
-        List<PrintJob> queueJobs = printJobDAO.getQueueJobs();
-        updateQueueTable(queueJobs);
+        AsyncDataService async = AsyncDataService.getInstance();
+        CompletableFuture<List<Printer>> printers = async.supply(printerDAO::getAllPrinters);
+        CompletableFuture<Map<Integer, Long>> queuedPages = async.supply(printerDAO::getQueuedPages);
+        CompletableFuture<List<PrintJob>> queueJobs = async.getQueueJobs();
+        CompletableFuture<Map<Integer, List<PrintJobChunk>>> chunks = async.supply(chunkDAO::getChunksForQueuedJobs);
+        CompletableFuture<JobSnapshot> completed = async.getCompletedJobSnapshot();
         
-        List<PrintJob> completedJobs = printJobDAO.getCompletedJobs();
-        updateCompletedTable(completedJobs);
+        refreshLoader.load(CompletableFuture.allOf(printers, queuedPages, queueJobs, chunks, completed), done -> {
+            updatePrinterTable(printers.join(), queuedPages.join());
+            queueChunks = chunks.join();
+            updateQueueTable(queueJobs.join());
+            completedModel.setSnapshot(completed.join());
+        }, error -> {
+            System.err.println("Error refreshing operator portal: " + error.getMessage());
+            error.printStackTrace();
+        });
+    }
+
+    /**
+     * Run an operator action in the background and continue on the EDT; a failure is
+     * reported to the operator instead of being dropped
+     */
+    private <T> void runInBackground(Supplier<T> work, Consumer<T> onResult) {
+        AsyncDataService.getInstance().supply(work).whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onResult.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            System.err.println("Operator action failed: " + cause.getMessage());
+            cause.printStackTrace();
+            refreshData();
+            JOptionPane.showMessageDialog(this,
+                "The action failed: " + cause.getMessage() + "\nPlease try again.",
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }, BackgroundLoader.EDT);
     }
 
     private void logout() {
         refreshTimer.stop();
+        refreshLoader.cancel();
+        dispatchService.shutdown();
+        leaseManager.shutdown();
         dispose();
         new LoginFrame().setVisible(true);
     }
@@ -125,6 +223,9 @@ public class OperatorPortal extends JFrame {
         refreshButton.setBorder(BorderFactory.createEmptyBorder(8, 20, 8, 20));
         refreshButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
         refreshButton.addActionListener(e -> refreshData());
+        JProgressBar loadingIndicator = BackgroundLoader.createIndicator();
+        refreshLoader = new BackgroundLoader(loadingIndicator);
+        rightPanel.add(loadingIndicator);
         rightPanel.add(refreshButton);
 
         // Create logout button
@@ -158,19 +259,20 @@ public class OperatorPortal extends JFrame {
         // Create table model
         String[] columns = {
             "Job ID", "Student", "Document", "Pages", "Copies", "Cost", 
-            "Payment", "Status", "Submitted", "Actions"
+            "Payment", "Status", "Submitted", "Lane", "Printer", "Actions"
         };
 
-        queueModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        queueModel = new JobTableModel(columns, new JobTableModel.Column[]{
+            JobTableModel.Column.JOB_ID, JobTableModel.Column.STUDENT, JobTableModel.Column.DOCUMENT,
+            JobTableModel.Column.PAGES, JobTableModel.Column.COPIES, JobTableModel.Column.COST,
+            JobTableModel.Column.PAYMENT, JobTableModel.Column.STATUS, JobTableModel.Column.SUBMITTED,
+            JobTableModel.Column.LANE, JobTableModel.Column.PRINTER, JobTableModel.Column.ACTIONS
+        }, "yyyy-MM-dd HH:mm");
 
         // Create table
         JTable queueTable = new JTable(queueModel);
         setupTable(queueTable);
+        queueTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         
         // Add status column renderer
         TableColumn statusColumn = queueTable.getColumnModel().getColumn(7);
@@ -181,7 +283,7 @@ public class OperatorPortal extends JFrame {
         paymentColumn.setCellRenderer(new PaymentStatusRenderer());
 
         // Add download button column
-        TableColumn actionColumn = queueTable.getColumnModel().getColumn(9);
+        TableColumn actionColumn = queueTable.getColumnModel().getColumn(11);
         actionColumn.setCellRenderer(new ButtonRenderer());
         actionColumn.setCellEditor(new ButtonEditor(queueTable));
 
@@ -199,10 +301,30 @@ public class OperatorPortal extends JFrame {
         processButton.addActionListener(e -> processSelectedJob(queueTable));
         buttonPanel.add(processButton);
 
+        JButton claimButton = createActionButton("Claim Next", new Color(155, 89, 182));
+        claimButton.addActionListener(e -> claimNextJobs());
+        buttonPanel.add(claimButton);
+
         JButton cancelButton = createActionButton("Cancel Selected", new Color(231, 76, 60));
         cancelButton.addActionListener(e -> cancelSelectedJob(queueTable));
         buttonPanel.add(cancelButton);
 
+        JButton batchButton = createActionButton("Selected Jobs...", new Color(41, 128, 185));
+        batchButton.addActionListener(e -> applyToSelectedJobs(queueTable, null));
+        buttonPanel.add(batchButton);
+
+        JButton bulkCancelButton = createActionButton("Bulk Cancel...", new Color(192, 57, 43));
+        bulkCancelButton.addActionListener(e -> bulkCancelJobs());
+        buttonPanel.add(bulkCancelButton);
+
+        JButton spoolButton = createActionButton("Batch Small Jobs", new Color(52, 152, 219));
+        spoolButton.addActionListener(e -> spoolSmallJobs());
+        buttonPanel.add(spoolButton);
+
+        JButton completeBatchButton = createActionButton("Complete Batch...", new Color(22, 160, 133));
+        completeBatchButton.addActionListener(e -> completeSpoolBatch());
+        buttonPanel.add(completeBatchButton);
+
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
         return panel;
@@ -224,12 +346,11 @@ public class OperatorPortal extends JFrame {
             "Payment", "Status", "Completed"
         };
 
-        completedModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        completedModel = new JobTableModel(columns, new JobTableModel.Column[]{
+            JobTableModel.Column.JOB_ID, JobTableModel.Column.STUDENT, JobTableModel.Column.DOCUMENT,
+            JobTableModel.Column.PAGES, JobTableModel.Column.COPIES, JobTableModel.Column.COST,
+            JobTableModel.Column.PAYMENT, JobTableModel.Column.STATUS, JobTableModel.Column.COMPLETED
+        }, "yyyy-MM-dd HH:mm");
 
         // Create table
         JTable completedTable = new JTable(completedModel);
@@ -248,9 +369,119 @@ public class OperatorPortal extends JFrame {
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        // POSTPAID jobs can be collected from the wallet without waiting for the nightly settlement
+        completedTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        buttonPanel.setBackground(Color.WHITE);
+
+        JButton markPaidButton = createActionButton("Mark Selected Paid", new Color(46, 204, 113));
+        markPaidButton.addActionListener(e -> applyToSelectedJobs(completedTable, BatchJobService.Action.MARK_PAID));
+        buttonPanel.add(markPaidButton);
+
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
+        return panel;
+    }
+
+    private JPanel createPrintersPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(Color.WHITE);
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        JLabel titleLabel = new JLabel("Printers");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 22));
+        titleLabel.setForeground(new Color(142, 68, 173));
+        panel.add(titleLabel, BorderLayout.NORTH);
+
+        String[] columns = {"Printer ID", "Name", "Pages/Min", "Status", "Queued Sheets", "Est. Minutes"};
+
+        printerModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        JTable printerTable = new JTable(printerModel);
+        setupTable(printerTable);
+
+        JScrollPane scrollPane = new JScrollPane(printerTable);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        buttonPanel.setBackground(Color.WHITE);
+
+        JButton onlineButton = createActionButton("Set Online", new Color(46, 204, 113));
+        onlineButton.addActionListener(e -> changePrinterStatus(printerTable, PrinterStatus.ONLINE));
+        buttonPanel.add(onlineButton);
+
+        JButton offlineButton = createActionButton("Set Offline", new Color(241, 196, 15));
+        offlineButton.addActionListener(e -> changePrinterStatus(printerTable, PrinterStatus.OFFLINE));
+        buttonPanel.add(offlineButton);
+
+        JButton failedButton = createActionButton("Mark Failed", new Color(231, 76, 60));
+        failedButton.addActionListener(e -> changePrinterStatus(printerTable, PrinterStatus.FAILED));
+        buttonPanel.add(failedButton);
+
+        JButton dispatchButton = createActionButton("Dispatch Now", new Color(52, 152, 219));
+        dispatchButton.addActionListener(e ->
+            runInBackground(dispatchService::dispatchPendingJobs, dispatched -> refreshData()));
+        buttonPanel.add(dispatchButton);
+
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
         return panel;
     }
 
+    private void changePrinterStatus(JTable table, PrinterStatus status) {
+        int selectedRow = table.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this,
+                "Please select a printer.",
+                "No Selection",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        int printerId = (int) table.getValueAt(selectedRow, 0);
+        runInBackground(() -> dispatchService.setPrinterStatus(printerId, status), this::showPrinterStatusOutcome);
+    }
+
+    private void showPrinterStatusOutcome(int requeued) {
+        refreshData();
+
+        if (requeued < 0) {
+            JOptionPane.showMessageDialog(this,
+                "Could not update the printer.",
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        } else if (requeued > 0) {
+            JOptionPane.showMessageDialog(this,
+                requeued + " job(s) were moved back to the queue and redistributed.",
+                "Jobs Requeued",
+                JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    private void updatePrinterTable(List<Printer> printers, Map<Integer, Long> queuedPages) {
+        printerNames.clear();
+        printerModel.setRowCount(0);
+
+        for (Printer printer : printers) {
+            printerNames.put(printer.getPrinterId(), printer.getPrinterName());
+            long pages = queuedPages.getOrDefault(printer.getPrinterId(), 0L);
+            printerModel.addRow(new Object[]{
+                printer.getPrinterId(),
+                printer.getPrinterName(),
+                printer.getPagesPerMinute(),
+                printer.getPrinterStatus(),
+                pages,
+                (pages + printer.getPagesPerMinute() - 1) / printer.getPagesPerMinute()
+            });
+        }
+    }
+
     private void setupTable(JTable table) {
         table.setRowHeight(30);
         table.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -263,8 +494,11 @@ public class OperatorPortal extends JFrame {
     }
     
     private void downloadPrintJobFile(int jobId) {
-        PrintJob job = printJobDAO.getJobById(jobId);
-        if (job == null || job.getDocumentContent() == null) {
+        runInBackground(() -> printJobDAO.getJobById(jobId), this::saveDocument);
+    }
+
+    private void saveDocument(PrintJob job) {
+        if (job == null || job.getDocument() == null || job.getDocument().getSize() == 0) {
             JOptionPane.showMessageDialog(this,
                 "Could not retrieve the document content.",
                 "Download Error",
@@ -277,33 +511,41 @@ public class OperatorPortal extends JFrame {
         fileChooser.setSelectedFile(new File(job.getDocumentName()));
         
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            File file = fileChooser.getSelectedFile();
-            try {
-                // Ensure file has proper extension
-                String originalName = job.getDocumentName().toLowerCase();
-                if (originalName.endsWith(".pdf") && !file.getName().toLowerCase().endsWith(".pdf")) {
-                    file = new File(file.getPath() + ".pdf");
-                } else if (originalName.endsWith(".doc") && !file.getName().toLowerCase().endsWith(".doc")) {
-                    file = new File(file.getPath() + ".doc");
-                } else if (originalName.endsWith(".docx") && !file.getName().toLowerCase().endsWith(".docx")) {
-                    file = new File(file.getPath() + ".docx");
-                } else if (originalName.endsWith(".txt") && !file.getName().toLowerCase().endsWith(".txt")) {
-                    file = new File(file.getPath() + ".txt");
-                }
-                
+            File chosen = fileChooser.getSelectedFile();
+            // Ensure file has proper extension
+            String originalName = job.getDocumentName().toLowerCase();
+            if (originalName.endsWith(".pdf") && !chosen.getName().toLowerCase().endsWith(".pdf")) {
+                chosen = new File(chosen.getPath() + ".pdf");
+            } else if (originalName.endsWith(".doc") && !chosen.getName().toLowerCase().endsWith(".doc")) {
+                chosen = new File(chosen.getPath() + ".doc");
+            } else if (originalName.endsWith(".docx") && !chosen.getName().toLowerCase().endsWith(".docx")) {
+                chosen = new File(chosen.getPath() + ".docx");
+            } else if (originalName.endsWith(".txt") && !chosen.getName().toLowerCase().endsWith(".txt")) {
+                chosen = new File(chosen.getPath() + ".txt");
+            }
+            File file = chosen;
+            
+            // The document streams from the database to disk off the EDT
+            runInBackground(() -> {
                 try (java.io.FileOutputStream fos = new java.io.FileOutputStream(file)) {
-                    fos.write(job.getDocumentContent());
+                    job.getDocument().copyTo(fos);
+                    return null;
+                } catch (java.io.IOException ex) {
+                    return ex.getMessage();
+                }
+            }, error -> {
+                if (error == null) {
                     JOptionPane.showMessageDialog(this,
                         "File downloaded successfully!",
                         "Download Complete",
                         JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Error saving file: " + error,
+                        "Download Error",
+                        JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this,
-                    "Error saving file: " + ex.getMessage(),
-                    "Download Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
@@ -319,42 +561,32 @@ public class OperatorPortal extends JFrame {
     }
 
     private void updateQueueTable(List<PrintJob> jobs) {
-        queueModel.setRowCount(0);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        
-        for (PrintJob job : jobs) {
-            queueModel.addRow(new Object[]{
-                job.getJobId(),
-                job.getFullName(),
-                job.getDocumentName(),
-                job.getPageCount(),
-                job.getNumCopies(),
-                String.format("$%.2f", job.getTotalCost()),
-                job.getPaymentStatus(),
-                job.getJobStatus(),
-                job.getSubmittedAt().toLocalDateTime().format(formatter),
-                "Download"  // This will be replaced by our button renderer
-            });
+        // Lane and printer labels depend on the scheduler and chunks, so they are resolved here
+        String[] lanes = new String[jobs.size()];
+        String[] printers = new String[jobs.size()];
+        for (int i = 0; i < jobs.size(); i++) {
+            lanes[i] = queueService.getLaneLabel(jobs.get(i));
+            printers[i] = printerLabel(jobs.get(i));
         }
+        
+        Map<JobTableModel.Column, String[]> labels = new HashMap<>();
+        labels.put(JobTableModel.Column.LANE, lanes);
+        labels.put(JobTableModel.Column.PRINTER, printers);
+        queueModel.setSnapshot(JobSnapshot.of(jobs), labels);
     }
 
-    private void updateCompletedTable(List<PrintJob> jobs) {
-        completedModel.setRowCount(0);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        
-        for (PrintJob job : jobs) {
-            completedModel.addRow(new Object[]{
-                job.getJobId(),
-                job.getFullName(),
-                job.getDocumentName(),
-                job.getPageCount(),
-                job.getNumCopies(),
-                String.format("$%.2f", job.getTotalCost()),
-                job.getPaymentStatus(),
-                job.getJobStatus(),
-                job.getCompletedAt().toLocalDateTime().format(formatter)
-            });
+    private String printerLabel(PrintJob job) {
+        List<PrintJobChunk> chunks = queueChunks.get(job.getJobId());
+        if (chunks != null) {
+            StringBuilder label = new StringBuilder("Split: ");
+            for (int i = 0; i < chunks.size(); i++) {
+                Integer printerId = chunks.get(i).getPrinterId();
+                label.append(i == 0 ? "" : ", ")
+                     .append(printerId != null ? printerNames.getOrDefault(printerId, "#" + printerId) : "?");
+            }
+            return label.toString();
         }
+        return job.getPrinterId() != null ? printerNames.getOrDefault(job.getPrinterId(), "#" + job.getPrinterId()) : "Unassigned";
     }
 
     private void processSelectedJob(JTable table) {
@@ -368,8 +600,30 @@ public class OperatorPortal extends JFrame {
         }
 
         int jobId = (int) table.getValueAt(selectedRow, 0);
-        PrintJob job = printJobDAO.getJobById(jobId);
-        
+        runInBackground(() -> loadJobCheck(jobId), this::checkJobForProcessing);
+    }
+
+    /**
+     * Everything processSelectedJob needs to know about a job before claiming it
+     */
+    private static class JobCheck {
+        PrintJob job;
+        boolean held;
+        List<PrintJobChunk> chunks = new ArrayList<>();
+    }
+
+    private JobCheck loadJobCheck(int jobId) {
+        JobCheck check = new JobCheck();
+        check.job = printJobDAO.getJobById(jobId);
+        if (check.job != null) {
+            check.held = paymentService.hasActiveHold(jobId);
+            check.chunks = chunkDAO.getChunksByJobId(jobId);
+        }
+        return check;
+    }
+
+    private void checkJobForProcessing(JobCheck check) {
+        PrintJob job = check.job;
         if (job == null) {
             JOptionPane.showMessageDialog(this,
                 "Could not find the selected job.",
@@ -386,7 +640,11 @@ public class OperatorPortal extends JFrame {
             return;
         }
 
-        if (job.getPaymentStatus() == PaymentStatus.UNPAID) {
+        // POSTPAID jobs are printed first and collected by the nightly settlement run;
+        // PREPAID jobs need funds held for them
+        boolean awaitingCapture = job.getPaymentStatus() == PaymentStatus.UNPAID
+                && job.getPaymentType() == PaymentType.PREPAID;
+        if (awaitingCapture && !check.held) {
             JOptionPane.showMessageDialog(this,
                 "Payment must be processed before printing.",
                 "Payment Required",
@@ -394,20 +652,139 @@ public class OperatorPortal extends JFrame {
             return;
         }
 
+        // Split jobs are completed chunk by chunk
+        if (!check.chunks.isEmpty()) {
+            processChunk(job, check.chunks);
+            return;
+        }
+
+        // Claim the job first so no other station can process it at the same time
+        runInBackground(() -> leaseManager.claimJob(job.getJobId()), claimed -> confirmProcessJob(job, claimed));
+    }
+
+    private void confirmProcessJob(PrintJob job, boolean claimed) {
+        if (!claimed) {
+            refreshData();
+            JOptionPane.showMessageDialog(this,
+                "This job is being handled by another operator station or is part of a spool batch.",
+                "Job Claimed",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
         int confirm = JOptionPane.showConfirmDialog(this,
             "Are you sure you want to mark this job as completed?",
             "Confirm Process",
             JOptionPane.YES_NO_OPTION);
             
-        if (confirm == JOptionPane.YES_OPTION) {
-            printJobDAO.updateJobStatus(job.getJobId(), JobStatus.COMPLETED, currentUser.getUserId());
+        if (confirm != JOptionPane.YES_OPTION) {
+            // Only give back jobs that were free when selected; keep jobs claimed earlier
+            runInBackground(() -> {
+                if (job.getJobStatus() == JobStatus.PENDING) {
+                    leaseManager.releaseJob(job.getJobId());
+                }
+                return null;
+            }, released -> refreshData());
+            return;
+        }
+
+        // Completion and capture of the held payment commit together
+        runInBackground(() -> {
+            if (!leaseManager.completeJob(job.getJobId())) {
+                return false;
+            }
+            EtaEngine.getInstance().recordCompletion(job, currentUser.getUserId());
+            return true;
+        }, completed -> {
             refreshData();
-            
+            if (completed) {
+                JOptionPane.showMessageDialog(this,
+                    "Job has been marked as completed.",
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                    "The job could not be completed. Its claim may have expired and been taken by another station.",
+                    "Not Completed",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    private void claimNextJobs() {
+        runInBackground(() -> leaseManager.claimNextJobs(CLAIM_BATCH_SIZE), this::showClaimedJobs);
+    }
+
+    private void showClaimedJobs(List<PrintJob> claimed) {
+        refreshData();
+
+        if (claimed.isEmpty()) {
             JOptionPane.showMessageDialog(this,
-                "Job has been marked as completed.",
-                "Success",
+                "There are no unclaimed jobs waiting.",
+                "Nothing to Claim",
                 JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        StringBuilder message = new StringBuilder("Claimed for this station:\n");
+        for (PrintJob job : claimed) {
+            message.append("  #").append(job.getJobId()).append("  ").append(job.getDocumentName())
+                   .append(" (").append(job.getPageCount() * job.getNumCopies()).append(" sheets)\n");
         }
+        JOptionPane.showMessageDialog(this, message.toString(), "Jobs Claimed", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void processChunk(PrintJob job, List<PrintJobChunk> chunks) {
+        List<PrintJobChunk> pending = new ArrayList<>();
+        for (PrintJobChunk chunk : chunks) {
+            if (chunk.getChunkStatus() == ChunkStatus.PENDING) {
+                pending.add(chunk);
+            }
+        }
+        if (pending.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "All chunks of this job have already been printed.",
+                "Invalid Action",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String[] options = new String[pending.size()];
+        for (int i = 0; i < pending.size(); i++) {
+            Integer printerId = pending.get(i).getPrinterId();
+            options[i] = pending.get(i) + " on " +
+                (printerId != null ? printerNames.getOrDefault(printerId, "#" + printerId) : "no printer yet");
+        }
+
+        Object choice = JOptionPane.showInputDialog(this,
+            "Job #" + job.getJobId() + " is split across printers.\nSelect the chunk that has been printed:",
+            "Complete Chunk",
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            options,
+            options[0]);
+        if (choice == null) {
+            return;
+        }
+
+        PrintJobChunk chunk = pending.get(java.util.Arrays.asList(options).indexOf(choice));
+        runInBackground(() -> dispatchService.completeChunk(chunk.getChunkId(), currentUser.getUserId()),
+            completed -> {
+                refreshData();
+
+                if (completed) {
+                    JOptionPane.showMessageDialog(this,
+                        chunk + " has been marked as printed." +
+                        (pending.size() == 1 ? "\nJob #" + job.getJobId() + " is now completed." : ""),
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "The chunk could not be completed. It may already have been printed.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            });
     }
 
     private void cancelSelectedJob(JTable table) {
@@ -421,8 +798,10 @@ public class OperatorPortal extends JFrame {
         }
 
         int jobId = (int) table.getValueAt(selectedRow, 0);
-        PrintJob job = printJobDAO.getJobById(jobId);
-        
+        runInBackground(() -> printJobDAO.getJobById(jobId), this::confirmCancelJob);
+    }
+
+    private void confirmCancelJob(PrintJob job) {
         if (job == null) {
             JOptionPane.showMessageDialog(this,
                 "Could not find the selected job.",
@@ -443,35 +822,292 @@ public class OperatorPortal extends JFrame {
             "Are you sure you want to cancel this job?\nThis action cannot be undone.",
             "Confirm Cancellation",
             JOptionPane.YES_NO_OPTION);
-            
-        if (confirm == JOptionPane.YES_OPTION) {
-            // If job was paid, create a refund transaction
-            if (job.getPaymentStatus() == PaymentStatus.PAID) {
-                // Get current user balance for the transaction
-                User student = userDAO.getUserById(job.getUserId());
-                double currentBalance = student.getWalletBalance();
-                double refundAmount = job.getTotalCost();
-                Transaction refund = new Transaction(
-                    job.getUserId(),
-                    TransactionType.REFUND,
-                    refundAmount,
-                    currentBalance,
-                    currentBalance + refundAmount,
-                    "Refund for cancelled job #" + job.getJobId()
-                );
-                transactionDAO.createTransaction(refund);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        // Cancel only the version shown in the dialog; the hold release or refund commits with it
+        runInBackground(() -> bulkCancellationService.cancelJob(job.getJobId(), job.getVersion(), currentUser.getUserId()),
+            cancelled -> {
+                refreshData();
+                if (cancelled) {
+                    JOptionPane.showMessageDialog(this,
+                        "Job has been cancelled and any payment has been refunded.",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "The job could not be cancelled. It may have been changed by another operator while you were confirming. Please review it and try again.",
+                        "Not Cancelled",
+                        JOptionPane.WARNING_MESSAGE);
+                }
+            });
+    }
+
+    private void applyToSelectedJobs(JTable table, BatchJobService.Action presetAction) {
+        int[] selectedRows = table.getSelectedRows();
+        if (selectedRows.length == 0) {
+            JOptionPane.showMessageDialog(this,
+                "Please select one or more jobs.",
+                "No Selection",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        List<Integer> jobIds = new ArrayList<>();
+        for (int row : selectedRows) {
+            jobIds.add((Integer) table.getValueAt(row, 0));
+        }
+
+        BatchJobService.Action action = presetAction != null ? presetAction
+            : (BatchJobService.Action) JOptionPane.showInputDialog(this,
+                "Action for the " + jobIds.size() + " selected job(s):",
+                "Selected Jobs",
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                BatchJobService.Action.values(),
+                BatchJobService.Action.COMPLETE);
+        if (action == null) {
+            return;
+        }
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+            action + " " + jobIds.size() + " job(s)?",
+            "Confirm " + action,
+            JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        new SwingWorker<BatchActionReport, Void>() {
+            @Override
+            protected BatchActionReport doInBackground() {
+                return batchJobService.apply(action, jobIds, currentUser.getUserId());
             }
-            
-            printJobDAO.updateJobStatus(job.getJobId(), JobStatus.CANCELLED, currentUser.getUserId());
-            refreshData();
-            
+
+            @Override
+            protected void done() {
+                refreshData();
+                try {
+                    showBatchActionReport(action, get());
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(OperatorPortal.this,
+                        action + " failed: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void showBatchActionReport(BatchJobService.Action action, BatchActionReport report) {
+        StringBuilder message = new StringBuilder();
+        message.append("Done: ").append(report.getSucceeded())
+               .append("\nSkipped: ").append(report.getSkipped())
+               .append("\nFailed: ").append(report.getFailed());
+
+        if (report.getSkipped() + report.getFailed() == 0) {
+            JOptionPane.showMessageDialog(this, message.toString(), action + " Complete",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        StringBuilder details = new StringBuilder();
+        for (BatchActionReport.JobResult result : report.getResults()) {
+            if (result.getOutcome() != BatchActionReport.Outcome.DONE) {
+                details.append(result).append('\n');
+            }
+        }
+        JTextArea detailArea = new JTextArea(details.toString(), 10, 40);
+        detailArea.setEditable(false);
+
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.add(new JLabel("<html>" + message.toString().replace("\n", "<br>") + "</html>"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(detailArea), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, panel, action + " Complete", JOptionPane.WARNING_MESSAGE);
+    }
+
+    private void bulkCancelJobs() {
+        runInBackground(printerDAO::getAllPrinters, this::showBulkCancelDialog);
+    }
+
+    private void showBulkCancelDialog(List<Printer> printers) {
+        JSpinner minutesSpinner = new JSpinner(new SpinnerNumberModel(60, 0, 7 * 24 * 60, 15));
+        JCheckBox pendingBox = new JCheckBox("Pending", true);
+        JCheckBox processingBox = new JCheckBox("Processing", true);
+        JComboBox<Object> printerBox = new JComboBox<>();
+        printerBox.addItem("All printers");
+        for (Printer printer : printers) {
+            printerBox.addItem(printer);
+        }
+
+        JPanel form = new JPanel(new GridLayout(0, 1, 5, 5));
+        form.add(new JLabel("Cancel jobs submitted in the last N minutes (0 = any time):"));
+        form.add(minutesSpinner);
+        form.add(new JLabel("Printer:"));
+        form.add(printerBox);
+        form.add(pendingBox);
+        form.add(processingBox);
+
+        int confirm = JOptionPane.showConfirmDialog(this, form,
+            "Bulk Cancel Jobs", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (confirm != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        Set<JobStatus> statuses = EnumSet.noneOf(JobStatus.class);
+        if (pendingBox.isSelected()) {
+            statuses.add(JobStatus.PENDING);
+        }
+        if (processingBox.isSelected()) {
+            statuses.add(JobStatus.PROCESSING);
+        }
+        if (statuses.isEmpty()) {
             JOptionPane.showMessageDialog(this,
-                "Job has been cancelled and any payment has been refunded.",
-                "Success",
+                "Please select at least one job status.",
+                "No Status Selected",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        JobFilter filter = new JobFilter();
+        filter.setStatuses(statuses);
+        int minutes = (Integer) minutesSpinner.getValue();
+        if (minutes > 0) {
+            filter.setSubmittedFrom(new java.sql.Timestamp(System.currentTimeMillis() - minutes * 60_000L));
+        }
+        if (printerBox.getSelectedItem() instanceof Printer) {
+            filter.setPrinterId(((Printer) printerBox.getSelectedItem()).getPrinterId());
+        }
+
+        JDialog progressDialog = new JDialog(this, "Cancelling Jobs", false);
+        JLabel progressLabel = new JLabel("Starting...");
+        progressLabel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        progressDialog.add(progressLabel);
+        progressDialog.setSize(380, 100);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+
+        new SwingWorker<BulkCancellationReport, String>() {
+            @Override
+            protected BulkCancellationReport doInBackground() {
+                return bulkCancellationService.cancelJobs(filter, currentUser.getUserId(),
+                    report -> publish(report.getJobsCancelled() + " cancelled, " +
+                                      report.getFailedJobIds().size() + " failed so far..."));
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                progressLabel.setText(chunks.get(chunks.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                refreshData();
+                try {
+                    BulkCancellationReport report = get();
+                    JOptionPane.showMessageDialog(OperatorPortal.this,
+                        "Jobs cancelled: " + report.getJobsCancelled() +
+                        "\nHolds released: " + report.getHoldsReleased() +
+                        "\nRefunds issued: " + report.getRefundsIssued() +
+                        " (" + Money.format(report.getTotalRefunded()) + ")" +
+                        "\nFailed jobs: " + report.getFailedJobIds().size(),
+                        "Bulk Cancellation Complete",
+                        report.getFailedJobIds().isEmpty()
+                            ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(OperatorPortal.this,
+                        "Bulk cancellation failed: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void spoolSmallJobs() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Spool Batch");
+        fileChooser.setSelectedFile(new File("spool-batch.zip"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File chosen = fileChooser.getSelectedFile();
+        File file = chosen.getName().toLowerCase().endsWith(".zip") ? chosen : new File(chosen.getPath() + ".zip");
+
+        // The batch documents are read from the database and zipped off the EDT
+        runInBackground(() -> spoolBatcher.createBatch(currentUser.getUserId(), file),
+            batch -> showSpoolBatch(batch, file));
+    }
+
+    private void showSpoolBatch(SpoolBatch batch, File file) {
+        refreshData();
+
+        if (batch == null) {
+            JOptionPane.showMessageDialog(this,
+                "There are not enough small pending jobs to batch right now.",
+                "Nothing to Batch",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+            batch + " saved to " + file.getName() + ".\n" +
+            "Print it, then choose Yes to mark every job in the batch as completed.\n" +
+            "Choose No to complete it later with Complete Batch.",
+            "Spool Batch Created",
+            JOptionPane.YES_NO_OPTION);
+        if (confirm == JOptionPane.YES_OPTION) {
+            finishSpoolBatch(batch.getBatchId());
+        }
+    }
+
+    private void completeSpoolBatch() {
+        runInBackground(spoolBatchDAO::getOpenBatches, this::selectSpoolBatch);
+    }
+
+    private void selectSpoolBatch(List<SpoolBatch> batches) {
+        if (batches.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "There are no spool batches waiting to be completed.",
+                "No Open Batches",
                 JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        SpoolBatch selected = (SpoolBatch) JOptionPane.showInputDialog(this,
+            "Select the printed batch:",
+            "Complete Batch",
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            batches.toArray(),
+            batches.get(0));
+        if (selected != null) {
+            finishSpoolBatch(selected.getBatchId());
         }
     }
 
+    private void finishSpoolBatch(int batchId) {
+        runInBackground(() -> spoolBatcher.completeBatch(batchId, currentUser.getUserId()),
+            completed -> {
+                refreshData();
+
+                if (completed >= 0) {
+                    JOptionPane.showMessageDialog(this,
+                        completed + " job(s) in batch #" + batchId + " marked as completed.",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Batch #" + batchId + " could not be completed. Please try again.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            });
+    }
+
     private class StatusColumnRenderer extends DefaultTableCellRenderer {
         @Override
         public Component getTableCellRendererComponent(
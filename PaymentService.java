@@ -1,9 +1,27 @@
 package services;
 
+import dao.PrintJobDAO;
 import dao.TransactionDAO;
 import dao.UserDAO;
+import dao.WalletHoldDAO;
+import database.DatabaseConnection;
+import models.Money;
+import models.PrintJob.PaymentStatus;
 import models.Transaction;
 import models.Transaction.TransactionType;
+import models.WalletHold;
+import models.WalletHold.HoldStatus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Service class for handling payment operations
@@ -12,10 +30,14 @@ import models.Transaction.TransactionType;
 public class PaymentService {
     private UserDAO userDAO;
     private TransactionDAO transactionDAO;
+    private WalletHoldDAO walletHoldDAO;
+    private PrintJobDAO printJobDAO;
     
     public PaymentService() {
         this.userDAO = new UserDAO();
         this.transactionDAO = new TransactionDAO();
+        this.walletHoldDAO = new WalletHoldDAO();
+        this.printJobDAO = new PrintJobDAO();
     }
     
     /**
@@ -23,166 +45,426 @@ public class PaymentService {
      * Creates a transaction record and updates wallet balance
      * 
      * @param userId User ID
-     * @param amount Amount to add
+     * @param amount Amount to add in paise
      * @return true if successful, false otherwise
      */
-    public synchronized boolean rechargeWallet(int userId, double amount) {
+    public boolean rechargeWallet(int userId, long amount) {
+        return rechargeWallet(userId, amount, null);
+    }
+    
+    /**
+     * Recharge wallet with a client-generated idempotency key
+     * Retrying with the same key returns success without crediting again
+     * 
+     * @param userId User ID
+     * @param amount Amount to add in paise
+     * @param idempotencyKey Key identifying this recharge attempt (null for none)
+     * @return true if the wallet has been credited for this key, false otherwise
+     */
+    public boolean rechargeWallet(int userId, long amount, String idempotencyKey) {
         if (amount <= 0) {
-            System.err.println("Invalid recharge amount: " + amount);
+            System.err.println("Invalid recharge amount: " + Money.formatPlain(amount));
             return false;
         }
         
-        // Get current balance
-        double currentBalance = userDAO.getWalletBalance(userId);
-        if (currentBalance < 0) {
+        return applyLedgerEntry(userId, null, TransactionType.WALLET_RECHARGE, amount,
+                               "Wallet recharge of " + Money.format(amount), idempotencyKey);
+    }
+    
+    /**
+     * Process payment for a print job
+     * Deducts amount from wallet and creates transaction record. A job is
+     * charged at most once; repeating the call returns the original result.
+     * 
+     * @param userId User ID
+     * @param jobId Job ID
+     * @param amount Amount to deduct in paise
+     * @return true if successful, false otherwise
+     */
+    public boolean processPayment(int userId, int jobId, long amount) {
+        if (amount <= 0) {
+            System.err.println("Invalid payment amount: " + Money.formatPlain(amount));
             return false;
         }
         
-        // Update wallet balance
-        if (userDAO.updateWalletBalance(userId, amount)) {
-            double newBalance = currentBalance + amount;
-            
-            // Create transaction record
-            Transaction transaction = new Transaction(
-                userId,
-                TransactionType.WALLET_RECHARGE,
-                amount,
-                currentBalance,
-                newBalance,
-                "Wallet recharge of ₹" + String.format("%.2f", amount)
-            );
-            
-            int transactionId = transactionDAO.createTransaction(transaction);
-            return transactionId > 0;
-        }
-        
-        return false;
+        return applyLedgerEntry(userId, jobId, TransactionType.PAYMENT, -amount,
+                               "Payment for print job #" + jobId, jobLedgerKey(TransactionType.PAYMENT, jobId));
     }
     
     /**
-     * Process payment for a print job
-     * Deducts amount from wallet and creates transaction record
+     * Authorize payment for a prepaid print job
+     * Places a hold on the funds without touching the wallet balance. Calling this
+     * again for a job that already has a hold is a no-op.
      * 
      * @param userId User ID
      * @param jobId Job ID
-     * @param amount Amount to deduct
-     * @return true if successful, false otherwise
+     * @param amount Amount to hold in paise
+     * @return true if the funds are held for the job, false otherwise
      */
-    public synchronized boolean processPayment(int userId, int jobId, double amount) {
+    public boolean authorizePayment(int userId, int jobId, long amount) {
         if (amount <= 0) {
-            System.err.println("Invalid payment amount: " + amount);
+            System.err.println("Invalid payment amount: " + Money.formatPlain(amount));
             return false;
         }
         
-        // Get current balance
-        double currentBalance = userDAO.getWalletBalance(userId);
-        if (currentBalance < 0) {
+        WalletHold existing = walletHoldDAO.getHoldByJobId(jobId);
+        if (existing != null) {
+            return existing.getHoldStatus() == HoldStatus.HELD && existing.getAmount() == amount;
+        }
+        
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            
+            // Insert the hold first; the unique job_id rejects a concurrent second authorization
+            walletHoldDAO.createHold(conn, new WalletHold(userId, jobId, amount));
+            
+            if (!userDAO.reserveFunds(conn, userId, amount)) {
+                conn.rollback();
+                System.err.println("Insufficient available balance for job #" + jobId +
+                                   ", Required: " + Money.formatPlain(amount));
+                return false;
+            }
+            
+            conn.commit();
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error authorizing payment: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
         }
+    }
+    
+    /**
+     * Capture the held funds for a completed print job
+     * Debits the wallet, clears the hold, records the PAYMENT transaction and
+     * marks the job PAID in one database transaction
+     * 
+     * @param jobId Job ID
+     * @return true if captured (or already captured), false otherwise
+     */
+    public boolean capturePayment(int jobId) {
+        Connection conn = null;
         
-        // Check if sufficient balance
-        if (currentBalance < amount) {
-            System.err.println("Insufficient balance. Current: " + currentBalance + ", Required: " + amount);
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            
+            WalletHold hold = walletHoldDAO.lockHoldByJobId(conn, jobId);
+            if (hold == null || hold.getHoldStatus() != HoldStatus.HELD) {
+                conn.rollback();
+                return hold != null && hold.getHoldStatus() == HoldStatus.CAPTURED;
+            }
+            
+            capturePayments(conn, Collections.singletonList(jobId));
+            
+            conn.commit();
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error capturing payment: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Capture the held funds for a group of completed jobs on the caller's connection
+     * Jobs without an active hold (POSTPAID or already captured) are skipped. Wallets
+     * are locked in user order and each user's payments are chained in job order.
+     * A job whose PAYMENT row is already in the ledger has its hold cleared without
+     * debiting the wallet again.
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Completed job IDs
+     * @return Number of holds captured
+     * @throws SQLException if any statement fails
+     */
+    public int capturePayments(Connection conn, List<Integer> jobIds) throws SQLException {
+        List<WalletHold> holds = walletHoldDAO.lockActiveHolds(conn, jobIds);
+        if (holds.isEmpty()) {
+            return 0;
         }
         
-        // Deduct amount from wallet
-        if (userDAO.updateWalletBalance(userId, -amount)) {
-            double newBalance = currentBalance - amount;
+        Set<Integer> userIds = new TreeSet<>();
+        for (WalletHold hold : holds) {
+            userIds.add(hold.getUserId());
+        }
+        Map<Integer, Long> balances = userDAO.lockWalletBalances(conn, userIds);
+        Map<Integer, Long> captured = new TreeMap<>();
+        List<Transaction> payments = new ArrayList<>();
+        List<Integer> holdIds = new ArrayList<>();
+        List<Integer> paidJobIds = new ArrayList<>();
+        
+        List<String> keys = new ArrayList<>();
+        for (WalletHold hold : holds) {
+            keys.add(jobLedgerKey(TransactionType.PAYMENT, hold.getJobId()));
+        }
+        Set<String> usedKeys = transactionDAO.findUsedIdempotencyKeys(conn, keys);
+        
+        for (WalletHold hold : holds) {
+            Long balance = balances.get(hold.getUserId());
+            if (balance == null) {
+                throw new SQLException("No wallet for user #" + hold.getUserId());
+            }
+            captured.merge(hold.getUserId(), hold.getAmount(), Long::sum);
+            holdIds.add(hold.getHoldId());
+            paidJobIds.add(hold.getJobId());
             
-            // Create transaction record
-            Transaction transaction = new Transaction(
-                userId,
+            String key = jobLedgerKey(TransactionType.PAYMENT, hold.getJobId());
+            if (usedKeys.contains(key)) {
+                // Already charged; only the hold is left to clear
+                continue;
+            }
+            long newBalance = balance - hold.getAmount();
+            balances.put(hold.getUserId(), newBalance);
+            
+            Transaction payment = new Transaction(
+                hold.getUserId(),
                 TransactionType.PAYMENT,
-                amount,
-                currentBalance,
+                hold.getAmount(),
+                balance,
                 newBalance,
-                "Payment for print job #" + jobId
+                "Payment for print job #" + hold.getJobId()
             );
-            transaction.setJobId(jobId);
-            
-            int transactionId = transactionDAO.createTransaction(transaction);
-            return transactionId > 0;
+            payment.setJobId(hold.getJobId());
+            payment.setIdempotencyKey(key);
+            payments.add(payment);
+        }
+        
+        for (Map.Entry<Integer, Long> entry : captured.entrySet()) {
+            userDAO.captureHeldFunds(conn, entry.getKey(), balances.get(entry.getKey()), entry.getValue());
         }
+        walletHoldDAO.markCaptured(conn, holdIds);
+        transactionDAO.insertTransactions(conn, payments);
+        printJobDAO.updatePaymentStatus(conn, paidJobIds, PaymentStatus.PAID);
         
-        return false;
+        return holds.size();
+    }
+    
+    /**
+     * Release the held funds for a cancelled print job
+     * The wallet balance was never debited, so no refund transaction is needed
+     * 
+     * @param jobId Job ID
+     * @return true if a hold was released, false if the job had no active hold
+     */
+    public boolean releaseHold(int jobId) {
+        return walletHoldDAO.releaseHold(jobId);
+    }
+    
+    /**
+     * Check whether a job has funds held for it
+     * 
+     * @param jobId Job ID
+     * @return true if the job has an uncaptured, unreleased hold
+     */
+    public boolean hasActiveHold(int jobId) {
+        WalletHold hold = walletHoldDAO.getHoldByJobId(jobId);
+        return hold != null && hold.getHoldStatus() == HoldStatus.HELD;
     }
     
     /**
      * Process refund for a cancelled job
-     * Adds amount back to wallet and creates transaction record
+     * Adds amount back to wallet and creates transaction record. A job is
+     * refunded at most once; repeating the call returns the original result.
      * 
      * @param userId User ID
      * @param jobId Job ID
-     * @param amount Amount to refund
+     * @param amount Amount to refund in paise
      * @return true if successful, false otherwise
      */
-    public synchronized boolean processRefund(int userId, int jobId, double amount) {
+    public boolean processRefund(int userId, int jobId, long amount) {
         if (amount <= 0) {
-            System.err.println("Invalid refund amount: " + amount);
+            System.err.println("Invalid refund amount: " + Money.formatPlain(amount));
             return false;
         }
         
-        // Get current balance
-        double currentBalance = userDAO.getWalletBalance(userId);
-        if (currentBalance < 0) {
-            return false;
+        return applyLedgerEntry(userId, jobId, TransactionType.REFUND, amount,
+                               "Refund for cancelled job #" + jobId, jobLedgerKey(TransactionType.REFUND, jobId));
+    }
+    
+    /**
+     * Idempotency key for the single ledger entry of a given type a job may have
+     * 
+     * @param type Transaction type
+     * @param jobId Job ID
+     * @return Deterministic key, e.g. "PAYMENT:42"
+     */
+    public static String jobLedgerKey(TransactionType type, int jobId) {
+        return type.name() + ":" + jobId;
+    }
+    
+    /**
+     * Apply a wallet change and its ledger row in one database transaction
+     * The ledger row is inserted before the balance is written, so a reused
+     * idempotency key aborts the whole change and is reported as success
+     * 
+     * @param userId User ID
+     * @param jobId Related job ID or null
+     * @param type Transaction type
+     * @param delta Signed balance change in paise
+     * @param description Ledger description
+     * @param idempotencyKey Key for the ledger row (null for none)
+     * @return true if applied now or previously under the same key, false otherwise
+     */
+    private boolean applyLedgerEntry(int userId, Integer jobId, TransactionType type, long delta,
+                                     String description, String idempotencyKey) {
+        if (idempotencyKey != null && transactionDAO.getTransactionByIdempotencyKey(idempotencyKey) != null) {
+            return true;
         }
         
-        // Add refund amount to wallet
-        if (userDAO.updateWalletBalance(userId, amount)) {
-            double newBalance = currentBalance + amount;
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            
+            List<Integer> userIds = Collections.singletonList(userId);
+            Long currentBalance = userDAO.lockWalletBalances(conn, userIds).get(userId);
+            if (currentBalance == null) {
+                conn.rollback();
+                return false;
+            }
+            
+            long newBalance = currentBalance + delta;
+            if (delta < 0) {
+                // Deductions may not spend funds held for pending jobs
+                long heldBalance = userDAO.getHeldBalances(conn, userIds).getOrDefault(userId, 0L);
+                if (newBalance < heldBalance) {
+                    conn.rollback();
+                    System.err.println("Insufficient balance. Available: " +
+                                       Money.formatPlain(currentBalance - heldBalance) +
+                                       ", Required: " + Money.formatPlain(-delta));
+                    return false;
+                }
+            }
             
-            // Create transaction record
             Transaction transaction = new Transaction(
                 userId,
-                TransactionType.REFUND,
-                amount,
+                type,
+                Math.abs(delta),
                 currentBalance,
                 newBalance,
-                "Refund for cancelled job #" + jobId
+                description
             );
             transaction.setJobId(jobId);
+            transaction.setIdempotencyKey(idempotencyKey);
+            transactionDAO.insertTransactions(conn, Collections.singletonList(transaction));
+            userDAO.setWalletBalances(conn, Collections.singletonMap(userId, newBalance));
             
-            int transactionId = transactionDAO.createTransaction(transaction);
-            return transactionId > 0;
+            conn.commit();
+            return true;
+            
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // A concurrent retry with the same key already applied this change
+            rollbackQuietly(conn);
+            return idempotencyKey != null;
+        } catch (SQLException e) {
+            System.err.println("Error applying " + type + " for user " + userId + ": " + e.getMessage());
+            e.printStackTrace();
+            rollbackQuietly(conn);
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
         }
-        
-        return false;
     }
     
     /**
-     * Check if user has sufficient balance for a payment
+     * Check if user has sufficient available balance for a payment
+     * Funds held for pending jobs are not available
      * 
      * @param userId User ID
-     * @param amount Required amount
+     * @param amount Required amount in paise
      * @return true if sufficient balance, false otherwise
      */
-    public boolean hasSufficientBalance(int userId, double amount) {
-        double currentBalance = userDAO.getWalletBalance(userId);
-        return currentBalance >= amount;
+    public boolean hasSufficientBalance(int userId, long amount) {
+        long availableBalance = userDAO.getAvailableBalance(userId);
+        return availableBalance >= amount;
     }
     
     /**
      * Get current wallet balance
      * 
      * @param userId User ID
-     * @return Current balance
+     * @return Current balance in paise
      */
-    public double getWalletBalance(int userId) {
+    public long getWalletBalance(int userId) {
         return userDAO.getWalletBalance(userId);
     }
     
+    /**
+     * Get balance available for new payments
+     * 
+     * @param userId User ID
+     * @return Wallet balance minus active holds in paise
+     */
+    public long getAvailableBalance(int userId) {
+        return userDAO.getAvailableBalance(userId);
+    }
+    
     /**
      * Calculate print cost based on pages and copies
      * Cost: ₹2 per page
      * 
      * @param pageCount Number of pages
      * @param numCopies Number of copies
-     * @return Total cost
+     * @return Total cost in paise
      */
-    public static double calculatePrintCost(int pageCount, int numCopies) {
-        final double COST_PER_PAGE = 2.00;
-        return pageCount * numCopies * COST_PER_PAGE;
+    public static long calculatePrintCost(int pageCount, int numCopies) {
+        final long COST_PER_PAGE = Money.ofRupees(2);
+        return Math.multiplyExact((long) pageCount * numCopies, COST_PER_PAGE);
     }
 }
@@ -9,27 +9,55 @@ public class PrintJob {
     private int jobId;
     private int userId;
     private String documentName;
-    private byte[] documentContent;
+    private DocumentHandle document;
     private String documentPath;
     private int pageCount;
     private int numCopies;
-    private double totalCost;
+    private long totalCost; // in paise
     private JobStatus jobStatus;
     private PaymentStatus paymentStatus;
     private PaymentType paymentType;
     private int queuePosition;
+    private Timestamp predictedStart;
+    private Timestamp predictedFinish;
     private Timestamp submittedAt;
     private Timestamp startedAt;
     private Timestamp completedAt;
+    private Timestamp neededBy;
     private Integer operatorId;
+    private Integer printerId;
+    private Integer spoolBatchId;
+    private String leaseOwner;
+    private Timestamp leaseExpiresAt;
     private String notes;
+    private String idempotencyKey;
+    private int version;
     
     // Additional fields for display purposes
     private String username;
     private String fullName;
     
     public enum JobStatus {
-        PENDING, PROCESSING, COMPLETED, CANCELLED
+        PENDING, PROCESSING, COMPLETED, CANCELLED;
+        
+        /**
+         * Whether a job in this status may move to the given status
+         * COMPLETED and CANCELLED are final; a PROCESSING job may go back to PENDING
+         * when its lease expires or its printer fails
+         * 
+         * @param next Target status
+         * @return true if the transition is allowed
+         */
+        public boolean canTransitionTo(JobStatus next) {
+            switch (this) {
+                case PENDING:
+                    return next == PROCESSING || next == COMPLETED || next == CANCELLED;
+                case PROCESSING:
+                    return next == PENDING || next == COMPLETED || next == CANCELLED;
+                default:
+                    return false;
+            }
+        }
     }
     
     public enum PaymentStatus {
@@ -44,7 +72,7 @@ public class PrintJob {
     public PrintJob() {}
     
     public PrintJob(int userId, String documentName, int pageCount, int numCopies, 
-                    double totalCost, PaymentType paymentType) {
+                    long totalCost, PaymentType paymentType) {
         this.userId = userId;
         this.documentName = documentName;
         this.pageCount = pageCount;
@@ -52,7 +80,45 @@ public class PrintJob {
         this.totalCost = totalCost;
         this.paymentType = paymentType;
         this.jobStatus = JobStatus.PENDING;
-        this.paymentStatus = (paymentType == PaymentType.PREPAID) ? PaymentStatus.PAID : PaymentStatus.UNPAID;
+        // PREPAID jobs are held at submission and only become PAID when the hold is captured
+        this.paymentStatus = PaymentStatus.UNPAID;
+    }
+    
+    /**
+     * Copy of another job, e.g. so a shared queue snapshot can be annotated per caller
+     * The document handle and timestamps are shared; they are not changed in place.
+     * 
+     * @param other Job to copy
+     */
+    public PrintJob(PrintJob other) {
+        this.jobId = other.jobId;
+        this.userId = other.userId;
+        this.documentName = other.documentName;
+        this.document = other.document;
+        this.documentPath = other.documentPath;
+        this.pageCount = other.pageCount;
+        this.numCopies = other.numCopies;
+        this.totalCost = other.totalCost;
+        this.jobStatus = other.jobStatus;
+        this.paymentStatus = other.paymentStatus;
+        this.paymentType = other.paymentType;
+        this.queuePosition = other.queuePosition;
+        this.predictedStart = other.predictedStart;
+        this.predictedFinish = other.predictedFinish;
+        this.submittedAt = other.submittedAt;
+        this.startedAt = other.startedAt;
+        this.completedAt = other.completedAt;
+        this.neededBy = other.neededBy;
+        this.operatorId = other.operatorId;
+        this.printerId = other.printerId;
+        this.spoolBatchId = other.spoolBatchId;
+        this.leaseOwner = other.leaseOwner;
+        this.leaseExpiresAt = other.leaseExpiresAt;
+        this.notes = other.notes;
+        this.idempotencyKey = other.idempotencyKey;
+        this.version = other.version;
+        this.username = other.username;
+        this.fullName = other.fullName;
     }
     
     // Getters and Setters
@@ -80,12 +146,15 @@ public class PrintJob {
         this.documentName = documentName;
     }
     
-    public byte[] getDocumentContent() {
-        return documentContent;
+    /**
+     * Lazy reference to the document; content is only read when a stream is opened
+     */
+    public DocumentHandle getDocument() {
+        return document;
     }
     
-    public void setDocumentContent(byte[] documentContent) {
-        this.documentContent = documentContent;
+    public void setDocument(DocumentHandle document) {
+        this.document = document;
     }
     
     public String getDocumentPath() {
@@ -112,11 +181,11 @@ public class PrintJob {
         this.numCopies = numCopies;
     }
     
-    public double getTotalCost() {
+    public long getTotalCost() {
         return totalCost;
     }
     
-    public void setTotalCost(double totalCost) {
+    public void setTotalCost(long totalCost) {
         this.totalCost = totalCost;
     }
     
@@ -152,6 +221,22 @@ public class PrintJob {
         this.queuePosition = queuePosition;
     }
     
+    public Timestamp getPredictedStart() {
+        return predictedStart;
+    }
+    
+    public void setPredictedStart(Timestamp predictedStart) {
+        this.predictedStart = predictedStart;
+    }
+    
+    public Timestamp getPredictedFinish() {
+        return predictedFinish;
+    }
+    
+    public void setPredictedFinish(Timestamp predictedFinish) {
+        this.predictedFinish = predictedFinish;
+    }
+    
     public Timestamp getSubmittedAt() {
         return submittedAt;
     }
@@ -176,6 +261,14 @@ public class PrintJob {
         this.completedAt = completedAt;
     }
     
+    public Timestamp getNeededBy() {
+        return neededBy;
+    }
+    
+    public void setNeededBy(Timestamp neededBy) {
+        this.neededBy = neededBy;
+    }
+    
     public Integer getOperatorId() {
         return operatorId;
     }
@@ -184,6 +277,38 @@ public class PrintJob {
         this.operatorId = operatorId;
     }
     
+    public Integer getPrinterId() {
+        return printerId;
+    }
+    
+    public void setPrinterId(Integer printerId) {
+        this.printerId = printerId;
+    }
+    
+    public Integer getSpoolBatchId() {
+        return spoolBatchId;
+    }
+    
+    public void setSpoolBatchId(Integer spoolBatchId) {
+        this.spoolBatchId = spoolBatchId;
+    }
+    
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+    
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+    
+    public Timestamp getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+    
+    public void setLeaseExpiresAt(Timestamp leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+    
     public String getNotes() {
         return notes;
     }
@@ -192,6 +317,22 @@ public class PrintJob {
         this.notes = notes;
     }
     
+    public int getVersion() {
+        return version;
+    }
+    
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     public String getUsername() {
         return username;
     }
@@ -0,0 +1,153 @@
+package models;
+
+import java.sql.Timestamp;
+
+/**
+ * PrintJobChunk model representing one part of a large job split across printers
+ * A chunk prints a page range for a copy range of its parent job; the parent is
+ * completed once every chunk is.
+ */
+public class PrintJobChunk {
+    private int chunkId;
+    private int jobId;
+    private int chunkIndex;
+    private int chunkCount;
+    private int pageFrom;
+    private int pageTo;
+    private int copyFrom;
+    private int copyTo;
+    private Integer printerId;
+    private ChunkStatus chunkStatus;
+    private Integer operatorId;
+    private Timestamp completedAt;
+    
+    public enum ChunkStatus {
+        PENDING, COMPLETED
+    }
+    
+    // Constructors
+    public PrintJobChunk() {}
+    
+    public PrintJobChunk(int jobId, int chunkIndex, int chunkCount, int pageFrom, int pageTo, int copyFrom, int copyTo) {
+        this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.chunkCount = chunkCount;
+        this.pageFrom = pageFrom;
+        this.pageTo = pageTo;
+        this.copyFrom = copyFrom;
+        this.copyTo = copyTo;
+        this.chunkStatus = ChunkStatus.PENDING;
+    }
+    
+    /**
+     * Sheets printed by this chunk (pages × copies)
+     * 
+     * @return Sheet count
+     */
+    public int getSheetCount() {
+        return (pageTo - pageFrom + 1) * (copyTo - copyFrom + 1);
+    }
+    
+    // Getters and Setters
+    public int getChunkId() {
+        return chunkId;
+    }
+    
+    public void setChunkId(int chunkId) {
+        this.chunkId = chunkId;
+    }
+    
+    public int getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(int jobId) {
+        this.jobId = jobId;
+    }
+    
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+    
+    public void setChunkIndex(int chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+    
+    public int getChunkCount() {
+        return chunkCount;
+    }
+    
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+    
+    public int getPageFrom() {
+        return pageFrom;
+    }
+    
+    public void setPageFrom(int pageFrom) {
+        this.pageFrom = pageFrom;
+    }
+    
+    public int getPageTo() {
+        return pageTo;
+    }
+    
+    public void setPageTo(int pageTo) {
+        this.pageTo = pageTo;
+    }
+    
+    public int getCopyFrom() {
+        return copyFrom;
+    }
+    
+    public void setCopyFrom(int copyFrom) {
+        this.copyFrom = copyFrom;
+    }
+    
+    public int getCopyTo() {
+        return copyTo;
+    }
+    
+    public void setCopyTo(int copyTo) {
+        this.copyTo = copyTo;
+    }
+    
+    public Integer getPrinterId() {
+        return printerId;
+    }
+    
+    public void setPrinterId(Integer printerId) {
+        this.printerId = printerId;
+    }
+    
+    public ChunkStatus getChunkStatus() {
+        return chunkStatus;
+    }
+    
+    public void setChunkStatus(ChunkStatus chunkStatus) {
+        this.chunkStatus = chunkStatus;
+    }
+    
+    public Integer getOperatorId() {
+        return operatorId;
+    }
+    
+    public void setOperatorId(Integer operatorId) {
+        this.operatorId = operatorId;
+    }
+    
+    public Timestamp getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(Timestamp completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "Chunk " + chunkIndex + "/" + chunkCount + ": pages " + pageFrom + "-" + pageTo +
+               ", copies " + copyFrom + "-" + copyTo;
+    }
+}
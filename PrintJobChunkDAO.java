@@ -0,0 +1,319 @@
+package dao;
+
+import database.DatabaseConnection;
+import models.PrintJobChunk;
+import models.PrintJobChunk.ChunkStatus;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data Access Object for PrintJobChunk operations
+ * Handles all database operations related to chunks of split print jobs
+ */
+public class PrintJobChunkDAO {
+    
+    /**
+     * Insert the chunks of a split job as one JDBC batch
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param chunks Chunks to insert, with printers already chosen
+     * @throws SQLException if the batch fails
+     */
+    public void createChunks(Connection conn, List<PrintJobChunk> chunks) throws SQLException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        
+        String query = "INSERT INTO print_job_chunks (job_id, chunk_index, chunk_count, page_from, page_to, " +
+                      "copy_from, copy_to, sheet_count, printer_id, chunk_status) " +
+                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (PrintJobChunk chunk : chunks) {
+                stmt.setInt(1, chunk.getJobId());
+                stmt.setInt(2, chunk.getChunkIndex());
+                stmt.setInt(3, chunk.getChunkCount());
+                stmt.setInt(4, chunk.getPageFrom());
+                stmt.setInt(5, chunk.getPageTo());
+                stmt.setInt(6, chunk.getCopyFrom());
+                stmt.setInt(7, chunk.getCopyTo());
+                stmt.setInt(8, chunk.getSheetCount());
+                stmt.setObject(9, chunk.getPrinterId());
+                stmt.setString(10, ChunkStatus.PENDING.name());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    /**
+     * Get the chunks of a job
+     * 
+     * @param jobId Parent job ID
+     * @return Chunks in index order, empty if the job was not split
+     */
+    public List<PrintJobChunk> getChunksByJobId(int jobId) {
+        List<PrintJobChunk> chunks = new ArrayList<>();
+        String query = "SELECT * FROM print_job_chunks WHERE job_id = ? ORDER BY chunk_index";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, jobId);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                chunks.add(extractChunkFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching job chunks: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Get the chunks of every job still in the queue
+     * 
+     * @return Map of parent job ID to its chunks in index order
+     */
+    public Map<Integer, List<PrintJobChunk>> getChunksForQueuedJobs() {
+        Map<Integer, List<PrintJobChunk>> chunks = new LinkedHashMap<>();
+        String query = "SELECT c.* FROM print_job_chunks c JOIN print_jobs pj ON pj.job_id = c.job_id " +
+                      "WHERE pj.job_status IN ('PENDING', 'PROCESSING') ORDER BY c.job_id, c.chunk_index";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                PrintJobChunk chunk = extractChunkFromResultSet(rs);
+                chunks.computeIfAbsent(chunk.getJobId(), id -> new ArrayList<>()).add(chunk);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching queued job chunks: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Lock PENDING chunks of queued jobs that have no printer, e.g. after a printer failed
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @return Unassigned chunks, locked until the caller commits
+     * @throws SQLException if the query fails
+     */
+    public List<PrintJobChunk> lockUnassignedChunks(Connection conn) throws SQLException {
+        List<PrintJobChunk> chunks = new ArrayList<>();
+        String query = "SELECT c.* FROM print_job_chunks c JOIN print_jobs pj ON pj.job_id = c.job_id " +
+                      "WHERE c.printer_id IS NULL AND c.chunk_status = 'PENDING' " +
+                      "AND pj.job_status IN ('PENDING', 'PROCESSING') " +
+                      "ORDER BY c.job_id, c.chunk_index FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                chunks.add(extractChunkFromResultSet(rs));
+            }
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Assign printers to a group of chunks as one JDBC batch
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param chunks Chunks with their new printer set
+     * @throws SQLException if the batch fails
+     */
+    public void assignPrinters(Connection conn, List<PrintJobChunk> chunks) throws SQLException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        
+        String query = "UPDATE print_job_chunks SET printer_id = ? WHERE chunk_id = ? AND chunk_status = 'PENDING'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (PrintJobChunk chunk : chunks) {
+                stmt.setObject(1, chunk.getPrinterId());
+                stmt.setInt(2, chunk.getChunkId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    /**
+     * Get a chunk by ID
+     * 
+     * @param chunkId Chunk ID
+     * @return PrintJobChunk object or null if not found
+     */
+    public PrintJobChunk getChunkById(int chunkId) {
+        String query = "SELECT * FROM print_job_chunks WHERE chunk_id = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, chunkId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return extractChunkFromResultSet(rs);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching job chunk: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Mark a chunk as printed on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param chunkId Chunk ID
+     * @param operatorId Operator who printed it
+     * @return true if the chunk was PENDING and is now COMPLETED
+     * @throws SQLException if the update fails
+     */
+    public boolean markCompleted(Connection conn, int chunkId, Integer operatorId) throws SQLException {
+        String query = "UPDATE print_job_chunks SET chunk_status = 'COMPLETED', completed_at = CURRENT_TIMESTAMP, " +
+                      "operator_id = ? WHERE chunk_id = ? AND chunk_status = 'PENDING'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setObject(1, operatorId);
+            stmt.setInt(2, chunkId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Count the chunks of a job that still have to be printed
+     * Uses a locking read so concurrent completions of the last chunks see each other
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobId Parent job ID
+     * @return Number of PENDING chunks
+     * @throws SQLException if the query fails
+     */
+    public int countPendingChunks(Connection conn, int jobId) throws SQLException {
+        String query = "SELECT chunk_id FROM print_job_chunks WHERE job_id = ? AND chunk_status = 'PENDING' FOR UPDATE";
+        int pending = 0;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, jobId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pending++;
+                }
+            }
+        }
+        
+        return pending;
+    }
+    
+    /**
+     * Find which of the given jobs were split into chunks
+     * 
+     * @param conn Open connection
+     * @param jobIds Candidate job IDs
+     * @return IDs of the jobs that have chunks
+     * @throws SQLException if the query fails
+     */
+    public Set<Integer> getSplitJobIds(Connection conn, List<Integer> jobIds) throws SQLException {
+        Set<Integer> splitJobIds = new HashSet<>();
+        if (jobIds.isEmpty()) {
+            return splitJobIds;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT DISTINCT job_id FROM print_job_chunks WHERE job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    splitJobIds.add(rs.getInt("job_id"));
+                }
+            }
+        }
+        
+        return splitJobIds;
+    }
+    
+    /**
+     * Return the unfinished chunks on a printer to the unassigned pool
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param printerId Printer whose chunks are requeued
+     * @return Number of chunks requeued
+     * @throws SQLException if the update fails
+     */
+    public int requeuePrinterChunks(Connection conn, int printerId) throws SQLException {
+        String query = "UPDATE print_job_chunks SET printer_id = NULL WHERE printer_id = ? AND chunk_status = 'PENDING'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, printerId);
+            return stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Extract PrintJobChunk object from ResultSet
+     * 
+     * @param rs ResultSet containing chunk data
+     * @return PrintJobChunk object
+     * @throws SQLException if error reading from ResultSet
+     */
+    private PrintJobChunk extractChunkFromResultSet(ResultSet rs) throws SQLException {
+        PrintJobChunk chunk = new PrintJobChunk();
+        chunk.setChunkId(rs.getInt("chunk_id"));
+        chunk.setJobId(rs.getInt("job_id"));
+        chunk.setChunkIndex(rs.getInt("chunk_index"));
+        chunk.setChunkCount(rs.getInt("chunk_count"));
+        chunk.setPageFrom(rs.getInt("page_from"));
+        chunk.setPageTo(rs.getInt("page_to"));
+        chunk.setCopyFrom(rs.getInt("copy_from"));
+        chunk.setCopyTo(rs.getInt("copy_to"));
+        
+        int printerId = rs.getInt("printer_id");
+        if (!rs.wasNull()) {
+            chunk.setPrinterId(printerId);
+        }
+        
+        chunk.setChunkStatus(ChunkStatus.valueOf(rs.getString("chunk_status")));
+        
+        int operatorId = rs.getInt("operator_id");
+        if (!rs.wasNull()) {
+            chunk.setOperatorId(operatorId);
+        }
+        
+        chunk.setCompletedAt(rs.getTimestamp("completed_at"));
+        return chunk;
+    }
+}
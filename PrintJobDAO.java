@@ -1,61 +1,168 @@
 package dao;
 
 import database.DatabaseConnection;
+import models.Money;
+import models.DocumentHandle;
+import models.JobFilter;
+import models.JobSnapshot;
 import models.PrintJob;
 import models.PrintJob.JobStatus;
 import models.PrintJob.PaymentStatus;
 import models.PrintJob.PaymentType;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object for PrintJob operations
  * Handles all database operations related to print jobs
  */
 public class PrintJobDAO {
+    // Size of the parts a document is stored in; migrate_document_parts.sql uses the same size
+    private static final int DOCUMENT_PART_SIZE = 1024 * 1024;
+    // Columns read by extractPrintJobFromResultSet, without the document blob
+    private static final String JOB_COLUMNS = "job_id, user_id, document_name, page_count, num_copies, total_cost, " +
+                                              "job_status, payment_status, payment_type, submitted_at, started_at, " +
+                                              "completed_at, needed_by, operator_id, printer_id, spool_batch_id, lease_owner, " +
+                                              "lease_expires_at, notes, version, document_size, document_hash, document_codec";
+    private static final String PJ_COLUMNS = "pj." + JOB_COLUMNS.replace(", ", ", pj.");
+    // Only what the job tables show; see JobSnapshot
+    private static final String SNAPSHOT_COLUMNS = "pj.job_id, pj.user_id, pj.document_name, pj.page_count, " +
+                                                   "pj.num_copies, pj.total_cost, pj.job_status, pj.payment_status, " +
+                                                   "pj.submitted_at, pj.completed_at, pj.printer_id, u.full_name";
     
     /**
      * Create a new print job
-     * Thread-safe implementation with proper queue position assignment
+     * Duplicate submissions are caught by the unique idempotency key rather than a
+     * JVM lock, so concurrent submitters on any node are safe. When the job carries an idempotency key that the user has already
+     * submitted, the original job ID is returned instead of a new job.
      * 
      * @param job PrintJob object to create
-     * @return Generated job ID or -1 if failed
+     * @return Generated (or original) job ID or -1 if failed
      */
-    public synchronized int createPrintJob(PrintJob job) {
-        String query = "INSERT INTO print_jobs (user_id, document_name, document_content, document_path, " +
-                      "page_count, num_copies, total_cost, job_status, payment_status, payment_type, queue_position) " +
-                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
+    public int createPrintJob(PrintJob job) {
+        if (job.getIdempotencyKey() != null) {
+            int existingJobId = findJobIdByIdempotencyKey(job.getUserId(), job.getIdempotencyKey());
+            if (existingJobId > 0) {
+                return existingJobId;
+            }
+        }
+        
+        String query = "INSERT INTO print_jobs (user_id, document_name, document_path, " +
+                      "page_count, num_copies, total_cost, job_status, payment_status, payment_type, " +
+                      "idempotency_key, needed_by, document_size, document_hash, document_codec, queue_position) " +
+                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
                       "(SELECT COALESCE(MAX(queue_position), 0) + 1 FROM print_jobs pj WHERE pj.job_status = 'PENDING'))";
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setInt(1, job.getUserId());
-            stmt.setString(2, job.getDocumentName());
-            stmt.setBytes(3, job.getDocumentContent());
-            stmt.setString(4, job.getDocumentPath());
-            stmt.setInt(5, job.getPageCount());
-            stmt.setInt(6, job.getNumCopies());
-            stmt.setDouble(7, job.getTotalCost());
-            stmt.setString(8, JobStatus.PENDING.name());
-            stmt.setString(9, job.getPaymentType() == PaymentType.PREPAID ? 
-                         PaymentStatus.PAID.name() : PaymentStatus.UNPAID.name());
-            stmt.setString(10, job.getPaymentType().name());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);
+        DocumentHandle document = job.getDocument();
+        Connection conn = null;
+        
+        // The document is streamed into its parts rather than loaded into memory first
+        try (InputStream content = document != null ? document.openStream() : null) {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            
+            int jobId;
+            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setInt(1, job.getUserId());
+                stmt.setString(2, job.getDocumentName());
+                if (content != null) {
+                    stmt.setLong(12, document.getSize());
+                    stmt.setString(13, document.getHash());
+                    stmt.setString(14, document.getCodec());
+                } else {
+                    stmt.setNull(12, Types.BIGINT);
+                    stmt.setNull(13, Types.CHAR);
+                    stmt.setString(14, DocumentHandle.CODEC_RAW);
                 }
+                stmt.setString(3, job.getDocumentPath());
+                stmt.setInt(4, job.getPageCount());
+                stmt.setInt(5, job.getNumCopies());
+                Money.setMoney(stmt, 6, job.getTotalCost());
+                stmt.setString(7, JobStatus.PENDING.name());
+                // PREPAID jobs start UNPAID with funds held; capture marks them PAID
+                stmt.setString(8, PaymentStatus.UNPAID.name());
+                stmt.setString(9, job.getPaymentType().name());
+                stmt.setString(10, job.getIdempotencyKey());
+                stmt.setTimestamp(11, job.getNeededBy());
+                stmt.executeUpdate();
+                
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("No job ID generated");
+                    }
+                    jobId = rs.getInt(1);
+                }
+            }
+            
+            if (content != null) {
+                insertDocumentParts(conn, jobId, content);
             }
+            conn.commit();
+            return jobId;
             
+        } catch (SQLIntegrityConstraintViolationException e) {
+            rollbackQuietly(conn);
+            // A concurrent retry with the same key won the insert
+            if (job.getIdempotencyKey() != null) {
+                return findJobIdByIdempotencyKey(job.getUserId(), job.getIdempotencyKey());
+            }
+            System.err.println("Error creating print job: " + e.getMessage());
+            e.printStackTrace();
         } catch (SQLException e) {
             System.err.println("Error creating print job: " + e.getMessage());
             e.printStackTrace();
+            rollbackQuietly(conn);
+        } catch (IOException e) {
+            System.err.println("Error reading document " + job.getDocumentName() + ": " + e.getMessage());
+            e.printStackTrace();
+            rollbackQuietly(conn);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Find the job a user submitted under an idempotency key
+     * 
+     * @param userId User ID
+     * @param idempotencyKey Client-generated submission key
+     * @return Job ID or -1 if the key has not been used
+     */
+    public int findJobIdByIdempotencyKey(int userId, String idempotencyKey) {
+        String query = "SELECT job_id FROM print_jobs WHERE user_id = ? AND idempotency_key = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, userId);
+            stmt.setString(2, idempotencyKey);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt("job_id");
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching job by idempotency key: " + e.getMessage());
+            e.printStackTrace();
         }
         
         return -1;
@@ -68,7 +175,7 @@ public class PrintJobDAO {
      * @return PrintJob object or null if not found
      */
     public PrintJob getJobById(int jobId) {
-        String query = "SELECT pj.*, u.username, u.full_name FROM print_jobs pj " +
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name FROM print_jobs pj " +
                       "JOIN users u ON pj.user_id = u.user_id WHERE pj.job_id = ?";
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -97,7 +204,7 @@ public class PrintJobDAO {
      */
     public List<PrintJob> getJobsByUserId(int userId) {
         List<PrintJob> jobs = new ArrayList<>();
-        String query = "SELECT pj.*, u.username, u.full_name FROM print_jobs pj " +
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name FROM print_jobs pj " +
                       "JOIN users u ON pj.user_id = u.user_id " +
                       "WHERE pj.user_id = ? ORDER BY pj.submitted_at DESC";
         
@@ -119,6 +226,31 @@ public class PrintJobDAO {
         return jobs;
     }
     
+    /**
+     * Get a user's jobs as a compact snapshot, newest first
+     * Reads only the displayed columns and builds no PrintJob objects
+     * 
+     * @param userId User ID
+     * @return Snapshot of the user's jobs, empty on error
+     */
+    public JobSnapshot getJobSnapshotByUserId(int userId) {
+        String query = "SELECT " + SNAPSHOT_COLUMNS + " FROM print_jobs pj " +
+                      "JOIN users u ON pj.user_id = u.user_id " +
+                      "WHERE pj.user_id = ? ORDER BY pj.submitted_at DESC";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, userId);
+            return readSnapshot(stmt);
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching user job snapshot: " + e.getMessage());
+            e.printStackTrace();
+            return JobSnapshot.empty();
+        }
+    }
+    
     /**
      * Get all pending and processing jobs (queue view)
      * Ordered by submission time (FCFS)
@@ -127,7 +259,7 @@ public class PrintJobDAO {
      */
     public List<PrintJob> getQueueJobs() {
         List<PrintJob> jobs = new ArrayList<>();
-        String query = "SELECT pj.*, u.username, u.full_name, " +
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name, " +
                       "(SELECT COUNT(*) FROM print_jobs pj2 " +
                       " WHERE pj2.job_status IN ('PENDING', 'PROCESSING') " +
                       " AND pj2.submitted_at < pj.submitted_at) + 1 AS queue_position " +
@@ -155,6 +287,115 @@ public class PrintJobDAO {
         return jobs;
     }
     
+    /**
+     * Get all PENDING and PROCESSING jobs without document contents or positions
+     * Used to (re)load the in-memory queue engine
+     * 
+     * @return Active jobs with owner names, in submission order
+     */
+    public List<PrintJob> getActiveJobs() {
+        List<PrintJob> jobs = new ArrayList<>();
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name " +
+                      "FROM print_jobs pj JOIN users u ON pj.user_id = u.user_id " +
+                      "WHERE pj.job_status IN ('PENDING', 'PROCESSING') ORDER BY pj.submitted_at, pj.job_id";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                jobs.add(extractPrintJobFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching active jobs: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Get jobs in any status whose row changed at or after a point in time
+     * 
+     * @param since Database time to read changes from
+     * @return Changed jobs with owner names, or null on error
+     */
+    public List<PrintJob> getJobsChangedSince(Timestamp since) {
+        List<PrintJob> jobs = new ArrayList<>();
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name " +
+                      "FROM print_jobs pj JOIN users u ON pj.user_id = u.user_id " +
+                      "WHERE pj.updated_at >= ? ORDER BY pj.updated_at";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setTimestamp(1, since);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(extractPrintJobFromResultSet(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching changed jobs: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Current time on the database clock
+     * 
+     * @return Database time, or null on error
+     */
+    public Timestamp getDatabaseTime() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(3) AS now");
+             ResultSet rs = stmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getTimestamp("now");
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading database time: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Store scheduler positions for a group of queued jobs as one JDBC batch
+     * Runs on the caller's connection and does not commit; jobs that have left the
+     * queue in the meantime are left alone
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param positions Map of job ID to queue position
+     * @throws SQLException if the batch fails
+     */
+    public void updateQueuePositions(Connection conn, Map<Integer, Integer> positions) throws SQLException {
+        if (positions.isEmpty()) {
+            return;
+        }
+        
+        String query = "UPDATE print_jobs SET queue_position = ? " +
+                      "WHERE job_id = ? AND job_status IN ('PENDING', 'PROCESSING')";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (Map.Entry<Integer, Integer> entry : positions.entrySet()) {
+                stmt.setInt(1, entry.getValue());
+                stmt.setInt(2, entry.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
     /**
      * Get all completed jobs
      * 
@@ -162,7 +403,7 @@ public class PrintJobDAO {
      */
     public List<PrintJob> getCompletedJobs() {
         List<PrintJob> jobs = new ArrayList<>();
-        String query = "SELECT pj.*, u.username, u.full_name FROM print_jobs pj " +
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name FROM print_jobs pj " +
                       "JOIN users u ON pj.user_id = u.user_id " +
                       "WHERE pj.job_status = 'COMPLETED' " +
                       "ORDER BY pj.completed_at DESC";
@@ -184,72 +425,171 @@ public class PrintJobDAO {
         return jobs;
     }
     
+    /**
+     * Get all completed jobs as a compact snapshot, most recently completed first
+     * Reads only the displayed columns and builds no PrintJob objects
+     * 
+     * @return Snapshot of completed jobs, empty on error
+     */
+    public JobSnapshot getCompletedJobSnapshot() {
+        String query = "SELECT " + SNAPSHOT_COLUMNS + " FROM print_jobs pj " +
+                      "JOIN users u ON pj.user_id = u.user_id " +
+                      "WHERE pj.job_status = 'COMPLETED' " +
+                      "ORDER BY pj.completed_at DESC";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            return readSnapshot(stmt);
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching completed job snapshot: " + e.getMessage());
+            e.printStackTrace();
+            return JobSnapshot.empty();
+        }
+    }
+    
+    /**
+     * Read SNAPSHOT_COLUMNS rows into a snapshot
+     */
+    private JobSnapshot readSnapshot(PreparedStatement stmt) throws SQLException {
+        JobSnapshot.Builder builder = new JobSnapshot.Builder();
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int printerId = rs.getInt("printer_id");
+                Integer printer = rs.wasNull() ? null : printerId;
+                builder.add(rs.getInt("job_id"),
+                            rs.getInt("user_id"),
+                            rs.getString("document_name"),
+                            rs.getString("full_name"),
+                            rs.getInt("page_count"),
+                            rs.getInt("num_copies"),
+                            Money.getMoney(rs, "total_cost"),
+                            JobStatus.valueOf(rs.getString("job_status")),
+                            PaymentStatus.valueOf(rs.getString("payment_status")),
+                            rs.getTimestamp("submitted_at"),
+                            rs.getTimestamp("completed_at"),
+                            printer);
+            }
+        }
+        
+        return builder.build();
+    }
+    
     /**
      * Update job status
-     * Thread-safe implementation with proper timestamp updates
+     * The allowed source statuses are part of the WHERE clause, so the update is a
+     * compare-and-set on the row: it only applies if the transition is still valid
+     * when the database executes it, whichever station or process races for the job.
      * 
      * @param jobId Job ID
      * @param newStatus New job status
      * @param operatorId Operator performing the update
-     * @return true if successful, false otherwise
+     * @return true if successful, false if the job does not exist or cannot move to the new status
      */
-    public synchronized boolean updateJobStatus(int jobId, JobStatus newStatus, Integer operatorId) {
-        Connection conn = null;
+    public boolean updateJobStatus(int jobId, JobStatus newStatus, Integer operatorId) {
+        return updateJobStatus(jobId, null, newStatus, operatorId);
+    }
+    
+    /**
+     * Update job status only if the job has not changed since it was read
+     * 
+     * @param jobId Job ID
+     * @param expectedVersion Version the caller read, or null to check the transition only
+     * @param newStatus New job status
+     * @param operatorId Operator performing the update
+     * @return true if successful, false on a version conflict or an invalid transition
+     */
+    public boolean updateJobStatus(int jobId, Integer expectedVersion, JobStatus newStatus, Integer operatorId) {
+        String query = statusUpdateQuery(newStatus) + (expectedVersion != null ? " AND version = ?" : "");
         
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
-            
-            // Build query based on new status
-            String query;
-            if (newStatus == JobStatus.PROCESSING) {
-                query = "UPDATE print_jobs SET job_status = ?, started_at = CURRENT_TIMESTAMP, " +
-                       "operator_id = ? WHERE job_id = ?";
-            } else if (newStatus == JobStatus.COMPLETED) {
-                query = "UPDATE print_jobs SET job_status = ?, completed_at = CURRENT_TIMESTAMP, " +
-                       "operator_id = ? WHERE job_id = ?";
-            } else {
-                query = "UPDATE print_jobs SET job_status = ?, operator_id = ? WHERE job_id = ?";
-            }
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
             
-            PreparedStatement stmt = conn.prepareStatement(query);
             stmt.setString(1, newStatus.name());
             stmt.setObject(2, operatorId);
             stmt.setInt(3, jobId);
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                conn.commit();
-                return true;
-            } else {
-                conn.rollback();
-                return false;
+            if (expectedVersion != null) {
+                stmt.setInt(4, expectedVersion);
             }
             
+            return stmt.executeUpdate() > 0;
+            
         } catch (SQLException e) {
             System.err.println("Error updating job status: " + e.getMessage());
             e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Update job status for a group of jobs as one JDBC batch
+     * Runs on the caller's connection and does not commit. Every row must make a valid
+     * transition; otherwise the batch is reported as a conflict and the caller rolls back.
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Job IDs to update
+     * @param newStatus New job status
+     * @param operatorId Operator performing the update
+     * @throws SQLException if the batch fails or a job cannot move to the new status
+     */
+    public void updateJobStatus(Connection conn, List<Integer> jobIds, JobStatus newStatus, Integer operatorId) throws SQLException {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(statusUpdateQuery(newStatus))) {
+            for (int jobId : jobIds) {
+                stmt.setString(1, newStatus.name());
+                stmt.setObject(2, operatorId);
+                stmt.setInt(3, jobId);
+                stmt.addBatch();
             }
-            return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+            
+            int[] counts = stmt.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new SQLException("Job #" + jobIds.get(i) + " cannot move to " + newStatus +
+                                           "; it was changed by another operation");
                 }
             }
         }
     }
     
+    /**
+     * Build the compare-and-set status update for a target status
+     * Parameters: new status, operator ID, job ID
+     */
+    private static String statusUpdateQuery(JobStatus newStatus) {
+        StringBuilder query = new StringBuilder("UPDATE print_jobs SET version = version + 1, job_status = ?, ");
+        if (newStatus == JobStatus.PROCESSING) {
+            query.append("started_at = CURRENT_TIMESTAMP, ");
+        } else if (newStatus == JobStatus.COMPLETED) {
+            query.append("completed_at = CURRENT_TIMESTAMP, ");
+        }
+        if (newStatus != JobStatus.PROCESSING) {
+            // Leases only describe PROCESSING jobs
+            query.append("lease_owner = NULL, lease_expires_at = NULL, ");
+        }
+        query.append("operator_id = ? WHERE job_id = ? AND job_status IN (");
+        
+        boolean first = true;
+        for (JobStatus source : JobStatus.values()) {
+            if (source.canTransitionTo(newStatus)) {
+                query.append(first ? "'" : ", '").append(source.name()).append("'");
+                first = false;
+            }
+        }
+        if (first) {
+            // Nothing may enter this status; keep the statement valid but never matching
+            query.append("NULL");
+        }
+        
+        return query.append(")").toString();
+    }
+    
     /**
      * Update payment status
      * 
@@ -258,7 +598,7 @@ public class PrintJobDAO {
      * @return true if successful, false otherwise
      */
     public boolean updatePaymentStatus(int jobId, PaymentStatus paymentStatus) {
-        String query = "UPDATE print_jobs SET payment_status = ? WHERE job_id = ?";
+        String query = "UPDATE print_jobs SET version = version + 1, payment_status = ? WHERE job_id = ?";
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -277,63 +617,850 @@ public class PrintJobDAO {
     }
     
     /**
-     * Get queue position for a specific job
+     * Update payment status for a group of jobs as one JDBC batch
+     * Runs on the caller's connection and does not commit
      * 
-     * @param jobId Job ID
-     * @return Queue position or -1 if not in queue
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Job IDs to update
+     * @param paymentStatus New payment status
+     * @throws SQLException if the batch fails
      */
-    public int getQueuePosition(int jobId) {
-        String query = "SELECT COUNT(*) + 1 AS position FROM print_jobs pj1, print_jobs pj2 " +
-                      "WHERE pj1.job_id = ? AND pj2.job_status IN ('PENDING', 'PROCESSING') " +
-                      "AND pj2.submitted_at < pj1.submitted_at";
+    public void updatePaymentStatus(Connection conn, List<Integer> jobIds, PaymentStatus paymentStatus) throws SQLException {
+        if (jobIds.isEmpty()) {
+            return;
+        }
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, jobId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt("position");
+        String query = "UPDATE print_jobs SET version = version + 1, payment_status = ? WHERE job_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int jobId : jobIds) {
+                stmt.setString(1, paymentStatus.name());
+                stmt.setInt(2, jobId);
+                stmt.addBatch();
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error fetching queue position: " + e.getMessage());
-            e.printStackTrace();
+            stmt.executeBatch();
         }
-        
-        return -1;
     }
     
     /**
-     * Get pending jobs for a user (for queue status display)
+     * Lock the next page of completed POSTPAID jobs that are still unpaid
+     * Uses keyset paging on job_id so each page is an index range scan
      * 
-     * @param userId User ID
-     * @return List of pending/processing jobs
+     * @param conn Open connection with auto-commit disabled
+     * @param afterJobId Only jobs with a higher ID are returned
+     * @param limit Maximum number of jobs to return
+     * @return Jobs ordered by job ID, locked until the caller commits
+     * @throws SQLException if the query fails
      */
-    public List<PrintJob> getPendingJobsByUserId(int userId) {
+    public List<PrintJob> lockSettleableJobs(Connection conn, int afterJobId, int limit) throws SQLException {
         List<PrintJob> jobs = new ArrayList<>();
-        String query = "SELECT pj.*, u.username, u.full_name, " +
-                      "(SELECT COUNT(*) FROM print_jobs pj2 " +
-                      " WHERE pj2.job_status IN ('PENDING', 'PROCESSING') " +
-                      " AND pj2.submitted_at < pj.submitted_at) + 1 AS queue_position " +
-                      "FROM print_jobs pj " +
-                      "JOIN users u ON pj.user_id = u.user_id " +
-                      "WHERE pj.user_id = ? AND pj.job_status IN ('PENDING', 'PROCESSING') " +
-                      "ORDER BY pj.submitted_at ASC";
+        String query = "SELECT " + JOB_COLUMNS + " FROM print_jobs " +
+                      "WHERE job_id > ? AND payment_type = 'POSTPAID' AND payment_status = 'UNPAID' " +
+                      "AND job_status = 'COMPLETED' " +
+                      "ORDER BY job_id LIMIT ? FOR UPDATE";
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, afterJobId);
+            stmt.setInt(2, limit);
             
-            while (rs.next()) {
-                PrintJob job = extractPrintJobFromResultSet(rs);
-                job.setQueuePosition(rs.getInt("queue_position"));
-                jobs.add(job);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(extractPrintJobFromResultSet(rs));
+                }
             }
-            
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Lock the next page of jobs matching a filter
+     * Uses keyset paging on job_id so each page is an index range scan
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param filter Selection criteria
+     * @param afterJobId Only jobs with a higher ID are returned
+     * @param limit Maximum number of jobs to return
+     * @return Jobs ordered by job ID, locked until the caller commits
+     * @throws SQLException if the query fails
+     */
+    public List<PrintJob> lockMatchingJobs(Connection conn, JobFilter filter, int afterJobId, int limit) throws SQLException {
+        List<PrintJob> jobs = new ArrayList<>();
+        if (filter.getStatuses().isEmpty()) {
+            return jobs;
+        }
+        
+        StringBuilder query = new StringBuilder(
+            "SELECT " + JOB_COLUMNS + " FROM print_jobs WHERE job_id > ? AND job_status IN (");
+        int statusCount = filter.getStatuses().size();
+        for (int i = 0; i < statusCount; i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        if (filter.getSubmittedFrom() != null) {
+            query.append(" AND submitted_at >= ?");
+        }
+        if (filter.getSubmittedTo() != null) {
+            query.append(" AND submitted_at < ?");
+        }
+        if (filter.getPrinterId() != null) {
+            query.append(" AND printer_id = ?");
+        }
+        query.append(" ORDER BY job_id LIMIT ? FOR UPDATE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            stmt.setInt(index++, afterJobId);
+            for (JobStatus status : filter.getStatuses()) {
+                stmt.setString(index++, status.name());
+            }
+            if (filter.getSubmittedFrom() != null) {
+                stmt.setTimestamp(index++, filter.getSubmittedFrom());
+            }
+            if (filter.getSubmittedTo() != null) {
+                stmt.setTimestamp(index++, filter.getSubmittedTo());
+            }
+            if (filter.getPrinterId() != null) {
+                stmt.setInt(index++, filter.getPrinterId());
+            }
+            stmt.setInt(index, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(extractPrintJobFromResultSet(rs));
+                }
+            }
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Lock a single job on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobId Job ID
+     * @return PrintJob object or null if not found
+     * @throws SQLException if the query fails
+     */
+    public PrintJob lockJob(Connection conn, int jobId) throws SQLException {
+        String query = "SELECT " + JOB_COLUMNS + " FROM print_jobs WHERE job_id = ? FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, jobId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractPrintJobFromResultSet(rs);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Lock a set of jobs chosen by an operator
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Job IDs to lock
+     * @return Jobs that exist, in job ID order, locked until the caller commits
+     * @throws SQLException if the query fails
+     */
+    public List<PrintJob> lockJobs(Connection conn, List<Integer> jobIds) throws SQLException {
+        List<PrintJob> jobs = new ArrayList<>();
+        if (jobIds.isEmpty()) {
+            return jobs;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT " + JOB_COLUMNS + " FROM print_jobs WHERE job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") ORDER BY job_id FOR UPDATE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(extractPrintJobFromResultSet(rs));
+                }
+            }
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Lock the given jobs that are still PENDING, have no printer yet and were not split
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Candidate job IDs
+     * @return The candidates that still qualify, in job ID order, locked until the caller
+     *         commits; rows locked by another station's dispatch pass are skipped rather
+     *         than waited for
+     * @throws SQLException if the query fails
+     */
+    public List<PrintJob> lockUnassignedJobs(Connection conn, List<Integer> jobIds) throws SQLException {
+        List<PrintJob> jobs = new ArrayList<>();
+        if (jobIds.isEmpty()) {
+            return jobs;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT " + JOB_COLUMNS + " FROM print_jobs " +
+            "WHERE job_status = 'PENDING' AND printer_id IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM print_job_chunks c WHERE c.job_id = print_jobs.job_id) " +
+            "AND job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") ORDER BY job_id FOR UPDATE SKIP LOCKED");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(extractPrintJobFromResultSet(rs));
+                }
+            }
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Assign printers to a group of jobs as one JDBC batch
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param assignments Map of job ID to printer ID
+     * @throws SQLException if the batch fails
+     */
+    public void assignPrinters(Connection conn, Map<Integer, Integer> assignments) throws SQLException {
+        if (assignments.isEmpty()) {
+            return;
+        }
+        
+        String query = "UPDATE print_jobs SET version = version + 1, printer_id = ? WHERE job_id = ? AND job_status = 'PENDING'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (Map.Entry<Integer, Integer> entry : assignments.entrySet()) {
+                stmt.setInt(1, entry.getValue());
+                stmt.setInt(2, entry.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    /**
+     * Lock specific jobs that are still PENDING and not part of a spool batch
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Candidate job IDs
+     * @return Jobs that are still eligible, in job ID order, locked until the caller commits
+     * @throws SQLException if the query fails
+     */
+    public List<PrintJob> lockUnbatchedPendingJobs(Connection conn, List<Integer> jobIds) throws SQLException {
+        List<PrintJob> jobs = new ArrayList<>();
+        if (jobIds.isEmpty()) {
+            return jobs;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT " + PJ_COLUMNS +
+                                                ", u.username, u.full_name FROM print_jobs pj " +
+                                                "JOIN users u ON pj.user_id = u.user_id " +
+                                                "WHERE pj.job_status = 'PENDING' AND pj.spool_batch_id IS NULL " +
+                                                "AND pj.job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") ORDER BY pj.job_id FOR UPDATE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(extractPrintJobFromResultSet(rs));
+                }
+            }
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Attach a group of jobs to a spool batch
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param batchId Spool batch ID
+     * @param jobIds Job IDs in the batch
+     * @throws SQLException if the update fails
+     */
+    public void assignSpoolBatch(Connection conn, int batchId, List<Integer> jobIds) throws SQLException {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        
+        StringBuilder query = new StringBuilder("UPDATE print_jobs SET version = version + 1, spool_batch_id = ? WHERE job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            stmt.setInt(1, batchId);
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 2, jobIds.get(i));
+            }
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Get the jobs of a spool batch that are still being printed
+     * 
+     * @param conn Open connection
+     * @param batchId Spool batch ID
+     * @return Job IDs in PROCESSING state, in job ID order
+     * @throws SQLException if the query fails
+     */
+    public List<Integer> getProcessingJobIds(Connection conn, int batchId) throws SQLException {
+        List<Integer> jobIds = new ArrayList<>();
+        String query = "SELECT job_id FROM print_jobs WHERE spool_batch_id = ? AND job_status = 'PROCESSING' " +
+                      "ORDER BY job_id";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, batchId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobIds.add(rs.getInt("job_id"));
+                }
+            }
+        }
+        
+        return jobIds;
+    }
+    
+    /**
+     * Store a document as consecutive parts of DOCUMENT_PART_SIZE bytes
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobId Job the document belongs to
+     * @param content Document content, read to its end
+     * @throws SQLException if an insert fails
+     * @throws IOException if the content cannot be read
+     */
+    private void insertDocumentParts(Connection conn, int jobId, InputStream content) throws SQLException, IOException {
+        String query = "INSERT INTO print_job_document_parts (job_id, part_index, content) VALUES (?, ?, ?)";
+        byte[] buffer = new byte[DOCUMENT_PART_SIZE];
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            int partIndex = 0;
+            int length;
+            while ((length = content.readNBytes(buffer, 0, buffer.length)) > 0) {
+                stmt.setInt(1, jobId);
+                stmt.setInt(2, partIndex++);
+                stmt.setBinaryStream(3, new ByteArrayInputStream(buffer, 0, length), length);
+                stmt.executeUpdate();
+            }
+        }
+    }
+    
+    /**
+     * Open a job's document content as a stream
+     * The content is stored in parts of DOCUMENT_PART_SIZE bytes, each read with its own
+     * primary-key lookup when the previous one is used up, so at most one part is held in
+     * memory. The stream keeps one connection open until it is closed.
+     * 
+     * @param jobId Job ID
+     * @param documentSize Stored size in bytes, or DocumentHandle.UNKNOWN_SIZE
+     * @return Stream over the document, or null if the job has no content or the query fails
+     */
+    public InputStream openDocument(int jobId, long documentSize) {
+        if (documentSize == 0) {
+            return null;
+        }
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            InputStream in = openDocument(conn, jobId, documentSize, true);
+            if (in == null) {
+                conn.close();
+            }
+            return in;
+        } catch (SQLException e) {
+            System.err.println("Error opening document for job #" + jobId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Open a job's document content as a stream on the caller's connection
+     * The connection stays open when the stream is closed; it must not be used for
+     * anything else while the stream is being read.
+     * 
+     * @param conn Open connection
+     * @param jobId Job ID
+     * @param documentSize Stored size in bytes, or DocumentHandle.UNKNOWN_SIZE
+     * @return Stream over the document, or null if the job has no content
+     * @throws SQLException if the query fails
+     */
+    public InputStream openDocument(Connection conn, int jobId, long documentSize) throws SQLException {
+        return documentSize == 0 ? null : openDocument(conn, jobId, documentSize, false);
+    }
+    
+    private InputStream openDocument(Connection conn, int jobId, long documentSize, boolean ownsConnection)
+            throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(
+            "SELECT content FROM print_job_document_parts WHERE job_id = ? AND part_index = ?");
+        try {
+            stmt.setInt(1, jobId);
+            byte[] first = readDocumentPart(stmt, 0);
+            if (first == null) {
+                stmt.close();
+                return null;
+            }
+            return new DocumentPartStream(conn, stmt, ownsConnection, jobId, documentSize, first);
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Read one part of a document with a prepared part lookup
+     * 
+     * @param stmt Part query with the job ID already bound
+     * @param partIndex Zero-based part index
+     * @return Bytes of the part, or null if there is no such part
+     * @throws SQLException if the query fails
+     */
+    private byte[] readDocumentPart(PreparedStatement stmt, int partIndex) throws SQLException {
+        stmt.setInt(2, partIndex);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getBytes("content") : null;
+        }
+    }
+    
+    /**
+     * Stream over a stored document that fetches the next part when the current one is used up
+     * The known document size ends the stream without a lookup past the last part.
+     */
+    private class DocumentPartStream extends InputStream {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final boolean ownsConnection;
+        private final int jobId;
+        private long remaining;
+        private byte[] part;
+        private int position;
+        private int partIndex;
+        private boolean closed;
+        
+        DocumentPartStream(Connection conn, PreparedStatement stmt, boolean ownsConnection, int jobId,
+                           long documentSize, byte[] first) {
+            this.conn = conn;
+            this.stmt = stmt;
+            this.ownsConnection = ownsConnection;
+            this.jobId = jobId;
+            this.remaining = documentSize > 0 ? documentSize - first.length : DocumentHandle.UNKNOWN_SIZE;
+            this.part = first;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return part[position++] & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(len, part.length - position);
+            System.arraycopy(part, position, buffer, off, count);
+            position += count;
+            return count;
+        }
+        
+        @Override
+        public int available() {
+            return part != null ? part.length - position : 0;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            part = null;
+            try {
+                stmt.close();
+                if (ownsConnection) {
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                throw new IOException("Error closing document for job #" + jobId + ": " + e.getMessage(), e);
+            }
+        }
+        
+        /**
+         * Make sure unread bytes are buffered
+         * 
+         * @return false at the end of the document
+         */
+        private boolean fill() throws IOException {
+            if (part == null) {
+                return false;
+            }
+            if (position < part.length) {
+                return true;
+            }
+            if (remaining == 0) {
+                part = null;
+                return false;
+            }
+            
+            try {
+                part = readDocumentPart(stmt, ++partIndex);
+            } catch (SQLException e) {
+                throw new IOException("Error reading document for job #" + jobId + ": " + e.getMessage(), e);
+            }
+            position = 0;
+            if (part == null || part.length == 0) {
+                part = null;
+                return false;
+            }
+            if (remaining > 0) {
+                remaining = Math.max(0, remaining - part.length);
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Lock the candidates that can still be claimed, skipping rows other stations hold
+     * Only whole PENDING jobs qualify; spool-batched and split jobs have their own flows
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Candidate job IDs
+     * @return Claimable job IDs, locked until the caller commits
+     * @throws SQLException if the query fails
+     */
+    public Set<Integer> lockClaimableJobs(Connection conn, List<Integer> jobIds) throws SQLException {
+        Set<Integer> claimable = new HashSet<>();
+        if (jobIds.isEmpty()) {
+            return claimable;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT job_id FROM print_jobs WHERE job_status = 'PENDING' " +
+                                                "AND spool_batch_id IS NULL " +
+                                                "AND NOT EXISTS (SELECT 1 FROM print_job_chunks c WHERE c.job_id = print_jobs.job_id) " +
+                                                "AND job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") FOR UPDATE SKIP LOCKED");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    claimable.add(rs.getInt("job_id"));
+                }
+            }
+        }
+        
+        return claimable;
+    }
+    
+    /**
+     * Lease locked jobs to an operator station as one JDBC batch
+     * The jobs move to PROCESSING; the lease runs on the database clock
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Locked job IDs
+     * @param leaseOwner Station ID
+     * @param operatorId Operator at the station
+     * @param leaseSeconds Lease length
+     * @throws SQLException if the batch fails
+     */
+    public void leaseJobs(Connection conn, List<Integer> jobIds, String leaseOwner, Integer operatorId,
+                          int leaseSeconds) throws SQLException {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        
+        String query = "UPDATE print_jobs SET version = version + 1, job_status = 'PROCESSING', started_at = CURRENT_TIMESTAMP, " +
+                      "operator_id = ?, lease_owner = ?, " +
+                      "lease_expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) WHERE job_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int jobId : jobIds) {
+                stmt.setObject(1, operatorId);
+                stmt.setString(2, leaseOwner);
+                stmt.setInt(3, leaseSeconds);
+                stmt.setInt(4, jobId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    /**
+     * Claim one specific job for an operator station with a single conditional update
+     * Succeeds if the job is PENDING, unleased, already leased to this station, or its lease has expired;
+     * jobs in a spool batch or split into chunks are never claimed this way
+     * 
+     * @param jobId Job ID
+     * @param leaseOwner Station ID
+     * @param operatorId Operator at the station
+     * @param leaseSeconds Lease length
+     * @return true if the station now holds the lease
+     */
+    public boolean claimJob(int jobId, String leaseOwner, Integer operatorId, int leaseSeconds) {
+        String query = "UPDATE print_jobs SET version = version + 1, job_status = 'PROCESSING', " +
+                      "started_at = COALESCE(started_at, CURRENT_TIMESTAMP), operator_id = ?, lease_owner = ?, " +
+                      "lease_expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) " +
+                      "WHERE job_id = ? AND spool_batch_id IS NULL " +
+                      "AND NOT EXISTS (SELECT 1 FROM print_job_chunks c WHERE c.job_id = print_jobs.job_id) " +
+                      "AND (job_status = 'PENDING' " +
+                      "OR (job_status = 'PROCESSING' AND (lease_owner IS NULL OR lease_owner = ? OR lease_expires_at < CURRENT_TIMESTAMP)))";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setObject(1, operatorId);
+            stmt.setString(2, leaseOwner);
+            stmt.setInt(3, leaseSeconds);
+            stmt.setInt(4, jobId);
+            stmt.setString(5, leaseOwner);
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error claiming job: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Extend every lease held by a station
+     * 
+     * @param leaseOwner Station ID
+     * @param leaseSeconds New lease length from now
+     * @return Number of leases renewed, or -1 on error
+     */
+    public int renewLeases(String leaseOwner, int leaseSeconds) {
+        String query = "UPDATE print_jobs SET lease_expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) " +
+                      "WHERE lease_owner = ? AND job_status = 'PROCESSING'";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, leaseSeconds);
+            stmt.setString(2, leaseOwner);
+            return stmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            System.err.println("Error renewing leases: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Complete a job on the caller's connection only if the station still holds its lease
+     * Does not commit, so the caller can capture the payment in the same transaction
+     * 
+     * @param conn Open connection
+     * @param jobId Job ID
+     * @param leaseOwner Station ID
+     * @param operatorId Operator completing the job
+     * @return true if the job was completed, false if the lease was lost
+     * @throws SQLException if the update fails
+     */
+    public boolean completeLeasedJob(Connection conn, int jobId, String leaseOwner, Integer operatorId) throws SQLException {
+        String query = "UPDATE print_jobs SET version = version + 1, job_status = 'COMPLETED', completed_at = CURRENT_TIMESTAMP, " +
+                      "operator_id = ?, lease_owner = NULL, lease_expires_at = NULL " +
+                      "WHERE job_id = ? AND job_status = 'PROCESSING' AND lease_owner = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setObject(1, operatorId);
+            stmt.setInt(2, jobId);
+            stmt.setString(3, leaseOwner);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Hand leased jobs back to the PENDING pool
+     * 
+     * @param leaseOwner Station ID
+     * @param jobId Job to release, or null for every job the station holds
+     * @return Number of jobs released, or -1 on error
+     */
+    public int releaseLeases(String leaseOwner, Integer jobId) {
+        String query = "UPDATE print_jobs SET version = version + 1, job_status = 'PENDING', started_at = NULL, " +
+                      "lease_owner = NULL, lease_expires_at = NULL " +
+                      "WHERE lease_owner = ? AND job_status = 'PROCESSING'" +
+                      (jobId != null ? " AND job_id = ?" : "");
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setString(1, leaseOwner);
+            if (jobId != null) {
+                stmt.setInt(2, jobId);
+            }
+            return stmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            System.err.println("Error releasing leases: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Return PROCESSING jobs whose lease has run out to the PENDING pool
+     * Jobs without a lease (spool batches, split jobs) are never touched
+     * 
+     * @return Number of jobs reclaimed, or -1 on error
+     */
+    public int reapExpiredLeases() {
+        String query = "UPDATE print_jobs SET version = version + 1, job_status = 'PENDING', started_at = NULL, " +
+                      "lease_owner = NULL, lease_expires_at = NULL " +
+                      "WHERE job_status = 'PROCESSING' AND lease_expires_at < CURRENT_TIMESTAMP";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            return stmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            System.err.println("Error reclaiming expired leases: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Return every unfinished job on a printer to the unassigned PENDING pool
+     * Jobs taken from a spool batch leave it so they can be claimed, batched or
+     * dispatched again; SpoolBatchDAO.releasePrinterJobs adjusts the batch beforehand.
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param printerId Printer whose jobs are requeued
+     * @return Number of jobs requeued
+     * @throws SQLException if the update fails
+     */
+    public int requeuePrinterJobs(Connection conn, int printerId) throws SQLException {
+        String query = "UPDATE print_jobs SET version = version + 1, printer_id = NULL, job_status = 'PENDING', started_at = NULL, " +
+                      "lease_owner = NULL, lease_expires_at = NULL, spool_batch_id = NULL " +
+                      "WHERE printer_id = ? AND job_status IN ('PENDING', 'PROCESSING')";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, printerId);
+            return stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Get queue position for a specific job
+     * 
+     * @param jobId Job ID
+     * @return Queue position or -1 if not in queue
+     */
+    public int getQueuePosition(int jobId) {
+        String query = "SELECT COUNT(*) + 1 AS position FROM print_jobs pj1, print_jobs pj2 " +
+                      "WHERE pj1.job_id = ? AND pj2.job_status IN ('PENDING', 'PROCESSING') " +
+                      "AND pj2.submitted_at < pj1.submitted_at";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, jobId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt("position");
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching queue position: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Get pending jobs for a user (for queue status display)
+     * 
+     * @param userId User ID
+     * @return List of pending/processing jobs
+     */
+    public List<PrintJob> getPendingJobsByUserId(int userId) {
+        List<PrintJob> jobs = new ArrayList<>();
+        String query = "SELECT " + PJ_COLUMNS + ", u.username, u.full_name, " +
+                      "(SELECT COUNT(*) FROM print_jobs pj2 " +
+                      " WHERE pj2.job_status IN ('PENDING', 'PROCESSING') " +
+                      " AND pj2.submitted_at < pj.submitted_at) + 1 AS queue_position " +
+                      "FROM print_jobs pj " +
+                      "JOIN users u ON pj.user_id = u.user_id " +
+                      "WHERE pj.user_id = ? AND pj.job_status IN ('PENDING', 'PROCESSING') " +
+                      "ORDER BY pj.submitted_at ASC";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                PrintJob job = extractPrintJobFromResultSet(rs);
+                job.setQueuePosition(rs.getInt("queue_position"));
+                jobs.add(job);
+            }
+            
         } catch (SQLException e) {
             System.err.println("Error fetching pending jobs: " + e.getMessage());
             e.printStackTrace();
@@ -356,13 +1483,14 @@ public class PrintJobDAO {
         job.setDocumentName(rs.getString("document_name"));
         job.setPageCount(rs.getInt("page_count"));
         job.setNumCopies(rs.getInt("num_copies"));
-        job.setTotalCost(rs.getDouble("total_cost"));
+        job.setTotalCost(Money.getMoney(rs, "total_cost"));
         job.setJobStatus(JobStatus.valueOf(rs.getString("job_status")));
         job.setPaymentStatus(PaymentStatus.valueOf(rs.getString("payment_status")));
         job.setPaymentType(PaymentType.valueOf(rs.getString("payment_type")));
         job.setSubmittedAt(rs.getTimestamp("submitted_at"));
         job.setStartedAt(rs.getTimestamp("started_at"));
         job.setCompletedAt(rs.getTimestamp("completed_at"));
+        job.setNeededBy(rs.getTimestamp("needed_by"));
         
         // Handle nullable operator_id
         int operatorId = rs.getInt("operator_id");
@@ -370,7 +1498,29 @@ public class PrintJobDAO {
             job.setOperatorId(operatorId);
         }
         
+        // Handle nullable printer_id
+        int printerId = rs.getInt("printer_id");
+        if (!rs.wasNull()) {
+            job.setPrinterId(printerId);
+        }
+        
+        // Handle nullable spool_batch_id
+        int spoolBatchId = rs.getInt("spool_batch_id");
+        if (!rs.wasNull()) {
+            job.setSpoolBatchId(spoolBatchId);
+        }
+        
+        job.setLeaseOwner(rs.getString("lease_owner"));
+        job.setLeaseExpiresAt(rs.getTimestamp("lease_expires_at"));
         job.setNotes(rs.getString("notes"));
+        job.setVersion(rs.getInt("version"));
+        
+        // Rows written before sizes were recorded have no size; the content is still readable
+        long storedSize = rs.getLong("document_size");
+        long documentSize = rs.wasNull() ? DocumentHandle.UNKNOWN_SIZE : storedSize;
+        int jobId = job.getJobId();
+        job.setDocument(new DocumentHandle(jobId, documentSize, rs.getString("document_hash"),
+                                           rs.getString("document_codec"), () -> openDocument(jobId, documentSize)));
         
         // Additional display fields
         try {
@@ -382,4 +1532,14 @@ public class PrintJobDAO {
         
         return job;
     }
+    
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package models;
+
+import java.sql.Timestamp;
+
+/**
+ * Printer model representing a physical printer in the print centre
+ */
+public class Printer {
+    private int printerId;
+    private String printerName;
+    private int pagesPerMinute;
+    private PrinterStatus printerStatus;
+    private Timestamp createdAt;
+    
+    public enum PrinterStatus {
+        ONLINE, OFFLINE, FAILED
+    }
+    
+    // Constructors
+    public Printer() {}
+    
+    public Printer(String printerName, int pagesPerMinute) {
+        this.printerName = printerName;
+        this.pagesPerMinute = pagesPerMinute;
+        this.printerStatus = PrinterStatus.ONLINE;
+    }
+    
+    // Getters and Setters
+    public int getPrinterId() {
+        return printerId;
+    }
+    
+    public void setPrinterId(int printerId) {
+        this.printerId = printerId;
+    }
+    
+    public String getPrinterName() {
+        return printerName;
+    }
+    
+    public void setPrinterName(String printerName) {
+        this.printerName = printerName;
+    }
+    
+    public int getPagesPerMinute() {
+        return pagesPerMinute;
+    }
+    
+    public void setPagesPerMinute(int pagesPerMinute) {
+        this.pagesPerMinute = pagesPerMinute;
+    }
+    
+    public PrinterStatus getPrinterStatus() {
+        return printerStatus;
+    }
+    
+    public void setPrinterStatus(PrinterStatus printerStatus) {
+        this.printerStatus = printerStatus;
+    }
+    
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    @Override
+    public String toString() {
+        return printerName;
+    }
+}
@@ -0,0 +1,201 @@
+package dao;
+
+import database.DatabaseConnection;
+import models.Printer;
+import models.Printer.PrinterStatus;
+import models.PrinterLoad;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for Printer operations
+ * Handles all database operations related to printers
+ */
+public class PrinterDAO {
+    
+    // Outstanding sheets and work items per printer: whole jobs plus chunks of split jobs
+    private static final String QUEUED_WORK =
+        "SELECT printer_id, SUM(sheets) AS queued_pages, COUNT(*) AS queued_jobs FROM (" +
+        "SELECT printer_id, page_count * num_copies AS sheets FROM print_jobs " +
+        "WHERE printer_id IS NOT NULL AND job_status IN ('PENDING', 'PROCESSING') " +
+        "UNION ALL " +
+        "SELECT c.printer_id, c.sheet_count FROM print_job_chunks c JOIN print_jobs pj ON pj.job_id = c.job_id " +
+        "WHERE c.printer_id IS NOT NULL AND c.chunk_status = 'PENDING' " +
+        "AND pj.job_status IN ('PENDING', 'PROCESSING')" +
+        ") queued GROUP BY printer_id";
+    
+    /**
+     * Create a new printer
+     * 
+     * @param printer Printer to create
+     * @return Generated printer ID or -1 if failed
+     */
+    public int createPrinter(Printer printer) {
+        String query = "INSERT INTO printers (printer_name, pages_per_minute, printer_status) VALUES (?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            
+            stmt.setString(1, printer.getPrinterName());
+            stmt.setInt(2, printer.getPagesPerMinute());
+            stmt.setString(3, printer.getPrinterStatus().name());
+            
+            if (stmt.executeUpdate() > 0) {
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error creating printer: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Get all printers
+     * 
+     * @return List of printers ordered by name
+     */
+    public List<Printer> getAllPrinters() {
+        List<Printer> printers = new ArrayList<>();
+        String query = "SELECT * FROM printers ORDER BY printer_name";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                printers.add(extractPrinterFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching printers: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return printers;
+    }
+    
+    /**
+     * Get printer by ID
+     * 
+     * @param printerId Printer ID
+     * @return Printer or null if not found
+     */
+    public Printer getPrinterById(int printerId) {
+        String query = "SELECT * FROM printers WHERE printer_id = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, printerId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return extractPrinterFromResultSet(rs);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching printer: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Read the outstanding load of every online printer on the caller's connection
+     * 
+     * @param conn Open connection
+     * @return Loads of online printers, ordered by printer ID
+     * @throws SQLException if the query fails
+     */
+    public List<PrinterLoad> getOnlinePrinterLoads(Connection conn) throws SQLException {
+        List<PrinterLoad> loads = new ArrayList<>();
+        String query = "SELECT p.*, COALESCE(w.queued_pages, 0) AS queued_pages, " +
+                      "COALESCE(w.queued_jobs, 0) AS queued_jobs FROM printers p " +
+                      "LEFT JOIN (" + QUEUED_WORK + ") w ON w.printer_id = p.printer_id " +
+                      "WHERE p.printer_status = 'ONLINE' ORDER BY p.printer_id";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                loads.add(new PrinterLoad(extractPrinterFromResultSet(rs),
+                                          rs.getLong("queued_pages"), rs.getInt("queued_jobs")));
+            }
+        }
+        
+        return loads;
+    }
+    
+    /**
+     * Get the outstanding load of every printer
+     * 
+     * @return Map of printer ID to queued sheets
+     */
+    public Map<Integer, Long> getQueuedPages() {
+        Map<Integer, Long> pages = new HashMap<>();
+        String query = QUEUED_WORK;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                pages.put(rs.getInt("printer_id"), rs.getLong("queued_pages"));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching printer load: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return pages;
+    }
+    
+    /**
+     * Update printer status on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param printerId Printer ID
+     * @param status New status
+     * @return true if the printer exists
+     * @throws SQLException if the update fails
+     */
+    public boolean updatePrinterStatus(Connection conn, int printerId, PrinterStatus status) throws SQLException {
+        String query = "UPDATE printers SET printer_status = ? WHERE printer_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, status.name());
+            stmt.setInt(2, printerId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Extract Printer object from ResultSet
+     * 
+     * @param rs ResultSet containing printer data
+     * @return Printer object
+     * @throws SQLException if error reading from ResultSet
+     */
+    private Printer extractPrinterFromResultSet(ResultSet rs) throws SQLException {
+        Printer printer = new Printer();
+        printer.setPrinterId(rs.getInt("printer_id"));
+        printer.setPrinterName(rs.getString("printer_name"));
+        printer.setPagesPerMinute(rs.getInt("pages_per_minute"));
+        printer.setPrinterStatus(PrinterStatus.valueOf(rs.getString("printer_status")));
+        printer.setCreatedAt(rs.getTimestamp("created_at"));
+        return printer;
+    }
+}
@@ -0,0 +1,49 @@
+package models;
+
+/**
+ * Outstanding work on one printer, as seen by the dispatcher
+ * Counts the sheets (pages × copies) of PENDING and PROCESSING jobs assigned to it
+ */
+public class PrinterLoad {
+    private final Printer printer;
+    private long queuedPages;
+    private int queuedJobs;
+
+    public PrinterLoad(Printer printer, long queuedPages, int queuedJobs) {
+        this.printer = printer;
+        this.queuedPages = queuedPages;
+        this.queuedJobs = queuedJobs;
+    }
+
+    /**
+     * Record a job that has just been assigned to this printer
+     *
+     * @param pages Sheets in the job
+     */
+    public void addJob(long pages) {
+        queuedPages += pages;
+        queuedJobs++;
+    }
+
+    /**
+     * Minutes until this printer would finish its queue plus an extra job
+     *
+     * @param extraPages Sheets in the job being considered
+     * @return Expected finish time in minutes from now
+     */
+    public double expectedFinishMinutes(long extraPages) {
+        return (double) (queuedPages + extraPages) / Math.max(1, printer.getPagesPerMinute());
+    }
+
+    public Printer getPrinter() {
+        return printer;
+    }
+
+    public long getQueuedPages() {
+        return queuedPages;
+    }
+
+    public int getQueuedJobs() {
+        return queuedJobs;
+    }
+}
@@ -0,0 +1,263 @@
+package services;
+
+import dao.PrintJobDAO;
+import database.DatabaseConnection;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of the active queue (PENDING and PROCESSING jobs)
+ * Enabled with queue.engine=MEMORY in database.properties. Queue reads are served
+ * from an immutable snapshot instead of a database query. The snapshot follows the
+ * database through a change feed on print_jobs.updated_at, polled every
+ * queue.engine.syncMillis (default 1000), and a full reload every
+ * queue.engine.fullReloadSeconds (default 60) that also catches rows committed late by
+ * long transactions. Scheduler positions computed from the snapshot are written back to
+ * print_jobs.queue_position behind the reads, in one batched transaction per flush.
+ * Status and payment changes are not written behind: they stay database transactions
+ * because leases and version checks coordinate the stations through them.
+ * On restart the engine recovers by loading the active queue from the database.
+ */
+public class QueueEngine {
+    public static final long DEFAULT_SYNC_MILLIS = 1000;
+    public static final int DEFAULT_FULL_RELOAD_SECONDS = 60;
+    // Rows are stamped when the statement runs but become visible at commit; read a little behind
+    private static final long SYNC_OVERLAP_MILLIS = 5000;
+
+    private final PrintJobDAO printJobDAO;
+    private final long syncMillis;
+    private final long fullReloadMillis;
+    private final Map<Integer, PrintJob> active = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> pendingPositions = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> storedPositions = new ConcurrentHashMap<>();
+    private volatile List<PrintJob> snapshot = Collections.emptyList();
+    private volatile boolean loaded;
+    private Timestamp syncedUntil;
+    private long lastFullReload;
+    private ScheduledExecutorService scheduler;
+
+    public QueueEngine() {
+        DatabaseConnection config = DatabaseConnection.getInstance();
+        this.printJobDAO = new PrintJobDAO();
+        this.syncMillis = Long.parseLong(config.getProperty("queue.engine.syncMillis",
+            String.valueOf(DEFAULT_SYNC_MILLIS)));
+        this.fullReloadMillis = Long.parseLong(config.getProperty("queue.engine.fullReloadSeconds",
+            String.valueOf(DEFAULT_FULL_RELOAD_SECONDS))) * 1000;
+    }
+
+    /**
+     * Load the active queue and start syncing and flushing in the background
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        reload();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "queue-engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+                flushPositions();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next run retries
+                e.printStackTrace();
+            }
+        }, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background work after writing any positions still queued
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        flushPositions();
+    }
+
+    /**
+     * Whether the first load has succeeded; until then callers should read the database
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Active jobs in submission order
+     * Each call gets its own copies of the jobs, so callers can set queue positions and
+     * predicted times, or add hypothetical jobs, without affecting other readers.
+     *
+     * @return Active jobs
+     */
+    public List<PrintJob> getActiveJobs() {
+        List<PrintJob> current = snapshot;
+        List<PrintJob> jobs = new ArrayList<>(current.size() + 1);
+        for (PrintJob job : current) {
+            jobs.add(new PrintJob(job));
+        }
+        return jobs;
+    }
+
+    /**
+     * Remember the positions the scheduler gave the queue so they are written behind
+     *
+     * @param ordered Queue in service order with positions set
+     */
+    public void recordPositions(List<PrintJob> ordered) {
+        for (PrintJob job : ordered) {
+            Integer stored = storedPositions.get(job.getJobId());
+            if (stored == null || stored != job.getQueuePosition()) {
+                pendingPositions.put(job.getJobId(), job.getQueuePosition());
+            }
+        }
+    }
+
+    /**
+     * Replace the in-memory queue with the database's active jobs
+     *
+     * @return true if the queue was loaded
+     */
+    synchronized boolean reload() {
+        Timestamp now = printJobDAO.getDatabaseTime();
+        List<PrintJob> jobs = now != null ? printJobDAO.getActiveJobs() : null;
+        if (jobs == null) {
+            return false;
+        }
+
+        active.clear();
+        for (PrintJob job : jobs) {
+            active.put(job.getJobId(), job);
+        }
+        storedPositions.keySet().retainAll(active.keySet());
+        syncedUntil = now;
+        lastFullReload = System.currentTimeMillis();
+        loaded = true;
+        publish();
+        return true;
+    }
+
+    /**
+     * Apply the rows changed since the last sync
+     */
+    synchronized void sync() {
+        if (!loaded || System.currentTimeMillis() - lastFullReload >= fullReloadMillis) {
+            reload();
+            return;
+        }
+
+        Timestamp now = printJobDAO.getDatabaseTime();
+        if (now == null) {
+            return;
+        }
+        List<PrintJob> changed = printJobDAO.getJobsChangedSince(
+            new Timestamp(syncedUntil.getTime() - SYNC_OVERLAP_MILLIS));
+        if (changed == null) {
+            return;
+        }
+
+        if (apply(changed)) {
+            publish();
+        }
+        syncedUntil = now;
+    }
+
+    /**
+     * Fold changed rows into the active set
+     *
+     * @param changed Jobs as currently stored, in any status
+     * @return true if the active set changed
+     */
+    boolean apply(List<PrintJob> changed) {
+        boolean modified = false;
+        for (PrintJob job : changed) {
+            if (job.getJobStatus() == JobStatus.PENDING || job.getJobStatus() == JobStatus.PROCESSING) {
+                PrintJob current = active.get(job.getJobId());
+                if (current == null || current.getVersion() != job.getVersion()
+                        || !Objects.equals(current.getLeaseOwner(), job.getLeaseOwner())
+                        || !Objects.equals(current.getPrinterId(), job.getPrinterId())) {
+                    active.put(job.getJobId(), job);
+                    modified = true;
+                }
+            } else if (active.remove(job.getJobId()) != null) {
+                storedPositions.remove(job.getJobId());
+                pendingPositions.remove(job.getJobId());
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Publish a new immutable snapshot in submission order
+     */
+    private void publish() {
+        List<PrintJob> jobs = new ArrayList<>(active.values());
+        jobs.sort(FcfsScheduler.ARRIVAL_ORDER);
+        snapshot = Collections.unmodifiableList(jobs);
+    }
+
+    /**
+     * Write queued positions to the database in one transaction
+     */
+    void flushPositions() {
+        if (pendingPositions.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> batch = new HashMap<>(pendingPositions);
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            printJobDAO.updateQueuePositions(conn, batch);
+            conn.commit();
+
+            storedPositions.putAll(batch);
+            // Only drop entries that were not re-queued with a newer position meanwhile
+            for (Map.Entry<Integer, Integer> entry : batch.entrySet()) {
+                pendingPositions.remove(entry.getKey(), entry.getValue());
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error writing queue positions: " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
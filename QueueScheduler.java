@@ -0,0 +1,21 @@
+package services;
+
+import models.PrintJob;
+
+import java.util.List;
+
+/**
+ * Decides the order in which queued print jobs are dispatched and printed
+ */
+public interface QueueScheduler {
+
+    /**
+     * Order queued jobs for service
+     * Stateful schedulers treat a job missing from the list as finished, so
+     * callers must always pass the whole queue
+     *
+     * @param jobs All PENDING and PROCESSING jobs, in any order
+     * @return New list with the job to serve first at index 0
+     */
+    List<PrintJob> order(List<PrintJob> jobs);
+}
@@ -0,0 +1,169 @@
+package services;
+
+import dao.PrintJobDAO;
+import database.DatabaseConnection;
+import models.PrintJob;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared view of the print queue in scheduling order
+ * The scheduler is chosen with the queue.scheduler property in database.properties
+ * (FCFS, FAIR_SHARE, LANES or DEADLINE, default FCFS). LANES also reads
+ * queue.express.maxSheets and queue.bulk.agingMinutes; DEADLINE reads
+ * queue.deadline.defaultSlackMinutes. A single instance is shared so in-memory scheduler
+ * state is consistent between the queue view, queue positions and the dispatcher.
+ * With queue.engine=MEMORY (default DATABASE) the active queue is read from a
+ * QueueEngine kept in sync with the database instead of being queried on every call.
+ */
+public class QueueService {
+    private static QueueService instance;
+
+    private final PrintJobDAO printJobDAO;
+    private final QueueScheduler scheduler;
+    private final QueueEngine engine;
+
+    private QueueService(QueueScheduler scheduler, QueueEngine engine) {
+        this.printJobDAO = new PrintJobDAO();
+        this.scheduler = scheduler;
+        this.engine = engine;
+    }
+
+    /**
+     * Get the shared QueueService configured from database.properties
+     *
+     * @return QueueService instance
+     */
+    public static synchronized QueueService getInstance() {
+        if (instance == null) {
+            DatabaseConnection config = DatabaseConnection.getInstance();
+            String mode = config.getProperty("queue.scheduler", "FCFS");
+            QueueEngine engine = null;
+            if ("MEMORY".equalsIgnoreCase(config.getProperty("queue.engine", "DATABASE"))) {
+                engine = new QueueEngine();
+                engine.start();
+            }
+            instance = new QueueService(createScheduler(mode), engine);
+        }
+        return instance;
+    }
+
+    /**
+     * Build a scheduler by name
+     *
+     * @param mode FCFS, FAIR_SHARE, LANES or DEADLINE (case-insensitive)
+     * @return Scheduler; unknown names fall back to FCFS
+     */
+    public static QueueScheduler createScheduler(String mode) {
+        DatabaseConnection config = DatabaseConnection.getInstance();
+        switch (mode.toUpperCase()) {
+            case "FAIR_SHARE":
+                return new FairShareScheduler();
+            case "LANES":
+                int expressMaxSheets = Integer.parseInt(config.getProperty("queue.express.maxSheets",
+                    String.valueOf(LaneScheduler.DEFAULT_EXPRESS_MAX_SHEETS)));
+                long agingMinutes = Long.parseLong(config.getProperty("queue.bulk.agingMinutes",
+                    String.valueOf(LaneScheduler.DEFAULT_AGING_MILLIS / 60000)));
+                return new LaneScheduler(expressMaxSheets, agingMinutes * 60000);
+            case "DEADLINE":
+                long slackMinutes = Long.parseLong(config.getProperty("queue.deadline.defaultSlackMinutes",
+                    String.valueOf(DeadlineScheduler.DEFAULT_SLACK_MILLIS / 60000)));
+                return new DeadlineScheduler(slackMinutes * 60000);
+            case "FCFS":
+                return new FcfsScheduler();
+            default:
+                System.err.println("Unknown queue.scheduler '" + mode + "', using FCFS");
+                return new FcfsScheduler();
+        }
+    }
+
+    public QueueScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Get all PENDING and PROCESSING jobs in service order
+     * Queue positions are renumbered to match that order
+     *
+     * @return Ordered queue
+     */
+    public List<PrintJob> getQueueJobs() {
+        if (engine == null || !engine.isLoaded()) {
+            return order(printJobDAO.getQueueJobs());
+        }
+        List<PrintJob> ordered = order(engine.getActiveJobs());
+        engine.recordPositions(ordered);
+        return ordered;
+    }
+
+    /**
+     * Get one user's queued jobs with their positions in the shared queue
+     *
+     * @param userId User ID
+     * @return The user's PENDING and PROCESSING jobs in service order
+     */
+    public List<PrintJob> getQueueJobsForUser(int userId) {
+        List<PrintJob> queue = getQueueJobs();
+        EtaEngine.getInstance().annotate(queue);
+
+        List<PrintJob> mine = new ArrayList<>();
+        for (PrintJob job : queue) {
+            if (job.getUserId() == userId) {
+                mine.add(job);
+            }
+        }
+        return mine;
+    }
+
+    /**
+     * Estimate when a job that has not been submitted yet would finish
+     * The job is placed into the current queue with the configured scheduler and
+     * timed by the EtaEngine. Stateful schedulers are not consulted so the estimate
+     * does not disturb their state; FCFS order is used for them instead.
+     *
+     * @param candidate Job about to be submitted (job ID 0)
+     * @return Estimated completion time, or null if no printer is online
+     */
+    public Timestamp estimateCompletion(PrintJob candidate) {
+        if (candidate.getSubmittedAt() == null) {
+            candidate.setSubmittedAt(new Timestamp(System.currentTimeMillis()));
+        }
+
+        List<PrintJob> queue = engine != null && engine.isLoaded()
+                ? engine.getActiveJobs() : new ArrayList<>(printJobDAO.getQueueJobs());
+        queue.add(candidate);
+        QueueScheduler estimator = scheduler instanceof FairShareScheduler ? new FcfsScheduler() : scheduler;
+        EtaEngine.getInstance().annotate(estimator.order(queue));
+        return candidate.getPredictedFinish();
+    }
+
+    /**
+     * Lane label for the queue view
+     *
+     * @param job Queued job
+     * @return "Express" or "Bulk" under the lane scheduler, otherwise "-"
+     */
+    public String getLaneLabel(PrintJob job) {
+        if (scheduler instanceof LaneScheduler) {
+            return ((LaneScheduler) scheduler).laneOf(job) == LaneScheduler.Lane.EXPRESS ? "Express" : "Bulk";
+        }
+        return "-";
+    }
+
+    /**
+     * Order the queue with the configured scheduler
+     *
+     * @param jobs All queued jobs
+     * @return Ordered jobs with queue positions starting at 1
+     */
+    public List<PrintJob> order(List<PrintJob> jobs) {
+        List<PrintJob> ordered = scheduler.order(jobs);
+        int position = 1;
+        for (PrintJob job : ordered) {
+            job.setQueuePosition(position++);
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,87 @@
+package dao;
+
+import models.Money;
+
+import java.sql.*;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Data Access Object for bulk recharge batches
+ * Records which usernames a batch has already credited so that re-running
+ * the same batch never credits a wallet twice
+ */
+public class RechargeBatchDAO {
+    
+    /**
+     * Lock and return the usernames a batch has already credited
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param batchId Batch ID
+     * @param usernames Usernames to check
+     * @return Subset of usernames already applied in this batch
+     * @throws SQLException if the query fails
+     */
+    public Set<String> lockAppliedUsernames(Connection conn, String batchId, Collection<String> usernames) throws SQLException {
+        Set<String> applied = new HashSet<>();
+        if (usernames.isEmpty()) {
+            return applied;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT username FROM recharge_batch_items WHERE batch_id = ? AND username IN (");
+        for (int i = 0; i < usernames.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") FOR UPDATE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            stmt.setString(index++, batchId);
+            for (String username : usernames) {
+                stmt.setString(index++, username);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    applied.add(rs.getString("username"));
+                }
+            }
+        }
+        
+        return applied;
+    }
+    
+    /**
+     * Record applied credits as one JDBC batch
+     * Runs on the caller's connection and does not commit; the primary key on
+     * (batch_id, username) rejects a concurrent run of the same batch
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param batchId Batch ID
+     * @param usernames Credited usernames
+     * @param amounts Credited amounts in paise, parallel to usernames
+     * @param transactionIds Ledger transaction IDs, parallel to usernames
+     * @throws SQLException if the batch fails
+     */
+    public void insertItems(Connection conn, String batchId, List<String> usernames,
+                            List<Long> amounts, int[] transactionIds) throws SQLException {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        
+        String query = "INSERT INTO recharge_batch_items (batch_id, username, amount, transaction_id) VALUES (?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < usernames.size(); i++) {
+                stmt.setString(1, batchId);
+                stmt.setString(2, usernames.get(i));
+                Money.setMoney(stmt, 3, amounts.get(i));
+                stmt.setInt(4, transactionIds[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
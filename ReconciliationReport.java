@@ -0,0 +1,134 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a ledger reconciliation run
+ * Only the first MAX_DISCREPANCIES findings are kept in detail; the counters
+ * always cover the whole ledger
+ */
+public class ReconciliationReport {
+    public static final int MAX_DISCREPANCIES = 10000;
+
+    private long transactionsChecked;
+    private int usersChecked;
+    private int discrepancyCount;
+    private long durationMillis;
+    private List<Discrepancy> discrepancies = new ArrayList<>();
+
+    public enum DiscrepancyType {
+        BAD_ARITHMETIC, BROKEN_CHAIN, FINAL_BALANCE_MISMATCH, SCAN_FAILED
+    }
+
+    /**
+     * A single ledger finding
+     */
+    public static class Discrepancy {
+        private final int userId;
+        private final Integer transactionId;
+        private final DiscrepancyType type;
+        private final String detail;
+
+        public Discrepancy(int userId, Integer transactionId, DiscrepancyType type, String detail) {
+            this.userId = userId;
+            this.transactionId = transactionId;
+            this.type = type;
+            this.detail = detail;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public Integer getTransactionId() {
+            return transactionId;
+        }
+
+        public DiscrepancyType getType() {
+            return type;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        @Override
+        public String toString() {
+            return type + " user=" + userId +
+                    (transactionId != null ? " txn=" + transactionId : "") +
+                    " " + detail;
+        }
+    }
+
+    public void addDiscrepancy(Discrepancy discrepancy) {
+        discrepancyCount++;
+        if (discrepancies.size() < MAX_DISCREPANCIES) {
+            discrepancies.add(discrepancy);
+        }
+    }
+
+    public void addTransactionsChecked(long count) {
+        transactionsChecked += count;
+    }
+
+    public void addUsersChecked(int count) {
+        usersChecked += count;
+    }
+
+    /**
+     * Fold a partial report from another worker into this one
+     *
+     * @param other Partial report
+     */
+    public void merge(ReconciliationReport other) {
+        transactionsChecked += other.transactionsChecked;
+        usersChecked += other.usersChecked;
+        discrepancyCount += other.discrepancyCount;
+        for (Discrepancy discrepancy : other.discrepancies) {
+            if (discrepancies.size() >= MAX_DISCREPANCIES) {
+                break;
+            }
+            discrepancies.add(discrepancy);
+        }
+    }
+
+    public boolean isClean() {
+        return discrepancyCount == 0;
+    }
+
+    // Getters and Setters
+    public long getTransactionsChecked() {
+        return transactionsChecked;
+    }
+
+    public int getUsersChecked() {
+        return usersChecked;
+    }
+
+    public int getDiscrepancyCount() {
+        return discrepancyCount;
+    }
+
+    public List<Discrepancy> getDiscrepancies() {
+        return discrepancies;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconciliationReport{" +
+                "usersChecked=" + usersChecked +
+                ", transactionsChecked=" + transactionsChecked +
+                ", discrepancyCount=" + discrepancyCount +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
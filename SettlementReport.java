@@ -0,0 +1,94 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settlement report summarising one run of the POSTPAID settlement engine
+ */
+public class SettlementReport {
+    private int jobsScanned;
+    private int jobsSettled;
+    private int batchesCommitted;
+    private int batchesFailed;
+    private long totalCollected; // in paise
+    private long durationMillis;
+    private List<Integer> insufficientBalanceJobIds = new ArrayList<>();
+    private List<Integer> failedJobIds = new ArrayList<>();
+
+    public void addScanned(int count) {
+        jobsScanned += count;
+    }
+
+    public void addSettled(int count, long amount) {
+        jobsSettled += count;
+        totalCollected += amount;
+    }
+
+    public void addInsufficientBalance(int jobId) {
+        insufficientBalanceJobIds.add(jobId);
+    }
+
+    public void addFailedJob(int jobId) {
+        failedJobIds.add(jobId);
+    }
+
+    public void batchCommitted() {
+        batchesCommitted++;
+    }
+
+    public void batchFailed() {
+        batchesFailed++;
+    }
+
+    // Getters and Setters
+    public int getJobsScanned() {
+        return jobsScanned;
+    }
+
+    public int getJobsSettled() {
+        return jobsSettled;
+    }
+
+    public int getBatchesCommitted() {
+        return batchesCommitted;
+    }
+
+    public int getBatchesFailed() {
+        return batchesFailed;
+    }
+
+    public long getTotalCollected() {
+        return totalCollected;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<Integer> getInsufficientBalanceJobIds() {
+        return insufficientBalanceJobIds;
+    }
+
+    public List<Integer> getFailedJobIds() {
+        return failedJobIds;
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementReport{" +
+                "jobsScanned=" + jobsScanned +
+                ", jobsSettled=" + jobsSettled +
+                ", totalCollected=" + Money.formatPlain(totalCollected) +
+                ", insufficientBalance=" + insufficientBalanceJobIds.size() +
+                ", failedJobs=" + failedJobIds.size() +
+                ", batchesCommitted=" + batchesCommitted +
+                ", batchesFailed=" + batchesFailed +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,235 @@
+package services;
+
+import dao.PrintJobDAO;
+import dao.TransactionDAO;
+import dao.UserDAO;
+import database.DatabaseConnection;
+import models.Money;
+import models.PrintJob;
+import models.PrintJob.PaymentStatus;
+import models.SettlementReport;
+import models.Transaction;
+import models.Transaction.TransactionType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batched settlement of POSTPAID print jobs
+ * Walks completed, unpaid POSTPAID jobs in keyset-paged batches. Each batch is one
+ * database transaction that locks the jobs and the affected wallets, debits the
+ * wallets, writes the PAYMENT ledger rows and marks the jobs PAID, all with JDBC batches.
+ * Jobs whose owner cannot cover the cost stay UNPAID and are listed in the report.
+ */
+public class SettlementService {
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private UserDAO userDAO;
+    private PrintJobDAO printJobDAO;
+    private TransactionDAO transactionDAO;
+
+    public SettlementService() {
+        this.userDAO = new UserDAO();
+        this.printJobDAO = new PrintJobDAO();
+        this.transactionDAO = new TransactionDAO();
+    }
+
+    /**
+     * Settle all outstanding POSTPAID jobs using the default batch size
+     *
+     * @return Settlement report
+     */
+    public SettlementReport settlePostpaidJobs() {
+        return settlePostpaidJobs(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Settle all outstanding POSTPAID jobs
+     *
+     * @param batchSize Number of jobs settled per database transaction
+     * @return Settlement report
+     */
+    public SettlementReport settlePostpaidJobs(int batchSize) {
+        SettlementReport report = new SettlementReport();
+        long start = System.currentTimeMillis();
+        int afterJobId = 0;
+
+        while (true) {
+            int lastJobId = settleBatch(afterJobId, batchSize, report);
+            if (lastJobId < 0) {
+                break;
+            }
+            afterJobId = lastJobId;
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    /**
+     * Settle one page of jobs in a single transaction
+     *
+     * @return Highest job ID seen in the page, or -1 when there are no more jobs
+     */
+    private int settleBatch(int afterJobId, int batchSize, SettlementReport report) {
+        Connection conn = null;
+        List<PrintJob> jobs = new ArrayList<>();
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            jobs = printJobDAO.lockSettleableJobs(conn, afterJobId, batchSize);
+            if (jobs.isEmpty()) {
+                conn.rollback();
+                return -1;
+            }
+
+            SettlementReport chunk = new SettlementReport();
+            settleLockedJobs(conn, jobs, chunk);
+            conn.commit();
+
+            report.addScanned(jobs.size());
+            report.addSettled(chunk.getJobsSettled(), chunk.getTotalCollected());
+            for (int jobId : chunk.getInsufficientBalanceJobIds()) {
+                report.addInsufficientBalance(jobId);
+            }
+            report.batchCommitted();
+
+        } catch (SQLException e) {
+            System.err.println("Error settling batch after job #" + afterJobId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (jobs.isEmpty()) {
+                // Could not even read the page; stop instead of spinning on the same range
+                report.batchFailed();
+                return -1;
+            }
+            report.addScanned(jobs.size());
+            for (PrintJob job : jobs) {
+                report.addFailedJob(job.getJobId());
+            }
+            report.batchFailed();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return jobs.get(jobs.size() - 1).getJobId();
+    }
+
+    /**
+     * Settle POSTPAID jobs the caller has already locked
+     * Runs on the caller's connection and does not commit
+     *
+     * @param conn Open connection with auto-commit disabled
+     * @param jobs Locked unpaid POSTPAID jobs
+     * @param chunk Receives the settled count, amount and jobs short of funds
+     * @throws SQLException if any step fails
+     */
+    void settleLockedJobs(Connection conn, List<PrintJob> jobs, SettlementReport chunk) throws SQLException {
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (PrintJob job : jobs) {
+            userIds.add(job.getUserId());
+        }
+        Map<Integer, Long> balances = userDAO.lockWalletBalances(conn, userIds);
+        Map<Integer, Long> held = userDAO.getHeldBalances(conn, userIds);
+
+        List<String> keys = new ArrayList<>();
+        for (PrintJob job : jobs) {
+            keys.add(PaymentService.jobLedgerKey(TransactionType.PAYMENT, job.getJobId()));
+        }
+        Set<String> usedKeys = transactionDAO.findUsedIdempotencyKeys(conn, keys);
+
+        Map<Integer, Long> newBalances = new HashMap<>();
+        List<Transaction> payments = new ArrayList<>();
+        List<Integer> settledJobIds = new ArrayList<>();
+        List<Integer> shortJobIds = new ArrayList<>();
+        long collected = 0;
+
+        for (PrintJob job : jobs) {
+            String key = PaymentService.jobLedgerKey(TransactionType.PAYMENT, job.getJobId());
+            if (usedKeys.contains(key)) {
+                // Charged by an earlier run that did not get to mark the job PAID
+                settledJobIds.add(job.getJobId());
+                continue;
+            }
+
+            Long balance = balances.get(job.getUserId());
+            long cost = job.getTotalCost();
+
+            // Funds held for pending PREPAID jobs are not available for settlement
+            long heldBalance = held.getOrDefault(job.getUserId(), 0L);
+            if (balance == null || balance - heldBalance < cost) {
+                shortJobIds.add(job.getJobId());
+                continue;
+            }
+
+            long newBalance = balance - cost;
+            balances.put(job.getUserId(), newBalance);
+            newBalances.put(job.getUserId(), newBalance);
+
+            Transaction payment = new Transaction(
+                job.getUserId(),
+                TransactionType.PAYMENT,
+                cost,
+                balance,
+                newBalance,
+                "Settlement for print job #" + job.getJobId()
+            );
+            payment.setJobId(job.getJobId());
+            payment.setIdempotencyKey(key);
+            payments.add(payment);
+            settledJobIds.add(job.getJobId());
+            collected += cost;
+        }
+
+        userDAO.setWalletBalances(conn, newBalances);
+        transactionDAO.insertTransactions(conn, payments);
+        printJobDAO.updatePaymentStatus(conn, settledJobIds, PaymentStatus.PAID);
+
+        chunk.addSettled(settledJobIds.size(), collected);
+        for (int jobId : shortJobIds) {
+            chunk.addInsufficientBalance(jobId);
+        }
+    }
+
+    /**
+     * Entry point for the nightly settlement run
+     */
+    public static void main(String[] args) {
+        int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BATCH_SIZE;
+
+        if (!DatabaseConnection.getInstance().testConnection()) {
+            System.err.println("Database connection failed. Settlement not run.");
+            System.exit(1);
+        }
+
+        SettlementReport report = new SettlementService().settlePostpaidJobs(batchSize);
+        System.out.println("POSTPAID settlement finished");
+        System.out.println("  Jobs scanned:         " + report.getJobsScanned());
+        System.out.println("  Jobs settled:         " + report.getJobsSettled());
+        System.out.println("  Total collected:      " + Money.format(report.getTotalCollected()));
+        System.out.println("  Insufficient balance: " + report.getInsufficientBalanceJobIds().size());
+        System.out.println("  Failed jobs:          " + report.getFailedJobIds().size());
+        System.out.println("  Duration:             " + report.getDurationMillis() + " ms");
+    }
+}
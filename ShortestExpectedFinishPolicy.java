@@ -0,0 +1,28 @@
+package services;
+
+import models.PrintJob;
+import models.PrinterLoad;
+
+import java.util.List;
+
+/**
+ * Assigns each job to the printer that would finish it soonest,
+ * taking both queued sheets and printer speed into account
+ */
+public class ShortestExpectedFinishPolicy implements AssignmentPolicy {
+
+    @Override
+    public PrinterLoad choosePrinter(PrintJob job, List<PrinterLoad> candidates) {
+        long pages = (long) job.getPageCount() * job.getNumCopies();
+        PrinterLoad best = candidates.get(0);
+        double bestFinish = best.expectedFinishMinutes(pages);
+        for (PrinterLoad candidate : candidates) {
+            double finish = candidate.expectedFinishMinutes(pages);
+            if (finish < bestFinish) {
+                best = candidate;
+                bestFinish = finish;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,92 @@
+package models;
+
+import java.sql.Timestamp;
+
+/**
+ * SpoolBatch model representing a run of small jobs printed as one combined document
+ */
+public class SpoolBatch {
+    private int batchId;
+    private Integer operatorId;
+    private int jobCount;
+    private int totalSheets;
+    private BatchStatus batchStatus;
+    private Timestamp createdAt;
+    private Timestamp completedAt;
+    
+    public enum BatchStatus {
+        SPOOLED, COMPLETED
+    }
+    
+    // Constructors
+    public SpoolBatch() {}
+    
+    public SpoolBatch(Integer operatorId, int jobCount, int totalSheets) {
+        this.operatorId = operatorId;
+        this.jobCount = jobCount;
+        this.totalSheets = totalSheets;
+        this.batchStatus = BatchStatus.SPOOLED;
+    }
+    
+    // Getters and Setters
+    public int getBatchId() {
+        return batchId;
+    }
+    
+    public void setBatchId(int batchId) {
+        this.batchId = batchId;
+    }
+    
+    public Integer getOperatorId() {
+        return operatorId;
+    }
+    
+    public void setOperatorId(Integer operatorId) {
+        this.operatorId = operatorId;
+    }
+    
+    public int getJobCount() {
+        return jobCount;
+    }
+    
+    public void setJobCount(int jobCount) {
+        this.jobCount = jobCount;
+    }
+    
+    public int getTotalSheets() {
+        return totalSheets;
+    }
+    
+    public void setTotalSheets(int totalSheets) {
+        this.totalSheets = totalSheets;
+    }
+    
+    public BatchStatus getBatchStatus() {
+        return batchStatus;
+    }
+    
+    public void setBatchStatus(BatchStatus batchStatus) {
+        this.batchStatus = batchStatus;
+    }
+    
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Timestamp getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(Timestamp completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "Batch #" + batchId + " (" + jobCount + " jobs, " + totalSheets + " sheets)";
+    }
+}
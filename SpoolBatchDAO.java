@@ -0,0 +1,160 @@
+package dao;
+
+import database.DatabaseConnection;
+import models.SpoolBatch;
+import models.SpoolBatch.BatchStatus;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for SpoolBatch operations
+ * Handles all database operations related to combined spool runs
+ */
+public class SpoolBatchDAO {
+    
+    /**
+     * Create a batch on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param batch Batch to create
+     * @return Generated batch ID
+     * @throws SQLException if the insert fails
+     */
+    public int createBatch(Connection conn, SpoolBatch batch) throws SQLException {
+        String query = "INSERT INTO spool_batches (operator_id, job_count, total_sheets, batch_status) VALUES (?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setObject(1, batch.getOperatorId());
+            stmt.setInt(2, batch.getJobCount());
+            stmt.setInt(3, batch.getTotalSheets());
+            stmt.setString(4, BatchStatus.SPOOLED.name());
+            stmt.executeUpdate();
+            
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        
+        throw new SQLException("No batch ID generated");
+    }
+    
+    /**
+     * Lock a batch on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param batchId Batch ID
+     * @return SpoolBatch object or null if not found
+     * @throws SQLException if the query fails
+     */
+    public SpoolBatch lockBatch(Connection conn, int batchId) throws SQLException {
+        String query = "SELECT * FROM spool_batches WHERE batch_id = ? FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, batchId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractBatchFromResultSet(rs);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Mark a locked batch as completed on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param batchId Batch ID
+     * @throws SQLException if the update fails
+     */
+    public void markCompleted(Connection conn, int batchId) throws SQLException {
+        String query = "UPDATE spool_batches SET batch_status = 'COMPLETED', completed_at = CURRENT_TIMESTAMP " +
+                      "WHERE batch_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, batchId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Take the unfinished jobs on a printer out of the counts of their open batches
+     * Call before PrintJobDAO.requeuePrinterJobs, which detaches those jobs.
+     * Runs on the caller's connection and does not commit
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param printerId Printer whose jobs are being requeued
+     * @return Number of batches adjusted
+     * @throws SQLException if the update fails
+     */
+    public int releasePrinterJobs(Connection conn, int printerId) throws SQLException {
+        String query = "UPDATE spool_batches sb JOIN (" +
+                      "SELECT spool_batch_id, COUNT(*) AS jobs, SUM(page_count * num_copies) AS sheets " +
+                      "FROM print_jobs WHERE printer_id = ? AND job_status IN ('PENDING', 'PROCESSING') " +
+                      "AND spool_batch_id IS NOT NULL GROUP BY spool_batch_id" +
+                      ") released ON sb.batch_id = released.spool_batch_id " +
+                      "SET sb.job_count = sb.job_count - released.jobs, sb.total_sheets = sb.total_sheets - released.sheets " +
+                      "WHERE sb.batch_status = 'SPOOLED'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, printerId);
+            return stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Get batches that were spooled but not yet marked printed
+     * 
+     * @return List of open batches, oldest first
+     */
+    public List<SpoolBatch> getOpenBatches() {
+        List<SpoolBatch> batches = new ArrayList<>();
+        String query = "SELECT * FROM spool_batches WHERE batch_status = 'SPOOLED' ORDER BY batch_id";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                batches.add(extractBatchFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching spool batches: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return batches;
+    }
+    
+    /**
+     * Extract SpoolBatch object from ResultSet
+     * 
+     * @param rs ResultSet containing batch data
+     * @return SpoolBatch object
+     * @throws SQLException if error reading from ResultSet
+     */
+    private SpoolBatch extractBatchFromResultSet(ResultSet rs) throws SQLException {
+        SpoolBatch batch = new SpoolBatch();
+        batch.setBatchId(rs.getInt("batch_id"));
+        
+        int operatorId = rs.getInt("operator_id");
+        if (!rs.wasNull()) {
+            batch.setOperatorId(operatorId);
+        }
+        
+        batch.setJobCount(rs.getInt("job_count"));
+        batch.setTotalSheets(rs.getInt("total_sheets"));
+        batch.setBatchStatus(BatchStatus.valueOf(rs.getString("batch_status")));
+        batch.setCreatedAt(rs.getTimestamp("created_at"));
+        batch.setCompletedAt(rs.getTimestamp("completed_at"));
+        return batch;
+    }
+}
@@ -0,0 +1,339 @@
+package services;
+
+import dao.PrintJobDAO;
+import dao.SpoolBatchDAO;
+import dao.WalletHoldDAO;
+import database.DatabaseConnection;
+import models.DocumentHandle;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+import models.PrintJob.PaymentStatus;
+import models.PrintJob.PaymentType;
+import models.SpoolBatch;
+import models.SpoolBatch.BatchStatus;
+import models.WalletHold;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Groups consecutive small PENDING jobs into one spool batch
+ * The batch is handed to the operator as a single bundle in which every document is
+ * preceded by a separator sheet naming the job and student, and the whole batch is
+ * marked COMPLETED (and its PREPAID holds captured) in one transaction.
+ * Limits come from database.properties: spool.maxJobSheets (largest job that may be
+ * batched), spool.maxBatchSheets (page budget) and spool.maxSpanMinutes (jobs in a
+ * batch were all submitted within this window of the first one).
+ */
+public class SpoolBatcher {
+    public static final int DEFAULT_MAX_JOB_SHEETS = 10;
+    public static final int DEFAULT_MAX_BATCH_SHEETS = 200;
+    public static final long DEFAULT_MAX_SPAN_MILLIS = 30 * 60 * 1000L;
+    private static final int MIN_BATCH_JOBS = 2;
+
+    private final int maxJobSheets;
+    private final int maxBatchSheets;
+    private final long maxSpanMillis;
+
+    private PrintJobDAO printJobDAO;
+    private SpoolBatchDAO spoolBatchDAO;
+    private WalletHoldDAO walletHoldDAO;
+    private PaymentService paymentService;
+
+    public SpoolBatcher() {
+        this(Integer.parseInt(DatabaseConnection.getInstance().getProperty("spool.maxJobSheets",
+                 String.valueOf(DEFAULT_MAX_JOB_SHEETS))),
+             Integer.parseInt(DatabaseConnection.getInstance().getProperty("spool.maxBatchSheets",
+                 String.valueOf(DEFAULT_MAX_BATCH_SHEETS))),
+             Long.parseLong(DatabaseConnection.getInstance().getProperty("spool.maxSpanMinutes",
+                 String.valueOf(DEFAULT_MAX_SPAN_MILLIS / 60000))) * 60000);
+    }
+
+    /**
+     * @param maxJobSheets Largest job (pages × copies) that may be batched
+     * @param maxBatchSheets Most sheets in one batch
+     * @param maxSpanMillis Longest gap between the first and last submission in a batch
+     */
+    public SpoolBatcher(int maxJobSheets, int maxBatchSheets, long maxSpanMillis) {
+        this.maxJobSheets = maxJobSheets;
+        this.maxBatchSheets = maxBatchSheets;
+        this.maxSpanMillis = maxSpanMillis;
+        this.printJobDAO = new PrintJobDAO();
+        this.spoolBatchDAO = new SpoolBatchDAO();
+        this.walletHoldDAO = new WalletHoldDAO();
+        this.paymentService = new PaymentService();
+    }
+
+    /**
+     * Pick the next run of consecutive small jobs from a queue in scheduling order
+     * Jobs that are already being printed or already batched are stepped over; the
+     * run ends at the first large job or when a budget would be exceeded.
+     *
+     * @param queue Queue in scheduling order
+     * @return Jobs for the next batch, possibly empty
+     */
+    public List<PrintJob> planBatch(List<PrintJob> queue) {
+        List<PrintJob> batch = new ArrayList<>();
+        long sheets = 0;
+        long firstSubmitted = 0;
+
+        for (PrintJob job : queue) {
+            if (job.getJobStatus() != JobStatus.PENDING || job.getSpoolBatchId() != null) {
+                continue;
+            }
+
+            long jobSheets = (long) job.getPageCount() * job.getNumCopies();
+            if (jobSheets > maxJobSheets) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                break;
+            }
+
+            long submitted = job.getSubmittedAt() != null ? job.getSubmittedAt().getTime() : 0;
+            if (batch.isEmpty()) {
+                firstSubmitted = submitted;
+            } else if (sheets + jobSheets > maxBatchSheets || Math.abs(submitted - firstSubmitted) > maxSpanMillis) {
+                break;
+            }
+
+            batch.add(job);
+            sheets += jobSheets;
+        }
+
+        return batch;
+    }
+
+    /**
+     * Create the next spool batch and write its combined bundle
+     * Locks the planned jobs, drops any that changed meanwhile or are PREPAID without
+     * held funds, records the batch, moves the jobs to PROCESSING on the first job's
+     * printer and writes the bundle, all before committing. The bundle is flushed and
+     * synced to disk before the commit; if it cannot be written completely the file is
+     * deleted and nothing is changed.
+     *
+     * @param operatorId Operator creating the batch
+     * @param bundle File the zip bundle is written to
+     * @return The created batch, or null if there were too few batchable jobs or on error
+     */
+    public SpoolBatch createBatch(int operatorId, File bundle) {
+        List<PrintJob> planned = planBatch(QueueService.getInstance().getQueueJobs());
+        if (planned.size() < MIN_BATCH_JOBS) {
+            return null;
+        }
+
+        List<Integer> plannedIds = new ArrayList<>();
+        for (PrintJob job : planned) {
+            plannedIds.add(job.getJobId());
+        }
+
+        Connection conn = null;
+        boolean bundleOpened = false;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            Map<Integer, PrintJob> locked = new HashMap<>();
+            List<Integer> prepaidIds = new ArrayList<>();
+            for (PrintJob job : printJobDAO.lockUnbatchedPendingJobs(conn, plannedIds)) {
+                locked.put(job.getJobId(), job);
+                if (job.getPaymentType() == PaymentType.PREPAID && job.getPaymentStatus() == PaymentStatus.UNPAID) {
+                    prepaidIds.add(job.getJobId());
+                }
+            }
+            Set<Integer> held = new HashSet<>();
+            for (WalletHold hold : walletHoldDAO.lockActiveHolds(conn, prepaidIds)) {
+                held.add(hold.getJobId());
+            }
+
+            // Keep queue order for the bundle
+            List<PrintJob> jobs = new ArrayList<>();
+            List<Integer> jobIds = new ArrayList<>();
+            int totalSheets = 0;
+            for (int jobId : plannedIds) {
+                PrintJob job = locked.get(jobId);
+                if (job == null || (prepaidIds.contains(jobId) && !held.contains(jobId))) {
+                    continue;
+                }
+                jobs.add(job);
+                jobIds.add(jobId);
+                totalSheets += job.getPageCount() * job.getNumCopies();
+            }
+
+            if (jobs.size() < MIN_BATCH_JOBS) {
+                conn.rollback();
+                return null;
+            }
+
+            SpoolBatch batch = new SpoolBatch(operatorId, jobs.size(), totalSheets);
+            batch.setBatchId(spoolBatchDAO.createBatch(conn, batch));
+            printJobDAO.assignSpoolBatch(conn, batch.getBatchId(), jobIds);
+
+            // The whole bundle goes to one printer
+            Integer printerId = jobs.get(0).getPrinterId();
+            if (printerId != null) {
+                Map<Integer, Integer> assignments = new HashMap<>();
+                for (int jobId : jobIds) {
+                    assignments.put(jobId, printerId);
+                }
+                printJobDAO.assignPrinters(conn, assignments);
+            }
+            printJobDAO.updateJobStatus(conn, jobIds, JobStatus.PROCESSING, operatorId);
+
+            bundleOpened = true;
+            try (FileOutputStream file = new FileOutputStream(bundle);
+                 OutputStream out = new BufferedOutputStream(file)) {
+                writeBundle(conn, out, batch, jobs);
+                out.flush();
+                file.getFD().sync();
+            }
+
+            conn.commit();
+            return batch;
+
+        } catch (SQLException | IOException e) {
+            System.err.println("Error creating spool batch: " + e.getMessage());
+            e.printStackTrace();
+            if (bundleOpened) {
+                bundle.delete();
+            }
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return null;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark every job of a printed batch COMPLETED and capture its held payments
+     * Jobs cancelled or completed individually since the batch was spooled are left alone.
+     *
+     * @param batchId Spool batch ID
+     * @param operatorId Operator confirming the print
+     * @return Number of jobs completed, or -1 if the batch was not found or on error
+     */
+    public int completeBatch(int batchId, int operatorId) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            SpoolBatch batch = spoolBatchDAO.lockBatch(conn, batchId);
+            if (batch == null) {
+                conn.rollback();
+                return -1;
+            }
+            if (batch.getBatchStatus() == BatchStatus.COMPLETED) {
+                conn.rollback();
+                return 0;
+            }
+
+            List<Integer> jobIds = printJobDAO.getProcessingJobIds(conn, batchId);
+            PrintJob first = jobIds.isEmpty() ? null : printJobDAO.lockJob(conn, jobIds.get(0));
+            printJobDAO.updateJobStatus(conn, jobIds, JobStatus.COMPLETED, operatorId);
+            paymentService.capturePayments(conn, jobIds);
+            spoolBatchDAO.markCompleted(conn, batchId);
+
+            conn.commit();
+
+            // The batch was printed as one run on one printer
+            if (first != null) {
+                EtaEngine.getInstance().recordWork(first.getPrinterId(), operatorId, batch.getTotalSheets(),
+                                                   batch.getCreatedAt(), new Timestamp(System.currentTimeMillis()));
+            }
+            return jobIds.size();
+
+        } catch (SQLException e) {
+            System.err.println("Error completing spool batch #" + batchId + ": " + e.getMessage());
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return -1;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the batch as a zip: a separator sheet, then the document, for each job in order
+     * Each document is streamed from the database into its entry, one part at a time.
+     */
+    private void writeBundle(Connection conn, OutputStream out, SpoolBatch batch, List<PrintJob> jobs)
+            throws SQLException, IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        int index = 1;
+
+        for (PrintJob job : jobs) {
+            String prefix = String.format("%03d", index);
+
+            zip.putNextEntry(new ZipEntry(prefix + "a-separator-job-" + job.getJobId() + ".txt"));
+            zip.write(separatorSheet(batch, job, index, jobs.size()).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+
+            long size = job.getDocument() != null ? job.getDocument().getSize() : DocumentHandle.UNKNOWN_SIZE;
+            try (InputStream content = printJobDAO.openDocument(conn, job.getJobId(), size)) {
+                if (content != null) {
+                    zip.putNextEntry(new ZipEntry(prefix + "b-job-" + job.getJobId() + "-" +
+                                                  job.getDocumentName().replaceAll("[^A-Za-z0-9._-]", "_")));
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+            index++;
+        }
+
+        zip.finish();
+    }
+
+    private String separatorSheet(SpoolBatch batch, PrintJob job, int index, int count) {
+        return "SPOOL BATCH #" + batch.getBatchId() + "  (" + index + " of " + count + ")\n\n" +
+               "Job ID:   " + job.getJobId() + "\n" +
+               "Student:  " + job.getFullName() + " (" + job.getUsername() + ")\n" +
+               "Document: " + job.getDocumentName() + "\n" +
+               "Pages:    " + job.getPageCount() + "\n" +
+               "Copies:   " + job.getNumCopies() + "\n";
+    }
+}
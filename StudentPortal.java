@@ -1,21 +1,30 @@
 package ui;
 
 import dao.PrintJobDAO;
-import dao.TransactionDAO;
-import dao.UserDAO;
+import database.DatabaseConnection;
+import models.DocumentHandle;
+import models.JobSnapshot;
+import models.Money;
 import models.PrintJob;
+import models.PrintJob.JobStatus;
 import models.PrintJob.PaymentType;
 import models.Transaction;
 import models.User;
+import services.AsyncDataService;
 import services.PaymentService;
+import services.QueueService;
+import services.SubmissionJournal;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.File;
+import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Student Portal - Main interface for students
@@ -23,23 +32,30 @@ import java.util.List;
  */
 public class StudentPortal extends JFrame {
     private User currentUser;
-    private UserDAO userDAO;
     private PrintJobDAO printJobDAO;
-    private TransactionDAO transactionDAO;
     private PaymentService paymentService;
+    private SubmissionJournal journal;
     
     private JLabel walletBalanceLabel;
+    private JLabel walletPanelBalanceLabel;
     private JTabbedPane tabbedPane;
     private Timer refreshTimer;
+    private DefaultTableModel queueModel;
+    private JobTableModel myJobsModel;
+    private DefaultTableModel transactionModel;
+    private BackgroundLoader refreshLoader;
+    private BackgroundLoader submitLoader;
+    private BackgroundLoader rechargeLoader;
+    private Runnable resetSubmitForm;
     
     public StudentPortal(User user) {
         this.currentUser = user;
-        this.userDAO = new UserDAO();
         this.printJobDAO = new PrintJobDAO();
-        this.transactionDAO = new TransactionDAO();
         this.paymentService = new PaymentService();
+        this.journal = SubmissionJournal.getInstance();
         
         initializeUI();
+        refreshData();
         startAutoRefresh();
     }
     
@@ -95,7 +111,7 @@ public class StudentPortal extends JFrame {
         walletLabel.setForeground(Color.BLACK);
         rightPanel.add(walletLabel);
         
-        walletBalanceLabel = new JLabel("₹" + String.format("%.2f", currentUser.getWalletBalance()));
+        walletBalanceLabel = new JLabel(Money.format(currentUser.getWalletBalance()));
         walletBalanceLabel.setFont(new Font("Arial", Font.BOLD, 18));
         walletBalanceLabel.setForeground(new Color(46, 204, 113));
         rightPanel.add(walletBalanceLabel);
@@ -109,6 +125,9 @@ public class StudentPortal extends JFrame {
         refreshButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
         refreshButton.setToolTipText("Refresh");
         refreshButton.addActionListener(e -> refreshData());
+        JProgressBar loadingIndicator = BackgroundLoader.createIndicator();
+        refreshLoader = new BackgroundLoader(loadingIndicator);
+        rightPanel.add(loadingIndicator);
         rightPanel.add(refreshButton);
         
         JButton logoutButton = new JButton("Logout");
@@ -128,6 +147,10 @@ public class StudentPortal extends JFrame {
     }
     
     private File selectedFile;
+    private File submissionFile;
+    private String submissionKey;
+    private String rechargeKey;
+    private long rechargeKeyAmount;
     
     private boolean validateFile(File file) {
         if (file == null || !file.exists()) {
@@ -257,6 +280,12 @@ public class StudentPortal extends JFrame {
                 File file = fileChooser.getSelectedFile();
                 try {
                     if (validateFile(file)) {
+                        // Re-selecting the same file after a failed submit keeps its key,
+                        // so a retry cannot create a second job
+                        if (!file.equals(submissionFile)) {
+                            submissionKey = UUID.randomUUID().toString();
+                            submissionFile = file;
+                        }
                         selectedFile = file;
                         docNameField.setText(selectedFile.getName());
                         docNameField.setToolTipText(selectedFile.getAbsolutePath());
@@ -325,8 +354,8 @@ public class StudentPortal extends JFrame {
         Runnable updateCost = () -> {
             int pages = (Integer) pageSpinner.getValue();
             int copies = (Integer) copiesSpinner.getValue();
-            double cost = PaymentService.calculatePrintCost(pages, copies);
-            costValueLabel.setText("₹" + String.format("%.2f", cost));
+            long cost = PaymentService.calculatePrintCost(pages, copies);
+            costValueLabel.setText(Money.format(cost));
         };
         pageSpinner.addChangeListener(e -> updateCost.run());
         copiesSpinner.addChangeListener(e -> updateCost.run());
@@ -356,9 +385,33 @@ public class StudentPortal extends JFrame {
         paymentPanel.add(postpaidRadio);
         panel.add(paymentPanel, gbc);
         
-        // Submit Button
+        // Needed By (optional deadline)
         gbc.gridx = 0;
         gbc.gridy = 6;
+        JLabel neededByLabel = new JLabel("Needed By:");
+        neededByLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        neededByLabel.setForeground(Color.BLACK);
+        panel.add(neededByLabel, gbc);
+        
+        gbc.gridx = 1;
+        JPanel neededByPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        neededByPanel.setBackground(Color.WHITE);
+        JCheckBox neededByCheck = new JCheckBox("Deadline");
+        neededByCheck.setFont(new Font("Arial", Font.PLAIN, 14));
+        neededByCheck.setBackground(Color.WHITE);
+        JSpinner neededBySpinner = new JSpinner(new SpinnerDateModel());
+        neededBySpinner.setEditor(new JSpinner.DateEditor(neededBySpinner, "dd-MM-yyyy HH:mm"));
+        neededBySpinner.setFont(new Font("Arial", Font.PLAIN, 14));
+        neededBySpinner.setValue(new java.util.Date(System.currentTimeMillis() + 60 * 60 * 1000L));
+        neededBySpinner.setEnabled(false);
+        neededByCheck.addActionListener(e -> neededBySpinner.setEnabled(neededByCheck.isSelected()));
+        neededByPanel.add(neededByCheck);
+        neededByPanel.add(neededBySpinner);
+        panel.add(neededByPanel, gbc);
+        
+        // Submit Button
+        gbc.gridx = 0;
+        gbc.gridy = 7;
         gbc.gridwidth = 2;
         gbc.insets = new Insets(20, 10, 10, 10);
         JButton submitButton = new JButton("Submit Print Job");
@@ -368,22 +421,35 @@ public class StudentPortal extends JFrame {
         submitButton.setFocusPainted(false);
         submitButton.setBorder(BorderFactory.createEmptyBorder(12, 40, 12, 40));
         submitButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        // The form is cleared only once the job is accepted, so a rejected submission keeps its input
+        resetSubmitForm = () -> {
+            docNameField.setText("");
+            docNameField.setToolTipText("");
+            pageSpinner.setValue(1);
+            copiesSpinner.setValue(1);
+            prepaidRadio.setSelected(true);
+            neededByCheck.setSelected(false);
+            neededBySpinner.setEnabled(false);
+        };
         submitButton.addActionListener(e -> {
             String docName = docNameField.getText().trim();
             int pages = (Integer) pageSpinner.getValue();
             int copies = (Integer) copiesSpinner.getValue();
             PaymentType paymentType = prepaidRadio.isSelected() ? PaymentType.PREPAID : PaymentType.POSTPAID;
+            Timestamp neededBy = neededByCheck.isSelected()
+                ? new Timestamp(((java.util.Date) neededBySpinner.getValue()).getTime())
+                : null;
             
-            submitPrintJob(docName, pages, copies, paymentType);
-            
-            // Reset form
-            docNameField.setText("");
-            pageSpinner.setValue(1);
-            copiesSpinner.setValue(1);
-            prepaidRadio.setSelected(true);
+            submitPrintJob(docName, pages, copies, paymentType, neededBy);
         });
         panel.add(submitButton, gbc);
         
+        gbc.gridy = 8;
+        gbc.insets = new Insets(0, 10, 10, 10);
+        JProgressBar submitIndicator = BackgroundLoader.createIndicator();
+        submitLoader = new BackgroundLoader(submitIndicator);
+        panel.add(submitIndicator, gbc);
+        
         return panel;
     }
     
@@ -399,7 +465,8 @@ public class StudentPortal extends JFrame {
         panel.add(titleLabel, BorderLayout.NORTH);
         
         // Table
-        String[] columns = {"Job ID", "Document", "Pages", "Copies", "Cost", "Status", "Queue Position", "Submitted At"};
+        String[] columns = {"Job ID", "Document", "Pages", "Copies", "Cost", "Status", "Queue Position", "Submitted At",
+                            "Est. Start", "Est. Finish"};
         DefaultTableModel model = new DefaultTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
@@ -425,8 +492,7 @@ public class StudentPortal extends JFrame {
         JScrollPane scrollPane = new JScrollPane(table);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        // Load data
-        loadQueueData(model);
+        queueModel = model;
         
         return panel;
     }
@@ -483,12 +549,11 @@ public class StudentPortal extends JFrame {
         
         // Table
         String[] columns = {"Job ID", "Document", "Pages", "Copies", "Cost", "Status", "Payment", "Submitted At"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        JobTableModel model = new JobTableModel(columns, new JobTableModel.Column[]{
+            JobTableModel.Column.JOB_ID, JobTableModel.Column.DOCUMENT, JobTableModel.Column.PAGES,
+            JobTableModel.Column.COPIES, JobTableModel.Column.COST, JobTableModel.Column.STATUS,
+            JobTableModel.Column.PAYMENT, JobTableModel.Column.SUBMITTED
+        }, "dd-MM-yyyy HH:mm");
         
         JTable table = new JTable(model);
         table.setFont(new Font("Arial", Font.PLAIN, 13));
@@ -508,8 +573,7 @@ public class StudentPortal extends JFrame {
         JScrollPane scrollPane = new JScrollPane(table);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        // Load data
-        loadMyJobsData(model);
+        myJobsModel = model;
         
         return panel;
     }
@@ -540,10 +604,10 @@ public class StudentPortal extends JFrame {
         topPanel.add(balanceLabel, gbc);
         
         gbc.gridx = 1;
-        JLabel balanceValue = new JLabel("₹" + String.format("%.2f", currentUser.getWalletBalance()));
-        balanceValue.setFont(new Font("Arial", Font.BOLD, 18));
-        balanceValue.setForeground(new Color(46, 204, 113));
-        topPanel.add(balanceValue, gbc);
+        walletPanelBalanceLabel = new JLabel(Money.format(currentUser.getWalletBalance()));
+        walletPanelBalanceLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        walletPanelBalanceLabel.setForeground(new Color(46, 204, 113));
+        topPanel.add(walletPanelBalanceLabel, gbc);
         
         gbc.gridx = 0;
         gbc.gridy = 2;
@@ -559,6 +623,7 @@ public class StudentPortal extends JFrame {
         gbc.gridx = 0;
         gbc.gridy = 3;
         gbc.gridwidth = 2;
+        rechargeLoader = new BackgroundLoader(null);
         JButton rechargeButton = new JButton("Recharge Wallet");
         rechargeButton.setFont(new Font("Arial", Font.BOLD, 14));
         rechargeButton.setBackground(new Color(46, 204, 113));
@@ -568,19 +633,53 @@ public class StudentPortal extends JFrame {
         rechargeButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
         rechargeButton.addActionListener(e -> {
             try {
-                double amount = Double.parseDouble(rechargeField.getText().trim());
+                long amount = Money.parse(rechargeField.getText());
                 if (amount <= 0) {
                     JOptionPane.showMessageDialog(this, "Please enter a valid amount", "Invalid Amount", JOptionPane.WARNING_MESSAGE);
                     return;
                 }
                 
-                if (paymentService.rechargeWallet(currentUser.getUserId(), amount)) {
-                    JOptionPane.showMessageDialog(this, "Wallet recharged successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    rechargeField.setText("");
-                    refreshData();
-                } else {
-                    JOptionPane.showMessageDialog(this, "Failed to recharge wallet", "Error", JOptionPane.ERROR_MESSAGE);
+                // Keep the key across retries of the same amount so a timed-out attempt is not credited twice
+                if (rechargeKey == null || rechargeKeyAmount != amount) {
+                    rechargeKey = UUID.randomUUID().toString();
+                    rechargeKeyAmount = amount;
+                }
+                
+                if (rechargeLoader.isLoading()) {
+                    return; // The previous recharge is still being processed
                 }
+                int userId = currentUser.getUserId();
+                String key = rechargeKey;
+                rechargeButton.setEnabled(false);
+                
+                // 1 = credited, 0 = saved offline, -1 = failed
+                rechargeLoader.load(AsyncDataService.getInstance().supply(() -> {
+                    if (!journal.hasBacklog() && paymentService.rechargeWallet(userId, amount, key)) {
+                        return 1;
+                    }
+                    boolean offline = journal.hasBacklog() || !DatabaseConnection.getInstance().testConnection();
+                    return offline && journal.journalRecharge(userId, amount, key) ? 0 : -1;
+                }), result -> {
+                    rechargeButton.setEnabled(true);
+                    if (result == 1) {
+                        rechargeKey = null;
+                        JOptionPane.showMessageDialog(this, "Wallet recharged successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        rechargeField.setText("");
+                        refreshData();
+                    } else if (result == 0) {
+                        rechargeKey = null;
+                        JOptionPane.showMessageDialog(this,
+                            "The print server cannot be reached right now.\nYour recharge has been saved on this kiosk " +
+                            "and will be credited when the connection returns.",
+                            "Saved Offline", JOptionPane.INFORMATION_MESSAGE);
+                        rechargeField.setText("");
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Failed to recharge wallet", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, error -> {
+                    rechargeButton.setEnabled(true);
+                    JOptionPane.showMessageDialog(this, "Failed to recharge wallet", "Error", JOptionPane.ERROR_MESSAGE);
+                });
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Please enter a valid number", "Invalid Input", JOptionPane.WARNING_MESSAGE);
             }
@@ -619,13 +718,12 @@ public class StudentPortal extends JFrame {
         
         panel.add(centerPanel, BorderLayout.CENTER);
         
-        // Load transaction data
-        loadTransactionData(model);
+        transactionModel = model;
         
         return panel;
     }
     
-    private void submitPrintJob(String docName, int pages, int copies, PaymentType paymentType) {
+    private void submitPrintJob(String docName, int pages, int copies, PaymentType paymentType, Timestamp neededBy) {
         if (docName.isEmpty() || selectedFile == null) {
             JOptionPane.showMessageDialog(this, "Please select a document to print", "Validation Error", JOptionPane.WARNING_MESSAGE);
             return;
@@ -652,51 +750,106 @@ public class StudentPortal extends JFrame {
             return;
         }
         
-        double cost = PaymentService.calculatePrintCost(pages, copies);
+        long cost = PaymentService.calculatePrintCost(pages, copies);
+        if (submitLoader.isLoading()) {
+            return; // The previous submission is still being stored
+        }
+        
+        // While journaled work is waiting for the database, new work joins the journal behind it
+        boolean offline = journal.hasBacklog();
         
-        // Check balance for prepaid
-        if (paymentType == PaymentType.PREPAID) {
-            if (!paymentService.hasSufficientBalance(currentUser.getUserId(), cost)) {
+        PrintJob job = new PrintJob(currentUser.getUserId(), docName, pages, copies, cost, paymentType);
+        job.setIdempotencyKey(submissionKey);
+        job.setNeededBy(neededBy);
+        File file = selectedFile;
+        
+        // Balance and deadline checks are skipped offline; the hold is placed on replay
+        AsyncDataService async = AsyncDataService.getInstance();
+        CompletableFuture<Boolean> enoughBalance = paymentType == PaymentType.PREPAID && !offline
+            ? async.hasSufficientBalance(currentUser.getUserId(), cost)
+            : CompletableFuture.completedFuture(true);
+        CompletableFuture<Timestamp> estimate = neededBy != null && !offline
+            ? async.supply(() -> QueueService.getInstance().estimateCompletion(job))
+            : CompletableFuture.completedFuture(null);
+        
+        submitLoader.load(CompletableFuture.allOf(enoughBalance, estimate), done -> {
+            if (!enoughBalance.join()) {
                 JOptionPane.showMessageDialog(this,
-                    "Insufficient wallet balance. Please recharge your wallet.\nRequired: ₹" + String.format("%.2f", cost),
+                    "Insufficient wallet balance. Please recharge your wallet.\nRequired: " + Money.format(cost),
                     "Insufficient Balance",
                     JOptionPane.WARNING_MESSAGE);
                 tabbedPane.setSelectedIndex(3); // Switch to wallet tab
                 return;
             }
-        }
-        
-                // Create print job with file content
-        PrintJob job = new PrintJob(currentUser.getUserId(), docName, pages, copies, cost, paymentType);
-        int jobId;
-        try {
-            // Read file content with buffer and proper size handling
-            byte[] fileContent;
-            long fileSize = selectedFile.length();
-            if (fileSize > Integer.MAX_VALUE) {
-                throw new Exception("File is too large to process");
-            }
             
-            try (java.io.BufferedInputStream bis = new java.io.BufferedInputStream(
-                    new java.io.FileInputStream(selectedFile))) {
-                fileContent = new byte[(int) fileSize];
-                int bytesRead = bis.read(fileContent);
-                
-                if (bytesRead != fileSize) {
-                    throw new Exception("Could not read entire file");
+            // Warn up front if the deadline cannot be met with the current queue
+            if (neededBy != null && !offline) {
+                Timestamp finish = estimate.join();
+                if (finish == null || finish.after(neededBy)) {
+                    SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm");
+                    String reason = finish == null
+                        ? "No printer is online right now."
+                        : "Estimated completion is " + sdf.format(finish) + ".";
+                    int choice = JOptionPane.showConfirmDialog(this,
+                        "This job is unlikely to be ready by " + sdf.format(neededBy) + ".\n" + reason +
+                        "\nSubmit anyway?",
+                        "Deadline Warning",
+                        JOptionPane.YES_NO_OPTION,
+                        JOptionPane.WARNING_MESSAGE);
+                    if (choice != JOptionPane.YES_OPTION) {
+                        return;
+                    }
                 }
             }
             
-            if (fileContent == null || fileContent.length == 0) {
+            submitLoader.load(async.supply(() -> storeSubmission(job, file, offline)),
+                outcome -> showSubmissionOutcome(outcome, paymentType, cost),
+                error -> showSubmissionOutcome(new SubmissionOutcome(), paymentType, cost));
+        }, error -> JOptionPane.showMessageDialog(this,
+            "Failed to submit print job. Please try again.",
+            "Error",
+            JOptionPane.ERROR_MESSAGE));
+    }
+    
+    /**
+     * What happened to a submission once it left the form
+     */
+    private static class SubmissionOutcome {
+        int jobId = -1;
+        boolean journaled;
+        boolean authorized;
+        String fileError;
+    }
+    
+    /**
+     * Store a submission in the database, or in the journal when the database is unreachable
+     * Runs off the Event Dispatch Thread
+     */
+    private SubmissionOutcome storeSubmission(PrintJob job, File file, boolean offline) {
+        SubmissionOutcome outcome = new SubmissionOutcome();
+        try {
+            // The file is hashed now but only streamed when the job is stored
+            DocumentHandle document = DocumentHandle.ofFile(file.toPath());
+            if (document.getSize() > Integer.MAX_VALUE) {
+                throw new Exception("File is too large to process");
+            }
+            if (document.getSize() == 0) {
                 throw new Exception("Failed to read file content");
             }
             
-            // Set file content and path in the job
-            job.setDocumentContent(fileContent);
-            job.setDocumentPath(selectedFile.getName()); // Store just the filename instead of full path
+            // Set the document and path in the job
+            job.setDocument(document);
+            job.setDocumentPath(file.getName()); // Store just the filename instead of full path
             
             // Create the job in database
-            jobId = printJobDAO.createPrintJob(job);
+            if (!offline) {
+                outcome.jobId = printJobDAO.createPrintJob(job);
+                // Unreachable rather than rejected: keep the work on this kiosk instead
+                offline = outcome.jobId <= 0 && !DatabaseConnection.getInstance().testConnection();
+            }
+            if (offline) {
+                outcome.journaled = journal.journalSubmission(job);
+            }
         } catch (Exception ex) {
             String errorMessage = "Error processing file: ";
             if (ex instanceof java.io.IOException) {
@@ -704,49 +857,84 @@ public class StudentPortal extends JFrame {
             } else {
                 errorMessage += ex.getMessage();
             }
+            outcome.fileError = errorMessage;
+            return outcome;
+        }
+        
+        // Hold funds if prepaid; they are captured when the job is printed
+        if (!outcome.journaled && outcome.jobId > 0 && job.getPaymentType() == PaymentType.PREPAID) {
+            outcome.authorized = paymentService.authorizePayment(job.getUserId(), outcome.jobId, job.getTotalCost());
+            if (!outcome.authorized) {
+                // Nothing was charged; withdraw the job so it never reaches the queue unpaid
+                printJobDAO.updateJobStatus(outcome.jobId, JobStatus.CANCELLED, null);
+            }
+        }
+        return outcome;
+    }
+    
+    private void showSubmissionOutcome(SubmissionOutcome outcome, PaymentType paymentType, long cost) {
+        if (outcome.fileError != null) {
             JOptionPane.showMessageDialog(this,
-                errorMessage + "\nPlease try again.",
+                outcome.fileError + "\nPlease try again.",
                 "File Upload Error",
                 JOptionPane.ERROR_MESSAGE);
             selectedFile = null;
             return;
         }
         
-        if (jobId > 0) {
-            // Process payment if prepaid
+        if (outcome.journaled) {
+            JOptionPane.showMessageDialog(this,
+                "The print server cannot be reached right now.\n" +
+                "Your job has been saved on this kiosk and will join the queue automatically\n" +
+                "when the connection returns." +
+                (paymentType == PaymentType.PREPAID
+                    ? "\n" + Money.format(cost) + " will be reserved then; the job is withdrawn if your balance is short."
+                    : ""),
+                "Saved Offline",
+                JOptionPane.INFORMATION_MESSAGE);
+            resetSubmitForm.run();
+            selectedFile = null;
+            submissionFile = null;
+            submissionKey = null;
+        } else if (outcome.jobId > 0) {
             if (paymentType == PaymentType.PREPAID) {
-                if (paymentService.processPayment(currentUser.getUserId(), jobId, cost)) {
+                if (outcome.authorized) {
                     JOptionPane.showMessageDialog(this,
-                        "Print job submitted successfully!\nJob ID: " + jobId + "\nPayment processed.",
+                        "Print job submitted successfully!\nJob ID: " + outcome.jobId + "\n" +
+                        Money.format(cost) + " reserved and will be charged after printing.",
                         "Success",
                         JOptionPane.INFORMATION_MESSAGE);
+                    resetSubmitForm.run();
                 } else {
                     JOptionPane.showMessageDialog(this,
-                        "Job created but payment failed. Please contact support.",
+                        "Could not reserve " + Money.format(cost) + " from your wallet. The job was not submitted.",
                         "Payment Error",
                         JOptionPane.ERROR_MESSAGE);
                 }
             } else {
                 JOptionPane.showMessageDialog(this,
-                    "Print job submitted successfully!\nJob ID: " + jobId + "\nPayment will be collected after printing.",
+                    "Print job submitted successfully!\nJob ID: " + outcome.jobId + "\nPayment will be collected after printing.",
                     "Success",
                     JOptionPane.INFORMATION_MESSAGE);
+                resetSubmitForm.run();
             }
             
             refreshData();
             selectedFile = null; // Clear the selected file
+            submissionFile = null;
+            submissionKey = null;
         } else {
             JOptionPane.showMessageDialog(this,
                 "Failed to submit print job. Please try again.",
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
-            selectedFile = null; // Clear the selected file on error
+            // Keep the file and its key so submitting again retries the same job
         }
     }
     
-    private void loadQueueData(DefaultTableModel model) {
+    private void showQueueData(List<PrintJob> jobs) {
+        DefaultTableModel model = queueModel;
         model.setRowCount(0);
-        List<PrintJob> jobs = printJobDAO.getPendingJobsByUserId(currentUser.getUserId());
         SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm");
         
         for (PrintJob job : jobs) {
@@ -755,65 +943,59 @@ public class StudentPortal extends JFrame {
                 job.getDocumentName(),
                 job.getPageCount(),
                 job.getNumCopies(),
-                "₹" + String.format("%.2f", job.getTotalCost()),
+                Money.format(job.getTotalCost()),
                 job.getJobStatus(),
                 job.getQueuePosition(),
-                sdf.format(job.getSubmittedAt())
+                sdf.format(job.getSubmittedAt()),
+                job.getPredictedStart() != null ? sdf.format(job.getPredictedStart()) : "-",
+                job.getPredictedFinish() != null ? sdf.format(job.getPredictedFinish()) : "-"
             });
         }
     }
     
-    private void loadMyJobsData(DefaultTableModel model) {
+    private void showTransactionData(List<Transaction> transactions) {
+        DefaultTableModel model = transactionModel;
         model.setRowCount(0);
-        List<PrintJob> jobs = printJobDAO.getJobsByUserId(currentUser.getUserId());
-        SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm");
-        
-        for (PrintJob job : jobs) {
-            model.addRow(new Object[]{
-                job.getJobId(),
-                job.getDocumentName(),
-                job.getPageCount(),
-                job.getNumCopies(),
-                "₹" + String.format("%.2f", job.getTotalCost()),
-                job.getJobStatus(),
-                job.getPaymentStatus(),
-                sdf.format(job.getSubmittedAt())
-            });
-        }
-    }
-    
-    private void loadTransactionData(DefaultTableModel model) {
-        model.setRowCount(0);
-        List<Transaction> transactions = transactionDAO.getTransactionsByUserId(currentUser.getUserId());
         SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm");
         
         for (Transaction trans : transactions) {
             model.addRow(new Object[]{
                 trans.getTransactionId(),
                 trans.getTransactionType(),
-                "₹" + String.format("%.2f", trans.getAmount()),
-                "₹" + String.format("%.2f", trans.getBalanceAfter()),
+                Money.format(trans.getAmount()),
+                Money.format(trans.getBalanceAfter()),
                 sdf.format(trans.getTransactionDate()),
                 trans.getDescription()
             });
         }
     }
     
+    /**
+     * Reload the balance and all tables in the background
+     * A newer refresh discards an older one that is still running
+     */
     private void refreshData() {
-        // Refresh user data
-        currentUser = userDAO.getUserById(currentUser.getUserId());
-        walletBalanceLabel.setText("₹" + String.format("%.2f", currentUser.getWalletBalance()));
-        
-        // Refresh all tabs
-        int selectedIndex = tabbedPane.getSelectedIndex();
-        
-        tabbedPane.removeAll();
-        tabbedPane.addTab("Submit Print Job", createSubmitJobPanel());
-        tabbedPane.addTab("Queue Status", createQueueStatusPanel());
-        tabbedPane.addTab("My Jobs", createMyJobsPanel());
-        tabbedPane.addTab("Wallet & Transactions", createWalletPanel());
-        
-        tabbedPane.setSelectedIndex(selectedIndex);
+        AsyncDataService async = AsyncDataService.getInstance();
+        int userId = currentUser.getUserId();
+        CompletableFuture<User> user = async.getUserById(userId);
+        // Positions and estimates follow the configured scheduler, not just submission time
+        CompletableFuture<List<PrintJob>> queue = async.getQueueJobsForUser(userId);
+        CompletableFuture<JobSnapshot> jobs = async.getJobSnapshotByUserId(userId);
+        CompletableFuture<List<Transaction>> transactions = async.getTransactionsByUserId(userId);
+        
+        refreshLoader.load(CompletableFuture.allOf(user, queue, jobs, transactions), done -> {
+            if (user.join() != null) {
+                currentUser = user.join();
+            }
+            walletBalanceLabel.setText(Money.format(currentUser.getWalletBalance()));
+            walletPanelBalanceLabel.setText(Money.format(currentUser.getWalletBalance()));
+            showQueueData(queue.join());
+            myJobsModel.setSnapshot(jobs.join());
+            showTransactionData(transactions.join());
+        }, error -> {
+            System.err.println("Error refreshing student portal: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
     
     private void startAutoRefresh() {
@@ -830,6 +1012,9 @@ public class StudentPortal extends JFrame {
         if (refreshTimer != null) {
             refreshTimer.stop();
         }
+        refreshLoader.cancel();
+        submitLoader.cancel();
+        rechargeLoader.cancel();
         
         dispose();
         SwingUtilities.invokeLater(() -> {
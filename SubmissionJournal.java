@@ -0,0 +1,579 @@
+package services;
+
+import dao.PrintJobDAO;
+import database.DatabaseConnection;
+import models.DocumentHandle;
+import models.PrintJob;
+import models.PrintJob.JobStatus;
+import models.PrintJob.PaymentType;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local write-ahead journal for submissions and recharges made while the database is unreachable
+ * Entries are appended to a file on the kiosk and are durable before the caller is told
+ * the work was accepted. A single writer thread group-commits: everything queued while
+ * one fsync runs is written and synced by the next, so concurrent submitters share
+ * fsyncs instead of waiting for one each. Document contents go to a side directory and
+ * are synced before their entry is written.
+ * Once the database answers again, pending entries are replayed in journal order. Replay
+ * is idempotent: submissions carry their idempotency key and recharges their ledger key,
+ * so an entry replayed twice after a crash has no further effect. Each replayed entry is
+ * followed by a DONE marker; fully replayed entries are dropped when the journal is
+ * reopened.
+ * Settings in database.properties: journal.path (default print-journal.log) and
+ * journal.replayIntervalSeconds (default 15). Replayed entries are applied through a
+ * ReplayTarget, which is the database unless one is passed to the constructor.
+ */
+public class SubmissionJournal {
+    public static final String DEFAULT_PATH = "print-journal.log";
+    public static final int DEFAULT_REPLAY_INTERVAL_SECONDS = 15;
+    private static final int MAX_GROUP_SIZE = 256;
+
+    private static final String SUBMIT = "SUBMIT";
+    private static final String RECHARGE = "RECHARGE";
+    private static final String DONE = "DONE";
+
+    private enum ReplayOutcome {
+        APPLIED, REJECTED, RETRY
+    }
+
+    /**
+     * Where replayed entries are applied
+     */
+    public interface ReplayTarget {
+        /**
+         * @return true if entries can be applied now
+         */
+        boolean isAvailable();
+
+        /**
+         * @return ID of the created (or original, for a repeated key) job, or -1 on failure
+         */
+        int createPrintJob(PrintJob job);
+
+        PrintJob getJobById(int jobId);
+
+        boolean authorizePayment(int userId, int jobId, long amount);
+
+        /**
+         * Withdraw a replayed job whose funds could not be held
+         */
+        void cancelJob(int jobId);
+
+        boolean rechargeWallet(int userId, long amount, String idempotencyKey);
+    }
+
+    /**
+     * Applies entries to the database through the DAOs and PaymentService
+     */
+    private static class DatabaseTarget implements ReplayTarget {
+        private final PrintJobDAO printJobDAO = new PrintJobDAO();
+        private final PaymentService paymentService = new PaymentService();
+
+        @Override
+        public boolean isAvailable() {
+            return DatabaseConnection.getInstance().testConnection();
+        }
+
+        @Override
+        public int createPrintJob(PrintJob job) {
+            return printJobDAO.createPrintJob(job);
+        }
+
+        @Override
+        public PrintJob getJobById(int jobId) {
+            return printJobDAO.getJobById(jobId);
+        }
+
+        @Override
+        public boolean authorizePayment(int userId, int jobId, long amount) {
+            return paymentService.authorizePayment(userId, jobId, amount);
+        }
+
+        @Override
+        public void cancelJob(int jobId) {
+            printJobDAO.updateJobStatus(jobId, JobStatus.CANCELLED, null);
+        }
+
+        @Override
+        public boolean rechargeWallet(int userId, long amount, String idempotencyKey) {
+            return paymentService.rechargeWallet(userId, amount, idempotencyKey);
+        }
+    }
+
+    private static SubmissionJournal instance;
+
+    private final Path journalFile;
+    private final Path documentDir;
+    private final int replayIntervalSeconds;
+    private final BlockingQueue<PendingWrite> writeQueue = new LinkedBlockingQueue<>();
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final ReplayTarget target;
+    private final Thread writer;
+    private FileChannel channel;
+    private ScheduledExecutorService replayer;
+
+    /**
+     * A line waiting for the writer thread
+     */
+    private static class PendingWrite {
+        private final String line;
+        private final CompletableFuture<Boolean> durable = new CompletableFuture<>();
+
+        PendingWrite(String line) {
+            this.line = line;
+        }
+    }
+
+    /**
+     * Open a journal, dropping entries that were fully replayed before
+     *
+     * @param journalFile Journal file; documents are kept in a sibling directory ending in .docs
+     * @param replayIntervalSeconds Seconds between replay attempts once started
+     * @param target Where replayed entries are applied
+     */
+    public SubmissionJournal(Path journalFile, int replayIntervalSeconds, ReplayTarget target) {
+        this.journalFile = journalFile;
+        this.documentDir = Paths.get(journalFile + ".docs");
+        this.replayIntervalSeconds = replayIntervalSeconds;
+        this.target = target;
+
+        try {
+            Files.createDirectories(documentDir);
+            compact();
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error opening submission journal " + journalFile + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Get the shared journal configured from database.properties, applying entries to the database
+     *
+     * @return SubmissionJournal instance
+     */
+    public static synchronized SubmissionJournal getInstance() {
+        if (instance == null) {
+            DatabaseConnection config = DatabaseConnection.getInstance();
+            instance = new SubmissionJournal(Paths.get(config.getProperty("journal.path", DEFAULT_PATH)),
+                Integer.parseInt(config.getProperty("journal.replayIntervalSeconds",
+                    String.valueOf(DEFAULT_REPLAY_INTERVAL_SECONDS))),
+                new DatabaseTarget());
+        }
+        return instance;
+    }
+
+    /**
+     * Whether entries are still waiting for replay
+     * New work should go to the journal too while this is true, so it replays in order.
+     */
+    public boolean hasBacklog() {
+        return backlog.get() > 0;
+    }
+
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Journal a print job submission
+     *
+     * @param job Job with user, document content, cost, payment type and idempotency key set
+     * @return true once the entry and its document are durable on disk
+     */
+    public boolean journalSubmission(PrintJob job) {
+        if (job.getIdempotencyKey() == null || job.getDocument() == null) {
+            System.err.println("Journaled submissions need an idempotency key and document content");
+            return false;
+        }
+
+        long seq = nextSeq.getAndIncrement();
+        Path documentFile = documentDir.resolve(seq + ".doc");
+
+        try (FileChannel out = FileChannel.open(documentFile, StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            job.getDocument().copyTo(Channels.newOutputStream(out));
+            out.force(true);
+        } catch (IOException e) {
+            System.err.println("Error journaling document for " + job.getDocumentName() + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+
+        String neededBy = job.getNeededBy() != null ? String.valueOf(job.getNeededBy().getTime()) : "";
+        boolean durable = append(SUBMIT, String.valueOf(seq), String.valueOf(job.getUserId()),
+                                 job.getIdempotencyKey(), job.getDocumentName(), job.getDocumentPath(),
+                                 String.valueOf(job.getPageCount()), String.valueOf(job.getNumCopies()),
+                                 String.valueOf(job.getTotalCost()), job.getPaymentType().name(), neededBy,
+                                 documentFile.getFileName().toString());
+        if (!durable) {
+            try {
+                Files.deleteIfExists(documentFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return durable;
+    }
+
+    /**
+     * Journal a wallet recharge
+     *
+     * @param userId User ID
+     * @param amount Amount in paise
+     * @param idempotencyKey Ledger key of the recharge
+     * @return true once the entry is durable on disk
+     */
+    public boolean journalRecharge(int userId, long amount, String idempotencyKey) {
+        return append(RECHARGE, String.valueOf(nextSeq.getAndIncrement()), String.valueOf(userId),
+                      idempotencyKey, String.valueOf(amount));
+    }
+
+    /**
+     * Queue one entry and wait until the writer has synced it
+     */
+    private boolean append(String... fields) {
+        if (channel == null) {
+            return false;
+        }
+
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            line.append(URLEncoder.encode(fields[i] != null ? fields[i] : "", StandardCharsets.UTF_8));
+        }
+        line.append('\n');
+
+        PendingWrite write = new PendingWrite(line.toString());
+        if (!DONE.equals(fields[0])) {
+            backlog.incrementAndGet();
+        }
+        writeQueue.add(write);
+
+        try {
+            if (write.durable.get()) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        if (!DONE.equals(fields[0])) {
+            backlog.decrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Writer thread: write every queued line, then fsync once for the whole group
+     */
+    private void writeLoop() {
+        List<PendingWrite> group = new ArrayList<>();
+
+        while (true) {
+            try {
+                group.add(writeQueue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            writeQueue.drainTo(group, MAX_GROUP_SIZE - 1);
+
+            boolean synced;
+            try {
+                for (PendingWrite write : group) {
+                    ByteBuffer buffer = ByteBuffer.wrap(write.line.getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                channel.force(false);
+                synced = true;
+            } catch (IOException e) {
+                System.err.println("Error writing submission journal: " + e.getMessage());
+                e.printStackTrace();
+                synced = false;
+            }
+
+            for (PendingWrite write : group) {
+                write.durable.complete(synced);
+            }
+            group.clear();
+        }
+    }
+
+    /**
+     * Start replaying pending entries in the background
+     */
+    public synchronized void start() {
+        if (replayer != null) {
+            return;
+        }
+        replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(() -> {
+            try {
+                replay();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next run retries
+                e.printStackTrace();
+            }
+        }, 0, replayIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop replaying and writing, and close the journal file
+     * Entries not yet replayed stay in the file for the next time it is opened.
+     */
+    public synchronized void shutdown() {
+        if (replayer != null) {
+            replayer.shutdownNow();
+            replayer = null;
+        }
+        writer.interrupt();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Replay pending entries in journal order
+     * Stops at the first entry that fails because the database is unreachable, so
+     * later entries never overtake it.
+     *
+     * @return Number of entries replayed
+     */
+    public synchronized int replay() {
+        if (!hasBacklog() || !target.isAvailable()) {
+            return 0;
+        }
+
+        Map<String, String[]> pending;
+        try {
+            pending = readPending();
+        } catch (IOException e) {
+            System.err.println("Error reading submission journal: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
+
+        int replayed = 0;
+        for (String[] entry : pending.values()) {
+            ReplayOutcome outcome = apply(entry);
+            if (outcome == ReplayOutcome.RETRY) {
+                break;
+            }
+            if (!append(DONE, entry[1])) {
+                break;
+            }
+            backlog.decrementAndGet();
+            if (SUBMIT.equals(entry[0])) {
+                try {
+                    Files.deleteIfExists(documentDir.resolve(entry[11]));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            replayed++;
+        }
+
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " journaled entries; " + backlog.get() + " pending");
+        }
+        return replayed;
+    }
+
+    /**
+     * Apply one journal entry to the database
+     */
+    private ReplayOutcome apply(String[] entry) {
+        try {
+            if (SUBMIT.equals(entry[0])) {
+                return applySubmission(entry);
+            }
+            if (RECHARGE.equals(entry[0])) {
+                boolean credited = target.rechargeWallet(Integer.parseInt(entry[2]),
+                                                         Long.parseLong(entry[4]), entry[3]);
+                return credited ? ReplayOutcome.APPLIED : rejectedOrRetry("recharge", entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unreadable journal entry #" + entry[1] + ": " + e.getMessage());
+            e.printStackTrace();
+            return ReplayOutcome.REJECTED;
+        }
+        return ReplayOutcome.REJECTED;
+    }
+
+    private ReplayOutcome applySubmission(String[] entry) throws IOException {
+        int userId = Integer.parseInt(entry[2]);
+        long cost = Long.parseLong(entry[8]);
+        PaymentType paymentType = PaymentType.valueOf(entry[9]);
+
+        PrintJob job = new PrintJob(userId, entry[4], Integer.parseInt(entry[6]), Integer.parseInt(entry[7]),
+                                    cost, paymentType);
+        job.setIdempotencyKey(entry[3]);
+        job.setDocumentPath(entry[5].isEmpty() ? null : entry[5]);
+        job.setNeededBy(entry[10].isEmpty() ? null : new Timestamp(Long.parseLong(entry[10])));
+        job.setDocument(DocumentHandle.ofFile(documentDir.resolve(entry[11])));
+
+        // The idempotency key returns the original job if this entry was partly replayed before
+        int jobId = target.createPrintJob(job);
+        if (jobId <= 0) {
+            return rejectedOrRetry("submission", entry);
+        }
+
+        if (paymentType == PaymentType.PREPAID) {
+            PrintJob stored = target.getJobById(jobId);
+            if (stored == null) {
+                return rejectedOrRetry("submission", entry);
+            }
+            if (stored.getJobStatus() != JobStatus.CANCELLED
+                    && !target.authorizePayment(userId, jobId, cost)) {
+                if (!target.isAvailable()) {
+                    return ReplayOutcome.RETRY;
+                }
+                // Same rule as a live submission: a job whose funds cannot be held never reaches the queue
+                target.cancelJob(jobId);
+                System.err.println("Journaled job #" + jobId + " withdrawn: insufficient wallet balance");
+            }
+        }
+
+        return ReplayOutcome.APPLIED;
+    }
+
+    private ReplayOutcome rejectedOrRetry(String kind, String[] entry) {
+        if (!target.isAvailable()) {
+            return ReplayOutcome.RETRY;
+        }
+        System.err.println("Journaled " + kind + " #" + entry[1] + " for user #" + entry[2] + " was rejected");
+        return ReplayOutcome.REJECTED;
+    }
+
+    /**
+     * Read the entries that have no DONE marker, in journal order
+     */
+    private Map<String, String[]> readPending() throws IOException {
+        Map<String, String[]> pending = new LinkedHashMap<>();
+        if (!Files.exists(journalFile)) {
+            return pending;
+        }
+
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t", -1);
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = URLDecoder.decode(fields[i], StandardCharsets.UTF_8);
+            }
+            if (fields.length < 2) {
+                // A torn final line from a crash mid-write; its caller was never told it succeeded
+                continue;
+            }
+            try {
+                nextSeq.accumulateAndGet(Long.parseLong(fields[1]) + 1, Math::max);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            if (DONE.equals(fields[0])) {
+                pending.remove(fields[1]);
+            } else if ((SUBMIT.equals(fields[0]) && fields.length == 12)
+                    || (RECHARGE.equals(fields[0]) && fields.length == 5)) {
+                pending.put(fields[1], fields);
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * Rewrite the journal with only its pending entries
+     * Runs before the writer starts, so nothing else touches the file
+     */
+    private void compact() throws IOException {
+        Map<String, String[]> pending = readPending();
+        backlog.set(pending.size());
+
+        StringBuilder content = new StringBuilder();
+        for (String[] fields : pending.values()) {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    content.append('\t');
+                }
+                content.append(URLEncoder.encode(fields[i], StandardCharsets.UTF_8));
+            }
+            content.append('\n');
+        }
+
+        Path temp = Paths.get(journalFile + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Documents of replayed or never-acknowledged entries are no longer needed
+        Set<String> referenced = new HashSet<>();
+        for (String[] fields : pending.values()) {
+            if (SUBMIT.equals(fields[0])) {
+                referenced.add(fields[11]);
+            }
+        }
+        try (DirectoryStream<Path> documents = Files.newDirectoryStream(documentDir)) {
+            for (Path document : documents) {
+                if (!referenced.contains(document.getFileName().toString())) {
+                    Files.deleteIfExists(document);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package models;
+
+import java.sql.Timestamp;
+
+/**
+ * ThroughputStat model holding the moving-average print rate of a printer or operator
+ */
+public class ThroughputStat {
+    private SubjectType subjectType;
+    private int subjectId;
+    private double ewmaPagesPerMinute;
+    private int samples;
+    private Timestamp lastCompletedAt;
+    
+    public enum SubjectType {
+        PRINTER, OPERATOR
+    }
+    
+    // Constructors
+    public ThroughputStat() {}
+    
+    public ThroughputStat(SubjectType subjectType, int subjectId) {
+        this.subjectType = subjectType;
+        this.subjectId = subjectId;
+    }
+    
+    // Getters and Setters
+    public SubjectType getSubjectType() {
+        return subjectType;
+    }
+    
+    public void setSubjectType(SubjectType subjectType) {
+        this.subjectType = subjectType;
+    }
+    
+    public int getSubjectId() {
+        return subjectId;
+    }
+    
+    public void setSubjectId(int subjectId) {
+        this.subjectId = subjectId;
+    }
+    
+    public double getEwmaPagesPerMinute() {
+        return ewmaPagesPerMinute;
+    }
+    
+    public void setEwmaPagesPerMinute(double ewmaPagesPerMinute) {
+        this.ewmaPagesPerMinute = ewmaPagesPerMinute;
+    }
+    
+    public int getSamples() {
+        return samples;
+    }
+    
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+    
+    public Timestamp getLastCompletedAt() {
+        return lastCompletedAt;
+    }
+    
+    public void setLastCompletedAt(Timestamp lastCompletedAt) {
+        this.lastCompletedAt = lastCompletedAt;
+    }
+}
@@ -0,0 +1,108 @@
+package dao;
+
+import database.DatabaseConnection;
+import models.ThroughputStat;
+import models.ThroughputStat.SubjectType;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for ThroughputStat operations
+ * Handles all database operations related to printer and operator throughput averages
+ */
+public class ThroughputStatDAO {
+    
+    /**
+     * Lock the statistics row of a printer or operator on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param subjectType PRINTER or OPERATOR
+     * @param subjectId Printer or user ID
+     * @return ThroughputStat object or null if nothing has been recorded yet
+     * @throws SQLException if the query fails
+     */
+    public ThroughputStat lockStat(Connection conn, SubjectType subjectType, int subjectId) throws SQLException {
+        String query = "SELECT * FROM throughput_stats WHERE subject_type = ? AND subject_id = ? FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, subjectType.name());
+            stmt.setInt(2, subjectId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractStatFromResultSet(rs);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Insert or replace a statistics row on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param stat Updated statistics
+     * @throws SQLException if the upsert fails
+     */
+    public void saveStat(Connection conn, ThroughputStat stat) throws SQLException {
+        String query = "INSERT INTO throughput_stats (subject_type, subject_id, ewma_pages_per_minute, samples, " +
+                      "last_completed_at) VALUES (?, ?, ?, ?, ?) " +
+                      "ON DUPLICATE KEY UPDATE ewma_pages_per_minute = VALUES(ewma_pages_per_minute), " +
+                      "samples = VALUES(samples), last_completed_at = VALUES(last_completed_at)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, stat.getSubjectType().name());
+            stmt.setInt(2, stat.getSubjectId());
+            stmt.setDouble(3, stat.getEwmaPagesPerMinute());
+            stmt.setInt(4, stat.getSamples());
+            stmt.setTimestamp(5, stat.getLastCompletedAt());
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Get every statistics row
+     * 
+     * @return List of statistics; one row per printer or operator that has completed work
+     */
+    public List<ThroughputStat> getAllStats() {
+        List<ThroughputStat> stats = new ArrayList<>();
+        String query = "SELECT * FROM throughput_stats";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                stats.add(extractStatFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching throughput statistics: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return stats;
+    }
+    
+    /**
+     * Extract ThroughputStat object from ResultSet
+     * 
+     * @param rs ResultSet containing statistics data
+     * @return ThroughputStat object
+     * @throws SQLException if error reading from ResultSet
+     */
+    private ThroughputStat extractStatFromResultSet(ResultSet rs) throws SQLException {
+        ThroughputStat stat = new ThroughputStat();
+        stat.setSubjectType(SubjectType.valueOf(rs.getString("subject_type")));
+        stat.setSubjectId(rs.getInt("subject_id"));
+        stat.setEwmaPagesPerMinute(rs.getDouble("ewma_pages_per_minute"));
+        stat.setSamples(rs.getInt("samples"));
+        stat.setLastCompletedAt(rs.getTimestamp("last_completed_at"));
+        return stat;
+    }
+}
@@ -10,11 +10,13 @@ public class Transaction {
     private int userId;
     private Integer jobId;
     private TransactionType transactionType;
-    private double amount;
-    private double balanceBefore;
-    private double balanceAfter;
+    // Amounts in paise
+    private long amount;
+    private long balanceBefore;
+    private long balanceAfter;
     private Timestamp transactionDate;
     private String description;
+    private String idempotencyKey;
     
     // Additional fields for display
     private String username;
@@ -26,8 +28,8 @@ public class Transaction {
     // Constructors
     public Transaction() {}
     
-    public Transaction(int userId, TransactionType transactionType, double amount, 
-                      double balanceBefore, double balanceAfter, String description) {
+    public Transaction(int userId, TransactionType transactionType, long amount, 
+                      long balanceBefore, long balanceAfter, String description) {
         this.userId = userId;
         this.transactionType = transactionType;
         this.amount = amount;
@@ -69,27 +71,27 @@ public class Transaction {
         this.transactionType = transactionType;
     }
     
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
     
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
     
-    public double getBalanceBefore() {
+    public long getBalanceBefore() {
         return balanceBefore;
     }
     
-    public void setBalanceBefore(double balanceBefore) {
+    public void setBalanceBefore(long balanceBefore) {
         this.balanceBefore = balanceBefore;
     }
     
-    public double getBalanceAfter() {
+    public long getBalanceAfter() {
         return balanceAfter;
     }
     
-    public void setBalanceAfter(double balanceAfter) {
+    public void setBalanceAfter(long balanceAfter) {
         this.balanceAfter = balanceAfter;
     }
     
@@ -109,6 +111,14 @@ public class Transaction {
         this.description = description;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     public String getUsername() {
         return username;
     }
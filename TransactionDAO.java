@@ -1,58 +1,192 @@
 package dao;
 
 import database.DatabaseConnection;
+import models.Money;
 import models.Transaction;
 import models.Transaction.TransactionType;
+import models.TransactionSummary;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for Transaction operations
  * Handles all database operations related to transactions
  */
 public class TransactionDAO {
+    // Rows per day and type in transaction_daily_totals; must match the schema's shard range
+    public static final int DAILY_TOTAL_SHARDS = 16;
     
     /**
      * Create a new transaction record
+     * The per-user and daily aggregates are updated in the same database transaction
      * 
      * @param transaction Transaction object to create
      * @return Generated transaction ID or -1 if failed
      */
     public int createTransaction(Transaction transaction) {
-        String query = "INSERT INTO transactions (user_id, job_id, transaction_type, amount, " +
-                      "balance_before, balance_after, description) " +
-                      "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        Connection conn = null;
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setInt(1, transaction.getUserId());
-            stmt.setObject(2, transaction.getJobId());
-            stmt.setString(3, transaction.getTransactionType().name());
-            stmt.setDouble(4, transaction.getAmount());
-            stmt.setDouble(5, transaction.getBalanceBefore());
-            stmt.setDouble(6, transaction.getBalanceAfter());
-            stmt.setString(7, transaction.getDescription());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            
+            int[] ids = insertTransactions(conn, Collections.singletonList(transaction));
+            conn.commit();
+            return ids[0];
             
         } catch (SQLException e) {
             System.err.println("Error creating transaction: " + e.getMessage());
             e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
         }
         
         return -1;
     }
     
+    /**
+     * Insert a group of transaction records as one JDBC batch
+     * Runs on the caller's connection and does not commit, so the caller
+     * decides the transaction boundary (one commit per group). The aggregate
+     * tables are updated on the same connection.
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param transactions Transactions to insert
+     * @return Generated transaction IDs in the same order as the input
+     * @throws SQLException if the batch fails (SQLIntegrityConstraintViolationException
+     *         when an idempotency key has already been used)
+     */
+    public int[] insertTransactions(Connection conn, List<Transaction> transactions) throws SQLException {
+        int[] ids = new int[transactions.size()];
+        if (transactions.isEmpty()) {
+            return ids;
+        }
+        
+        String query = "INSERT INTO transactions (user_id, job_id, transaction_type, amount, " +
+                      "balance_before, balance_after, description, idempotency_key) " +
+                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            for (Transaction transaction : transactions) {
+                stmt.setInt(1, transaction.getUserId());
+                stmt.setObject(2, transaction.getJobId());
+                stmt.setString(3, transaction.getTransactionType().name());
+                Money.setMoney(stmt, 4, transaction.getAmount());
+                Money.setMoney(stmt, 5, transaction.getBalanceBefore());
+                Money.setMoney(stmt, 6, transaction.getBalanceAfter());
+                stmt.setString(7, transaction.getDescription());
+                stmt.setString(8, transaction.getIdempotencyKey());
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+            
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                int i = 0;
+                while (rs.next() && i < ids.length) {
+                    ids[i++] = rs.getInt(1);
+                }
+                if (i != ids.length) {
+                    throw new SQLException("Expected " + ids.length + " generated keys but got " + i);
+                }
+            }
+        }
+        
+        updateAggregates(conn, transactions);
+        
+        return ids;
+    }
+    
+    /**
+     * Fold a group of new transactions into transaction_totals and transaction_daily_totals
+     * The group is pre-summed in memory so each summary row is upserted once, and rows
+     * are touched in key order so concurrent groups cannot deadlock on them. Each day and
+     * type is spread over DAILY_TOTAL_SHARDS rows picked by user ID, so writers for
+     * different users do not queue on a single daily row lock
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param transactions Newly inserted transactions
+     * @throws SQLException if the upsert fails
+     */
+    private void updateAggregates(Connection conn, List<Transaction> transactions) throws SQLException {
+        // {amount, count} per (user, type) and per type
+        Map<Integer, Map<TransactionType, long[]>> userTotals = new TreeMap<>();
+        Map<Integer, long[]> dailyTotals = new TreeMap<>();
+        
+        for (Transaction transaction : transactions) {
+            long[] userTotal = userTotals
+                .computeIfAbsent(transaction.getUserId(), k -> new EnumMap<>(TransactionType.class))
+                .computeIfAbsent(transaction.getTransactionType(), k -> new long[2]);
+            userTotal[0] += transaction.getAmount();
+            userTotal[1]++;
+            
+            int dailyKey = transaction.getTransactionType().ordinal() * DAILY_TOTAL_SHARDS
+                           + Math.floorMod(transaction.getUserId(), DAILY_TOTAL_SHARDS);
+            long[] dailyTotal = dailyTotals.computeIfAbsent(dailyKey, k -> new long[2]);
+            dailyTotal[0] += transaction.getAmount();
+            dailyTotal[1]++;
+        }
+        
+        String userQuery = "INSERT INTO transaction_totals (user_id, transaction_type, total_amount, transaction_count) " +
+                          "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                          "total_amount = total_amount + VALUES(total_amount), " +
+                          "transaction_count = transaction_count + VALUES(transaction_count)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(userQuery)) {
+            for (Map.Entry<Integer, Map<TransactionType, long[]>> user : userTotals.entrySet()) {
+                for (Map.Entry<TransactionType, long[]> entry : user.getValue().entrySet()) {
+                    stmt.setInt(1, user.getKey());
+                    stmt.setString(2, entry.getKey().name());
+                    Money.setMoney(stmt, 3, entry.getValue()[0]);
+                    stmt.setInt(4, (int) entry.getValue()[1]);
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+        
+        String dailyQuery = "INSERT INTO transaction_daily_totals (summary_date, transaction_type, shard, " +
+                           "total_amount, transaction_count) " +
+                           "VALUES (CURRENT_DATE, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                           "total_amount = total_amount + VALUES(total_amount), " +
+                           "transaction_count = transaction_count + VALUES(transaction_count)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(dailyQuery)) {
+            for (Map.Entry<Integer, long[]> entry : dailyTotals.entrySet()) {
+                stmt.setString(1, TransactionType.values()[entry.getKey() / DAILY_TOTAL_SHARDS].name());
+                stmt.setInt(2, entry.getKey() % DAILY_TOTAL_SHARDS);
+                Money.setMoney(stmt, 3, entry.getValue()[0]);
+                stmt.setInt(4, (int) entry.getValue()[1]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
     /**
      * Get all transactions for a specific user
      * 
@@ -171,15 +305,125 @@ public class TransactionDAO {
         return transactions;
     }
     
+    /**
+     * Get the transaction recorded under an idempotency key
+     * 
+     * @param idempotencyKey Client-supplied key
+     * @return Transaction or null if the key has not been used
+     */
+    public Transaction getTransactionByIdempotencyKey(String idempotencyKey) {
+        String query = "SELECT t.*, u.username FROM transactions t " +
+                      "JOIN users u ON t.user_id = u.user_id " +
+                      "WHERE t.idempotency_key = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setString(1, idempotencyKey);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                Transaction transaction = extractTransactionFromResultSet(rs);
+                transaction.setIdempotencyKey(idempotencyKey);
+                return transaction;
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching transaction by idempotency key: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Find which of a group of idempotency keys the ledger already holds
+     * Batched inserts filter these out first, so a key left by an earlier partial run is
+     * treated as already applied instead of failing the whole batch. The read locks the
+     * matching index entries, so it sees rows committed after the caller's snapshot.
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param keys Keys to look up
+     * @return Keys that are already used
+     * @throws SQLException if the query fails
+     */
+    public Set<String> findUsedIdempotencyKeys(Connection conn, Collection<String> keys) throws SQLException {
+        Set<String> used = new HashSet<>();
+        if (keys.isEmpty()) {
+            return used;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT idempotency_key FROM transactions WHERE idempotency_key IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") FOR SHARE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            for (String key : keys) {
+                stmt.setString(index++, key);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    used.add(rs.getString("idempotency_key"));
+                }
+            }
+        }
+        
+        return used;
+    }
+    
+    /**
+     * Stream the ledger for a range of users without buffering it
+     * Rows arrive ordered by user and then by transaction ID, which is the
+     * order balances were chained in. Runs on the caller's connection, so the
+     * rows come from the caller's transaction snapshot
+     * 
+     * @param conn Open connection
+     * @param fromUserId First user ID (inclusive)
+     * @param toUserId Last user ID (inclusive)
+     * @param consumer Receives each transaction as it is read
+     * @return Number of transactions read
+     * @throws SQLException if the query fails
+     */
+    public long scanLedger(Connection conn, int fromUserId, int toUserId,
+                           Consumer<Transaction> consumer) throws SQLException {
+        String query = "SELECT transaction_id, user_id, job_id, transaction_type, amount, " +
+                      "balance_before, balance_after, transaction_date, description FROM transactions " +
+                      "WHERE user_id BETWEEN ? AND ? ORDER BY user_id, transaction_id";
+        long count = 0;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // Tells MySQL Connector/J to stream rows instead of loading the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setInt(1, fromUserId);
+            stmt.setInt(2, toUserId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(extractTransactionFromResultSet(rs));
+                    count++;
+                }
+            }
+        }
+        
+        return count;
+    }
+    
     /**
      * Get total transaction amount by type for a user
+     * Reads the maintained transaction_totals row instead of summing the ledger
      * 
      * @param userId User ID
      * @param transactionType Transaction type
-     * @return Total amount
+     * @return Total amount in paise
      */
-    public double getTotalAmountByType(int userId, TransactionType transactionType) {
-        String query = "SELECT COALESCE(SUM(amount), 0) AS total FROM transactions " +
+    public long getTotalAmountByType(int userId, TransactionType transactionType) {
+        String query = "SELECT total_amount FROM transaction_totals " +
                       "WHERE user_id = ? AND transaction_type = ?";
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -190,7 +434,7 @@ public class TransactionDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return rs.getDouble("total");
+                return Money.getMoney(rs, "total_amount");
             }
             
         } catch (SQLException e) {
@@ -198,7 +442,74 @@ public class TransactionDAO {
             e.printStackTrace();
         }
         
-        return 0.0;
+        return 0;
+    }
+    
+    /**
+     * Get total transaction amount by type across all users (for admin view)
+     * Sums the daily rollups, so cost grows with the number of days rather than rows
+     * 
+     * @param transactionType Transaction type
+     * @return Total amount in paise
+     */
+    public long getTotalAmountByType(TransactionType transactionType) {
+        String query = "SELECT COALESCE(SUM(total_amount), 0) AS total FROM transaction_daily_totals " +
+                      "WHERE transaction_type = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setString(1, transactionType.name());
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return Money.getMoney(rs, "total");
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error calculating total amount: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * Get daily rollups for a date range (for dashboards)
+     * 
+     * @param fromDate First day (inclusive)
+     * @param toDate Last day (inclusive)
+     * @return Daily totals ordered by date and type
+     */
+    public List<TransactionSummary> getDailyTotals(Date fromDate, Date toDate) {
+        List<TransactionSummary> summaries = new ArrayList<>();
+        String query = "SELECT summary_date, transaction_type, SUM(total_amount) AS total_amount, " +
+                      "SUM(transaction_count) AS transaction_count " +
+                      "FROM transaction_daily_totals WHERE summary_date BETWEEN ? AND ? " +
+                      "GROUP BY summary_date, transaction_type ORDER BY summary_date, transaction_type";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setDate(1, fromDate);
+            stmt.setDate(2, toDate);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                summaries.add(new TransactionSummary(
+                    rs.getDate("summary_date"),
+                    TransactionType.valueOf(rs.getString("transaction_type")),
+                    Money.getMoney(rs, "total_amount"),
+                    rs.getInt("transaction_count")
+                ));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching daily totals: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return summaries;
     }
     
     /**
@@ -220,9 +531,9 @@ public class TransactionDAO {
         }
         
         transaction.setTransactionType(TransactionType.valueOf(rs.getString("transaction_type")));
-        transaction.setAmount(rs.getDouble("amount"));
-        transaction.setBalanceBefore(rs.getDouble("balance_before"));
-        transaction.setBalanceAfter(rs.getDouble("balance_after"));
+        transaction.setAmount(Money.getMoney(rs, "amount"));
+        transaction.setBalanceBefore(Money.getMoney(rs, "balance_before"));
+        transaction.setBalanceAfter(Money.getMoney(rs, "balance_after"));
         transaction.setTransactionDate(rs.getTimestamp("transaction_date"));
         transaction.setDescription(rs.getString("description"));
         
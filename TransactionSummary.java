@@ -0,0 +1,67 @@
+package models;
+
+import java.sql.Date;
+
+/**
+ * Aggregated transaction totals for one day and transaction type
+ */
+public class TransactionSummary {
+    private Date summaryDate;
+    private Transaction.TransactionType transactionType;
+    private long totalAmount; // in paise
+    private int transactionCount;
+    
+    // Constructors
+    public TransactionSummary() {}
+    
+    public TransactionSummary(Date summaryDate, Transaction.TransactionType transactionType,
+                              long totalAmount, int transactionCount) {
+        this.summaryDate = summaryDate;
+        this.transactionType = transactionType;
+        this.totalAmount = totalAmount;
+        this.transactionCount = transactionCount;
+    }
+    
+    // Getters and Setters
+    public Date getSummaryDate() {
+        return summaryDate;
+    }
+    
+    public void setSummaryDate(Date summaryDate) {
+        this.summaryDate = summaryDate;
+    }
+    
+    public Transaction.TransactionType getTransactionType() {
+        return transactionType;
+    }
+    
+    public void setTransactionType(Transaction.TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+    
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public void setTotalAmount(long totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+    
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+    
+    public void setTransactionCount(int transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionSummary{" +
+                "summaryDate=" + summaryDate +
+                ", transactionType=" + transactionType +
+                ", totalAmount=" + totalAmount +
+                ", transactionCount=" + transactionCount +
+                '}';
+    }
+}
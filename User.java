@@ -12,10 +12,11 @@ public class User {
     private String fullName;
     private String email;
     private UserType userType;
-    private double walletBalance;
+    private long walletBalance; // in paise
     private Timestamp createdAt;
     private Timestamp lastLogin;
     private boolean isActive;
+    private int version;
     
     public enum UserType {
         STUDENT, OPERATOR, ADMIN
@@ -25,7 +26,7 @@ public class User {
     public User() {}
     
     public User(int userId, String username, String fullName, String email, 
-                UserType userType, double walletBalance) {
+                UserType userType, long walletBalance) {
         this.userId = userId;
         this.username = username;
         this.fullName = fullName;
@@ -84,11 +85,11 @@ public class User {
         this.userType = userType;
     }
     
-    public double getWalletBalance() {
+    public long getWalletBalance() {
         return walletBalance;
     }
     
-    public void setWalletBalance(double walletBalance) {
+    public void setWalletBalance(long walletBalance) {
         this.walletBalance = walletBalance;
     }
     
@@ -116,6 +117,14 @@ public class User {
         isActive = active;
     }
     
+    public int getVersion() {
+        return version;
+    }
+    
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "User{" +
@@ -1,18 +1,23 @@
 package dao;
 
 import database.DatabaseConnection;
+import models.Money;
 import models.User;
 import models.User.UserType;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for User operations
  * Handles all database operations related to users
  */
 public class UserDAO {
+    private static final int MAX_CAS_ATTEMPTS = 3;
     
     /**
      * Authenticate user with username and password
@@ -106,85 +111,170 @@ public class UserDAO {
     
     /**
      * Update user's wallet balance
-     * Thread-safe implementation using database transaction
+     * Optimistic: the balance is read with its version and written back with a
+     * compare-and-set on that version, retrying a few times if another writer got in first
      * 
      * @param userId User ID
-     * @param amount Amount to add (positive) or deduct (negative)
-     * @return true if successful, false otherwise
+     * @param amount Amount in paise to add (positive) or deduct (negative)
+     * @return true if successful, false if the user is missing, funds are short or the conflict persisted
      */
-    public synchronized boolean updateWalletBalance(int userId, double amount) {
-        Connection conn = null;
-        
-        try {
-            conn = DatabaseConnection.getInstance().getConnection();
-            conn.setAutoCommit(false);
-            
-            // Get current balance with row lock
-            String selectQuery = "SELECT wallet_balance FROM users WHERE user_id = ? FOR UPDATE";
-            PreparedStatement selectStmt = conn.prepareStatement(selectQuery);
-            selectStmt.setInt(1, userId);
-            ResultSet rs = selectStmt.executeQuery();
-            
-            if (!rs.next()) {
-                conn.rollback();
-                return false;
-            }
-            
-            double currentBalance = rs.getDouble("wallet_balance");
-            double newBalance = currentBalance + amount;
+    public boolean updateWalletBalance(int userId, long amount) {
+        String selectQuery = "SELECT wallet_balance, held_balance, version FROM users WHERE user_id = ?";
+        String updateQuery = "UPDATE users SET version = version + 1, wallet_balance = ? " +
+                            "WHERE user_id = ? AND version = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement selectStmt = conn.prepareStatement(selectQuery);
+             PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
             
-            // Check for negative balance
-            if (newBalance < 0) {
-                conn.rollback();
-                return false;
+            for (int attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+                selectStmt.setInt(1, userId);
+                long currentBalance;
+                long heldBalance;
+                int version;
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    currentBalance = Money.getMoney(rs, "wallet_balance");
+                    heldBalance = Money.getMoney(rs, "held_balance");
+                    version = rs.getInt("version");
+                }
+                
+                long newBalance = currentBalance + amount;
+                
+                // Check for negative balance; deductions may not eat into held funds
+                if (newBalance < 0 || (amount < 0 && newBalance < heldBalance)) {
+                    return false;
+                }
+                
+                Money.setMoney(updateStmt, 1, newBalance);
+                updateStmt.setInt(2, userId);
+                updateStmt.setInt(3, version);
+                
+                if (updateStmt.executeUpdate() > 0) {
+                    return true;
+                }
             }
             
-            // Update balance
-            String updateQuery = "UPDATE users SET wallet_balance = ? WHERE user_id = ?";
-            PreparedStatement updateStmt = conn.prepareStatement(updateQuery);
-            updateStmt.setDouble(1, newBalance);
-            updateStmt.setInt(2, userId);
-            
-            int rowsAffected = updateStmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                conn.commit();
-                return true;
-            } else {
-                conn.rollback();
-                return false;
-            }
+            System.err.println("Wallet of user #" + userId + " kept changing; update abandoned after " +
+                               MAX_CAS_ATTEMPTS + " attempts");
             
         } catch (SQLException e) {
             System.err.println("Error updating wallet balance: " + e.getMessage());
             e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Resolve usernames to user IDs on the caller's connection
+     * Only active accounts are returned
+     * 
+     * @param conn Open connection
+     * @param usernames Usernames to resolve
+     * @return Map of username to user ID; unknown or inactive users are absent
+     * @throws SQLException if the query fails
+     */
+    public Map<String, Integer> getUserIdsByUsername(Connection conn, Collection<String> usernames) throws SQLException {
+        Map<String, Integer> userIds = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return userIds;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT user_id, username FROM users WHERE is_active = TRUE AND username IN (");
+        for (int i = 0; i < usernames.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            for (String username : usernames) {
+                stmt.setString(index++, username);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    userIds.put(rs.getString("username"), rs.getInt("user_id"));
                 }
             }
-            return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+        }
+        
+        return userIds;
+    }
+    
+    /**
+     * Lock the wallet rows of several users and read their balances
+     * Rows are locked in user ID order to keep lock acquisition consistent
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param userIds Users to lock
+     * @return Map of user ID to current balance in paise; missing users are absent
+     * @throws SQLException if the query fails
+     */
+    public Map<Integer, Long> lockWalletBalances(Connection conn, Collection<Integer> userIds) throws SQLException {
+        Map<Integer, Long> balances = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return balances;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT user_id, wallet_balance FROM users WHERE user_id IN (");
+        for (int i = 0; i < userIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") ORDER BY user_id FOR UPDATE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            for (int userId : userIds) {
+                stmt.setInt(index++, userId);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getInt("user_id"), Money.getMoney(rs, "wallet_balance"));
                 }
             }
         }
+        
+        return balances;
+    }
+    
+    /**
+     * Write new wallet balances for several users as one JDBC batch
+     * Runs on the caller's connection and does not commit; callers should
+     * hold the row locks from lockWalletBalances
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param balances Map of user ID to new balance in paise
+     * @throws SQLException if the batch fails
+     */
+    public void setWalletBalances(Connection conn, Map<Integer, Long> balances) throws SQLException {
+        if (balances.isEmpty()) {
+            return;
+        }
+        
+        String query = "UPDATE users SET version = version + 1, wallet_balance = ? WHERE user_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (Map.Entry<Integer, Long> entry : balances.entrySet()) {
+                Money.setMoney(stmt, 1, entry.getValue());
+                stmt.setInt(2, entry.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
     }
     
     /**
      * Get current wallet balance
      * 
      * @param userId User ID
-     * @return Current balance or -1 if error
+     * @return Current balance in paise or -1 if error
      */
-    public double getWalletBalance(int userId) {
+    public long getWalletBalance(int userId) {
         String query = "SELECT wallet_balance FROM users WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -194,7 +284,7 @@ public class UserDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return rs.getDouble("wallet_balance");
+                return Money.getMoney(rs, "wallet_balance");
             }
             
         } catch (SQLException e) {
@@ -205,6 +295,170 @@ public class UserDAO {
         return -1;
     }
     
+    /**
+     * Get the balance available for new payments (wallet balance minus active holds)
+     * 
+     * @param userId User ID
+     * @return Available balance in paise or -1 if error
+     */
+    public long getAvailableBalance(int userId) {
+        String query = "SELECT wallet_balance - held_balance AS available_balance FROM users WHERE user_id = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return Money.getMoney(rs, "available_balance");
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching available balance: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Reserve funds against the available balance on the caller's connection
+     * The check and the increment are a single conditional update, so no row
+     * lock has to be taken first
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param userId User ID
+     * @param amount Amount to hold in paise
+     * @return true if the funds were reserved, false if the available balance is too low
+     * @throws SQLException if the update fails
+     */
+    public boolean reserveFunds(Connection conn, int userId, long amount) throws SQLException {
+        String query = "UPDATE users SET version = version + 1, held_balance = held_balance + ? " +
+                      "WHERE user_id = ? AND wallet_balance - held_balance >= ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            Money.setMoney(stmt, 1, amount);
+            stmt.setInt(2, userId);
+            Money.setMoney(stmt, 3, amount);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Turn held funds into a debit on the caller's connection
+     * Callers should hold the wallet row lock from lockWalletBalances
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param userId User ID
+     * @param newBalance New wallet balance in paise
+     * @param amount Held amount being captured in paise
+     * @throws SQLException if the update fails
+     */
+    public void captureHeldFunds(Connection conn, int userId, long newBalance, long amount) throws SQLException {
+        String query = "UPDATE users SET version = version + 1, wallet_balance = ?, held_balance = held_balance - ? WHERE user_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            Money.setMoney(stmt, 1, newBalance);
+            Money.setMoney(stmt, 2, amount);
+            stmt.setInt(3, userId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Read held balances for several users on the caller's connection
+     * 
+     * @param conn Open connection
+     * @param userIds Users to read
+     * @return Map of user ID to held balance in paise; missing users are absent
+     * @throws SQLException if the query fails
+     */
+    public Map<Integer, Long> getHeldBalances(Connection conn, Collection<Integer> userIds) throws SQLException {
+        Map<Integer, Long> held = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return held;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT user_id, held_balance FROM users WHERE user_id IN (");
+        for (int i = 0; i < userIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            for (int userId : userIds) {
+                stmt.setInt(index++, userId);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    held.put(rs.getInt("user_id"), Money.getMoney(rs, "held_balance"));
+                }
+            }
+        }
+        
+        return held;
+    }
+    
+    /**
+     * Get the lowest and highest user IDs
+     * 
+     * @return Two-element array {min, max}, or null if there are no users or on error
+     */
+    public int[] getUserIdRange() {
+        String query = "SELECT MIN(user_id) AS min_id, MAX(user_id) AS max_id FROM users";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                int minId = rs.getInt("min_id");
+                if (rs.wasNull()) {
+                    return null;
+                }
+                return new int[] { minId, rs.getInt("max_id") };
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching user ID range: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get wallet balances for a range of users on the caller's connection
+     * 
+     * @param conn Open connection
+     * @param fromUserId First user ID (inclusive)
+     * @param toUserId Last user ID (inclusive)
+     * @return Map of user ID to wallet balance in paise
+     * @throws SQLException if the query fails
+     */
+    public Map<Integer, Long> getWalletBalances(Connection conn, int fromUserId, int toUserId) throws SQLException {
+        Map<Integer, Long> balances = new HashMap<>();
+        String query = "SELECT user_id, wallet_balance FROM users WHERE user_id BETWEEN ? AND ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, fromUserId);
+            stmt.setInt(2, toUserId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getInt("user_id"), Money.getMoney(rs, "wallet_balance"));
+                }
+            }
+        }
+        
+        return balances;
+    }
+    
     /**
      * Create a new user
      * 
@@ -223,7 +477,7 @@ public class UserDAO {
             stmt.setString(3, user.getFullName());
             stmt.setString(4, user.getEmail());
             stmt.setString(5, user.getUserType().name());
-            stmt.setDouble(6, user.getWalletBalance());
+            Money.setMoney(stmt, 6, user.getWalletBalance());
             
             int rowsAffected = stmt.executeUpdate();
             
@@ -276,10 +530,11 @@ public class UserDAO {
         user.setFullName(rs.getString("full_name"));
         user.setEmail(rs.getString("email"));
         user.setUserType(UserType.valueOf(rs.getString("user_type")));
-        user.setWalletBalance(rs.getDouble("wallet_balance"));
+        user.setWalletBalance(Money.getMoney(rs, "wallet_balance"));
         user.setCreatedAt(rs.getTimestamp("created_at"));
         user.setLastLogin(rs.getTimestamp("last_login"));
         user.setActive(rs.getBoolean("is_active"));
+        user.setVersion(rs.getInt("version"));
         return user;
     }
 }
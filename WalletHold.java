@@ -0,0 +1,100 @@
+package models;
+
+import java.sql.Timestamp;
+
+/**
+ * WalletHold model representing funds reserved for a prepaid print job
+ * A hold is placed at submission, captured when the job completes and
+ * released if the job is cancelled
+ */
+public class WalletHold {
+    private int holdId;
+    private int userId;
+    private int jobId;
+    private long amount; // in paise
+    private HoldStatus holdStatus;
+    private Timestamp createdAt;
+    private Timestamp resolvedAt;
+    
+    public enum HoldStatus {
+        HELD, CAPTURED, RELEASED
+    }
+    
+    // Constructors
+    public WalletHold() {}
+    
+    public WalletHold(int userId, int jobId, long amount) {
+        this.userId = userId;
+        this.jobId = jobId;
+        this.amount = amount;
+        this.holdStatus = HoldStatus.HELD;
+    }
+    
+    // Getters and Setters
+    public int getHoldId() {
+        return holdId;
+    }
+    
+    public void setHoldId(int holdId) {
+        this.holdId = holdId;
+    }
+    
+    public int getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+    
+    public int getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(int jobId) {
+        this.jobId = jobId;
+    }
+    
+    public long getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+    
+    public HoldStatus getHoldStatus() {
+        return holdStatus;
+    }
+    
+    public void setHoldStatus(HoldStatus holdStatus) {
+        this.holdStatus = holdStatus;
+    }
+    
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Timestamp getResolvedAt() {
+        return resolvedAt;
+    }
+    
+    public void setResolvedAt(Timestamp resolvedAt) {
+        this.resolvedAt = resolvedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "WalletHold{" +
+                "holdId=" + holdId +
+                ", userId=" + userId +
+                ", jobId=" + jobId +
+                ", amount=" + Money.formatPlain(amount) +
+                ", holdStatus=" + holdStatus +
+                '}';
+    }
+}
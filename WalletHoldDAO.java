@@ -0,0 +1,287 @@
+package dao;
+
+import database.DatabaseConnection;
+import models.Money;
+import models.WalletHold;
+import models.WalletHold.HoldStatus;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for WalletHold operations
+ * Handles all database operations related to wallet holds
+ */
+public class WalletHoldDAO {
+    
+    /**
+     * Create a hold on the caller's connection
+     * The caller must hold the user's wallet row lock and bump held_balance
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param hold Hold to create
+     * @return Generated hold ID
+     * @throws SQLException if the insert fails (including a second hold for the same job)
+     */
+    public int createHold(Connection conn, WalletHold hold) throws SQLException {
+        String query = "INSERT INTO wallet_holds (user_id, job_id, amount, hold_status) VALUES (?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, hold.getUserId());
+            stmt.setInt(2, hold.getJobId());
+            Money.setMoney(stmt, 3, hold.getAmount());
+            stmt.setString(4, HoldStatus.HELD.name());
+            stmt.executeUpdate();
+            
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        
+        throw new SQLException("No hold ID generated for job #" + hold.getJobId());
+    }
+    
+    /**
+     * Get the hold for a job
+     * 
+     * @param jobId Job ID
+     * @return WalletHold object or null if the job has no hold
+     */
+    public WalletHold getHoldByJobId(int jobId) {
+        String query = "SELECT * FROM wallet_holds WHERE job_id = ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, jobId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return extractHoldFromResultSet(rs);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error fetching wallet hold: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Lock the hold for a job on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobId Job ID
+     * @return WalletHold object or null if the job has no hold
+     * @throws SQLException if the query fails
+     */
+    public WalletHold lockHoldByJobId(Connection conn, int jobId) throws SQLException {
+        String query = "SELECT * FROM wallet_holds WHERE job_id = ? FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, jobId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractHoldFromResultSet(rs);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Lock the active holds for a group of jobs on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Job IDs
+     * @return HELD holds in hold ID order; jobs without an active hold are absent
+     * @throws SQLException if the query fails
+     */
+    public List<WalletHold> lockActiveHolds(Connection conn, List<Integer> jobIds) throws SQLException {
+        List<WalletHold> holds = new ArrayList<>();
+        if (jobIds.isEmpty()) {
+            return holds;
+        }
+        
+        StringBuilder query = new StringBuilder("SELECT * FROM wallet_holds WHERE hold_status = 'HELD' AND job_id IN (");
+        for (int i = 0; i < jobIds.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") ORDER BY hold_id FOR UPDATE");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    holds.add(extractHoldFromResultSet(rs));
+                }
+            }
+        }
+        
+        return holds;
+    }
+    
+    /**
+     * Mark a locked hold as captured on the caller's connection
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param holdId Hold ID
+     * @throws SQLException if the update fails
+     */
+    public void markCaptured(Connection conn, int holdId) throws SQLException {
+        String query = "UPDATE wallet_holds SET hold_status = 'CAPTURED', resolved_at = CURRENT_TIMESTAMP " +
+                      "WHERE hold_id = ? AND hold_status = 'HELD'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, holdId);
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Hold #" + holdId + " is no longer held");
+            }
+        }
+    }
+    
+    /**
+     * Mark a group of locked holds as captured as one JDBC batch
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param holdIds Hold IDs
+     * @throws SQLException if the batch fails
+     */
+    public void markCaptured(Connection conn, List<Integer> holdIds) throws SQLException {
+        if (holdIds.isEmpty()) {
+            return;
+        }
+        
+        String query = "UPDATE wallet_holds SET hold_status = 'CAPTURED', resolved_at = CURRENT_TIMESTAMP " +
+                      "WHERE hold_id = ? AND hold_status = 'HELD'";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int holdId : holdIds) {
+                stmt.setInt(1, holdId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    /**
+     * Release the active hold for a job
+     * A single statement flips the hold and returns the funds to the available balance;
+     * the wallet balance itself is never touched
+     * 
+     * @param jobId Job ID
+     * @return true if a hold was released, false if there was no active hold
+     */
+    public boolean releaseHold(int jobId) {
+        String query = "UPDATE wallet_holds h JOIN users u ON u.user_id = h.user_id " +
+                      "SET h.hold_status = 'RELEASED', h.resolved_at = CURRENT_TIMESTAMP, " +
+                      "u.held_balance = u.held_balance - h.amount, u.version = u.version + 1 " +
+                      "WHERE h.job_id = ? AND h.hold_status = 'HELD'";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, jobId);
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error releasing wallet hold: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Release the active holds for a group of jobs on the caller's connection
+     * Per-user totals are summed first because a multi-table UPDATE changes each
+     * users row only once, even when several of its holds match
+     * 
+     * @param conn Open connection with auto-commit disabled
+     * @param jobIds Job IDs whose holds should be released
+     * @return Number of holds released
+     * @throws SQLException if any statement fails
+     */
+    public int releaseHolds(Connection conn, List<Integer> jobIds) throws SQLException {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < jobIds.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        
+        Map<Integer, Long> heldByUser = new TreeMap<>();
+        String selectQuery = "SELECT user_id, SUM(amount) AS held FROM wallet_holds " +
+                            "WHERE hold_status = 'HELD' AND job_id IN (" + placeholders + ") " +
+                            "GROUP BY user_id FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(selectQuery)) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    heldByUser.put(rs.getInt("user_id"), Money.getMoney(rs, "held"));
+                }
+            }
+        }
+        
+        if (heldByUser.isEmpty()) {
+            return 0;
+        }
+        
+        int released;
+        String releaseQuery = "UPDATE wallet_holds SET hold_status = 'RELEASED', resolved_at = CURRENT_TIMESTAMP " +
+                             "WHERE hold_status = 'HELD' AND job_id IN (" + placeholders + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(releaseQuery)) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                stmt.setInt(i + 1, jobIds.get(i));
+            }
+            released = stmt.executeUpdate();
+        }
+        
+        // Users are updated in ID order to keep lock acquisition consistent
+        String userQuery = "UPDATE users SET version = version + 1, held_balance = held_balance - ? WHERE user_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(userQuery)) {
+            for (Map.Entry<Integer, Long> entry : heldByUser.entrySet()) {
+                Money.setMoney(stmt, 1, entry.getValue());
+                stmt.setInt(2, entry.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        
+        return released;
+    }
+    
+    /**
+     * Extract WalletHold object from ResultSet
+     * 
+     * @param rs ResultSet containing hold data
+     * @return WalletHold object
+     * @throws SQLException if error reading from ResultSet
+     */
+    private WalletHold extractHoldFromResultSet(ResultSet rs) throws SQLException {
+        WalletHold hold = new WalletHold();
+        hold.setHoldId(rs.getInt("hold_id"));
+        hold.setUserId(rs.getInt("user_id"));
+        hold.setJobId(rs.getInt("job_id"));
+        hold.setAmount(Money.getMoney(rs, "amount"));
+        hold.setHoldStatus(HoldStatus.valueOf(rs.getString("hold_status")));
+        hold.setCreatedAt(rs.getTimestamp("created_at"));
+        hold.setResolvedAt(rs.getTimestamp("resolved_at"));
+        return hold;
+    }
+}
@@ -0,0 +1,34 @@
+-- Smart Print Queue Management System
+-- Migration: move document content from print_jobs into print_job_document_parts
+--
+-- Documents used to be stored whole in print_jobs.document_content. Reading a range of
+-- such a value makes MySQL read the whole BLOB, so the content now lives in 1 MB parts.
+-- Run this script once against an existing database, with the application stopped.
+-- It copies every stored document into parts and then drops the old column.
+
+CREATE TABLE IF NOT EXISTS print_job_document_parts (
+    job_id INT NOT NULL,
+    part_index INT NOT NULL,
+    content MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (job_id, part_index),
+    FOREIGN KEY (job_id) REFERENCES print_jobs(job_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+START TRANSACTION;
+
+DELETE FROM print_job_document_parts;
+
+-- 1 MB parts, matching PrintJobDAO.DOCUMENT_PART_SIZE; a MEDIUMBLOB holds at most 16 of them
+INSERT INTO print_job_document_parts (job_id, part_index, content)
+WITH RECURSIVE parts (part_index) AS (
+    SELECT 0
+    UNION ALL
+    SELECT part_index + 1 FROM parts WHERE part_index < 15
+)
+SELECT pj.job_id, parts.part_index, SUBSTRING(pj.document_content, parts.part_index * 1048576 + 1, 1048576)
+FROM print_jobs pj JOIN parts ON parts.part_index * 1048576 < LENGTH(pj.document_content)
+WHERE pj.document_content IS NOT NULL;
+
+COMMIT;
+
+ALTER TABLE print_jobs DROP COLUMN document_content;
@@ -0,0 +1,42 @@
+-- Smart Print Queue Management System
+-- Migration: build the transaction aggregate tables from an existing ledger
+--
+-- schema.sql recreates every table and so starts with an empty ledger. Run this
+-- script once against a database that already has transactions, with the
+-- application stopped, to add transaction_totals and transaction_daily_totals
+-- and fill them from the ledger. It rebuilds both tables, so running it again
+-- is safe.
+
+CREATE TABLE IF NOT EXISTS transaction_totals (
+    user_id INT NOT NULL,
+    transaction_type ENUM('WALLET_RECHARGE', 'PAYMENT', 'REFUND') NOT NULL,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    transaction_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, transaction_type),
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS transaction_daily_totals (
+    summary_date DATE NOT NULL,
+    transaction_type ENUM('WALLET_RECHARGE', 'PAYMENT', 'REFUND') NOT NULL,
+    shard TINYINT UNSIGNED NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    transaction_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (summary_date, transaction_type, shard)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+START TRANSACTION;
+
+DELETE FROM transaction_totals;
+DELETE FROM transaction_daily_totals;
+
+INSERT INTO transaction_totals (user_id, transaction_type, total_amount, transaction_count)
+SELECT user_id, transaction_type, SUM(amount), COUNT(*) FROM transactions
+GROUP BY user_id, transaction_type;
+
+-- Shard by user_id mod 16, matching TransactionDAO.DAILY_TOTAL_SHARDS
+INSERT INTO transaction_daily_totals (summary_date, transaction_type, shard, total_amount, transaction_count)
+SELECT DATE(transaction_date), transaction_type, user_id % 16, SUM(amount), COUNT(*) FROM transactions
+GROUP BY DATE(transaction_date), transaction_type, user_id % 16;
+
+COMMIT;
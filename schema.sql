@@ -2,8 +2,17 @@
 -- MySQL Database Schema
 
 -- Drop existing tables if they exist
+DROP TABLE IF EXISTS throughput_stats;
+DROP TABLE IF EXISTS transaction_daily_totals;
+DROP TABLE IF EXISTS transaction_totals;
+DROP TABLE IF EXISTS recharge_batch_items;
+DROP TABLE IF EXISTS wallet_holds;
+DROP TABLE IF EXISTS print_job_chunks;
+DROP TABLE IF EXISTS print_job_document_parts;
 DROP TABLE IF EXISTS transactions;
 DROP TABLE IF EXISTS print_jobs;
+DROP TABLE IF EXISTS spool_batches;
+DROP TABLE IF EXISTS printers;
 DROP TABLE IF EXISTS users;
 
 -- Users table (for both students and operators)
@@ -15,19 +24,45 @@ CREATE TABLE users (
     email VARCHAR(100) UNIQUE NOT NULL,
     user_type ENUM('STUDENT', 'OPERATOR', 'ADMIN') NOT NULL,
     wallet_balance DECIMAL(10, 2) DEFAULT 0.00,
+    held_balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     last_login TIMESTAMP NULL,
     is_active BOOLEAN DEFAULT TRUE,
+    version INT NOT NULL DEFAULT 0,
     INDEX idx_username (username),
     INDEX idx_user_type (user_type)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- Printers in the print centre
+CREATE TABLE printers (
+    printer_id INT PRIMARY KEY AUTO_INCREMENT,
+    printer_name VARCHAR(100) UNIQUE NOT NULL,
+    pages_per_minute INT NOT NULL CHECK (pages_per_minute > 0),
+    printer_status ENUM('ONLINE', 'OFFLINE', 'FAILED') NOT NULL DEFAULT 'ONLINE',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Runs of small jobs printed as one combined document with separator sheets
+CREATE TABLE spool_batches (
+    batch_id INT PRIMARY KEY AUTO_INCREMENT,
+    operator_id INT NULL,
+    job_count INT NOT NULL,
+    total_sheets INT NOT NULL,
+    batch_status ENUM('SPOOLED', 'COMPLETED') NOT NULL DEFAULT 'SPOOLED',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP NULL,
+    FOREIGN KEY (operator_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    INDEX idx_batch_status (batch_status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- Print Jobs table
 CREATE TABLE print_jobs (
     job_id INT PRIMARY KEY AUTO_INCREMENT,
     user_id INT NOT NULL,
     document_name VARCHAR(255) NOT NULL,
-    document_content MEDIUMBLOB,
+    document_size BIGINT,
+    document_hash CHAR(64),
+    document_codec VARCHAR(16) NOT NULL DEFAULT 'RAW',
     document_path VARCHAR(512),
     page_count INT NOT NULL CHECK (page_count > 0),
     num_copies INT NOT NULL CHECK (num_copies > 0),
@@ -39,14 +74,63 @@ CREATE TABLE print_jobs (
     submitted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     started_at TIMESTAMP NULL,
     completed_at TIMESTAMP NULL,
+    needed_by TIMESTAMP NULL,
     operator_id INT NULL,
     notes TEXT,
+    idempotency_key VARCHAR(64) NULL,
+    printer_id INT NULL,
+    spool_batch_id INT NULL,
+    lease_owner VARCHAR(64) NULL,
+    lease_expires_at TIMESTAMP NULL,
+    version INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (operator_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    FOREIGN KEY (printer_id) REFERENCES printers(printer_id) ON DELETE SET NULL,
+    FOREIGN KEY (spool_batch_id) REFERENCES spool_batches(batch_id) ON DELETE SET NULL,
+    INDEX idx_spool_batch (spool_batch_id),
+    INDEX idx_lease (job_status, lease_expires_at),
+    INDEX idx_lease_owner (lease_owner),
+    INDEX idx_updated_at (updated_at),
+    INDEX idx_printer_status (printer_id, job_status),
+    UNIQUE KEY uk_user_idempotency (user_id, idempotency_key),
     INDEX idx_job_status (job_status),
     INDEX idx_user_id (user_id),
     INDEX idx_submitted_at (submitted_at),
-    INDEX idx_queue_position (queue_position)
+    INDEX idx_queue_position (queue_position),
+    INDEX idx_settlement (payment_status, payment_type, job_status, job_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Document content in consecutive 1 MB parts (PrintJobDAO.DOCUMENT_PART_SIZE)
+-- Each part is read by primary key, so a document streams without reading the whole value
+CREATE TABLE print_job_document_parts (
+    job_id INT NOT NULL,
+    part_index INT NOT NULL,
+    content MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (job_id, part_index),
+    FOREIGN KEY (job_id) REFERENCES print_jobs(job_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Parts of large jobs that the dispatcher split across printers
+CREATE TABLE print_job_chunks (
+    chunk_id INT PRIMARY KEY AUTO_INCREMENT,
+    job_id INT NOT NULL,
+    chunk_index INT NOT NULL,
+    chunk_count INT NOT NULL,
+    page_from INT NOT NULL,
+    page_to INT NOT NULL,
+    copy_from INT NOT NULL,
+    copy_to INT NOT NULL,
+    sheet_count INT NOT NULL,
+    printer_id INT NULL,
+    chunk_status ENUM('PENDING', 'COMPLETED') NOT NULL DEFAULT 'PENDING',
+    operator_id INT NULL,
+    completed_at TIMESTAMP NULL,
+    FOREIGN KEY (job_id) REFERENCES print_jobs(job_id) ON DELETE CASCADE,
+    FOREIGN KEY (printer_id) REFERENCES printers(printer_id) ON DELETE SET NULL,
+    FOREIGN KEY (operator_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    UNIQUE KEY uk_job_chunk (job_id, chunk_index),
+    INDEX idx_chunk_printer_status (printer_id, chunk_status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Transactions table
@@ -60,11 +144,74 @@ CREATE TABLE transactions (
     balance_after DECIMAL(10, 2) NOT NULL,
     transaction_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     description VARCHAR(255),
+    idempotency_key VARCHAR(64) NULL,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (job_id) REFERENCES print_jobs(job_id) ON DELETE SET NULL,
     INDEX idx_user_id (user_id),
     INDEX idx_transaction_date (transaction_date),
-    INDEX idx_transaction_type (transaction_type)
+    INDEX idx_transaction_type (transaction_type),
+    UNIQUE KEY uk_idempotency_key (idempotency_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Funds reserved for PREPAID jobs: placed at submission, captured on completion,
+-- released on cancellation. users.held_balance is the sum of HELD rows per user.
+CREATE TABLE wallet_holds (
+    hold_id INT PRIMARY KEY AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    job_id INT NOT NULL UNIQUE,
+    amount DECIMAL(10, 2) NOT NULL,
+    hold_status ENUM('HELD', 'CAPTURED', 'RELEASED') NOT NULL DEFAULT 'HELD',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    resolved_at TIMESTAMP NULL,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    FOREIGN KEY (job_id) REFERENCES print_jobs(job_id) ON DELETE CASCADE,
+    INDEX idx_user_status (user_id, hold_status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Rows credited by bulk recharge imports; the primary key makes re-running a batch idempotent
+CREATE TABLE recharge_batch_items (
+    batch_id VARCHAR(64) NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    transaction_id INT NULL,
+    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (batch_id, username),
+    FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id) ON DELETE SET NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Per-user totals by transaction type
+-- Maintained by TransactionDAO in the same transaction as each ledger insert
+CREATE TABLE transaction_totals (
+    user_id INT NOT NULL,
+    transaction_type ENUM('WALLET_RECHARGE', 'PAYMENT', 'REFUND') NOT NULL,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    transaction_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, transaction_type),
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Daily totals by transaction type across all users (admin dashboards)
+-- Each day and type is split over 16 shards (user_id mod 16) so concurrent ledger
+-- writes for different users do not contend on one row; readers sum the shards
+CREATE TABLE transaction_daily_totals (
+    summary_date DATE NOT NULL,
+    transaction_type ENUM('WALLET_RECHARGE', 'PAYMENT', 'REFUND') NOT NULL,
+    shard TINYINT UNSIGNED NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    transaction_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (summary_date, transaction_type, shard)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Exponentially weighted moving average of pages per minute per printer and per operator
+-- Updated by EtaEngine as each piece of work completes; last_completed_at marks where
+-- the next piece of work on the same printer or operator could have started
+CREATE TABLE throughput_stats (
+    subject_type ENUM('PRINTER', 'OPERATOR') NOT NULL,
+    subject_id INT NOT NULL,
+    ewma_pages_per_minute DOUBLE NOT NULL DEFAULT 0,
+    samples INT NOT NULL DEFAULT 0,
+    last_completed_at TIMESTAMP NULL,
+    PRIMARY KEY (subject_type, subject_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Insert default users (passwords are hashed in application, here using plain text for demo)
@@ -74,6 +221,12 @@ INSERT INTO users (username, password, full_name, email, user_type, wallet_balan
 ('operator1', 'operator123', 'Mike Wilson', 'mike.wilson@college.edu', 'OPERATOR', 0.00),
 ('admin1', 'admin123', 'Admin User', 'admin@college.edu', 'ADMIN', 0.00);
 
+-- Default printers
+INSERT INTO printers (printer_name, pages_per_minute) VALUES
+('Laser 1', 40),
+('Laser 2', 40),
+('Inkjet Colour', 15);
+
 -- Create a view for queue status
 CREATE OR REPLACE VIEW queue_status_view AS
 SELECT 